@@ -4,6 +4,7 @@ import com.atlassian.jira.security.JiraAuthenticationContext;
 import com.atlassian.jira.security.GlobalPermissionManager;
 import com.atlassian.jira.security.Permissions;
 import com.atlassian.jira.user.ApplicationUser;
+import com.atlassian.jira.user.util.UserManager;
 import com.atlassian.sal.api.ApplicationProperties;
 import com.healthcanada.jira.github.model.GitHubConfig;
 import com.healthcanada.jira.github.model.GitHubException;
@@ -38,18 +39,21 @@ public class ConfigurationResource {
     private final JiraAuthenticationContext authenticationContext;
     private final GlobalPermissionManager globalPermissionManager;
     private final ApplicationProperties applicationProperties;
+    private final UserManager userManager;
 
     @Autowired
     public ConfigurationResource(PluginConfigurationManager configManager,
                                   GitHubService githubService,
                                   JiraAuthenticationContext authenticationContext,
                                   GlobalPermissionManager globalPermissionManager,
-                                  ApplicationProperties applicationProperties) {
+                                  ApplicationProperties applicationProperties,
+                                  UserManager userManager) {
         this.configManager = configManager;
         this.githubService = githubService;
         this.authenticationContext = authenticationContext;
         this.globalPermissionManager = globalPermissionManager;
         this.applicationProperties = applicationProperties;
+        this.userManager = userManager;
     }
 
     /**
@@ -66,7 +70,7 @@ public class ConfigurationResource {
                         .build();
             }
 
-            GitHubConfig config = configManager.getConfiguration();
+            GitHubConfig config = configManager.getEditableConfiguration();
 
             // For security, don't return the actual token in GET request
             // Return a masked version
@@ -216,7 +220,7 @@ public class ConfigurationResource {
                         .build();
             }
 
-            GitHubConfig config = configManager.getConfiguration();
+            GitHubConfig config = configManager.getEditableConfiguration();
             if (!config.isValid()) {
                 return Response.status(Response.Status.BAD_REQUEST)
                         .entity(errorResponse("Configuration is invalid"))
@@ -334,6 +338,18 @@ public class ConfigurationResource {
             errors.add("GitHub token is required");
         }
 
+        if (config.getMaxConnections() < 1 || config.getMaxConnectionsPerRoute() < 1) {
+            errors.add("Connection pool sizes must be at least 1");
+        } else if (config.getMaxConnectionsPerRoute() > config.getMaxConnections()) {
+            errors.add("Connections per host cannot exceed the total number of connections");
+        }
+
+        String integrationUser = config.getIntegrationUser();
+        if (integrationUser != null && !integrationUser.trim().isEmpty()
+                && userManager.getUserByName(integrationUser.trim()) == null) {
+            errors.add("Integration user " + integrationUser.trim() + " does not exist");
+        }
+
         if (config.getRepositories() == null || config.getRepositories().isEmpty()) {
             errors.add("At least one repository mapping is required");
         } else {
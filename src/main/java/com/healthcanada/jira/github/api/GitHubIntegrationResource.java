@@ -3,9 +3,18 @@ package com.healthcanada.jira.github.api;
 import com.atlassian.jira.security.JiraAuthenticationContext;
 import com.atlassian.jira.user.ApplicationUser;
 import com.healthcanada.jira.github.model.GitHubException;
+import com.healthcanada.jira.github.service.BranchShaCache;
+import com.healthcanada.jira.github.service.CircuitBreaker;
+import com.healthcanada.jira.github.service.GitHubClientRegistry;
 import com.healthcanada.jira.github.service.GitHubService;
+import com.healthcanada.jira.github.service.IssueSnapshotCache;
 import com.healthcanada.jira.github.service.JiraService;
+import com.healthcanada.jira.github.service.WorkflowTransitionCache;
 import com.healthcanada.jira.github.util.ValidationUtils;
+import com.healthcanada.jira.github.webhook.DeliveryDeduplicator;
+import com.healthcanada.jira.github.webhook.WebhookEventProcessor;
+import com.healthcanada.jira.github.webhook.WebhookEventQueue;
+import com.healthcanada.jira.github.webhook.WebhookJournal;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -29,14 +38,38 @@ public class GitHubIntegrationResource {
     private final GitHubService githubService;
     private final JiraService jiraService;
     private final JiraAuthenticationContext authenticationContext;
+    private final GitHubClientRegistry clientRegistry;
+    private final WebhookEventQueue webhookEventQueue;
+    private final WebhookEventProcessor webhookEventProcessor;
+    private final WebhookJournal webhookJournal;
+    private final DeliveryDeduplicator deliveryDeduplicator;
+    private final BranchShaCache branchShaCache;
+    private final WorkflowTransitionCache workflowTransitionCache;
+    private final IssueSnapshotCache issueSnapshotCache;
 
     @Autowired
     public GitHubIntegrationResource(GitHubService githubService,
                                       JiraService jiraService,
-                                      JiraAuthenticationContext authenticationContext) {
+                                      JiraAuthenticationContext authenticationContext,
+                                      GitHubClientRegistry clientRegistry,
+                                      WebhookEventQueue webhookEventQueue,
+                                      WebhookEventProcessor webhookEventProcessor,
+                                      WebhookJournal webhookJournal,
+                                      DeliveryDeduplicator deliveryDeduplicator,
+                                      BranchShaCache branchShaCache,
+                                      WorkflowTransitionCache workflowTransitionCache,
+                                      IssueSnapshotCache issueSnapshotCache) {
         this.githubService = githubService;
         this.jiraService = jiraService;
         this.authenticationContext = authenticationContext;
+        this.clientRegistry = clientRegistry;
+        this.webhookEventQueue = webhookEventQueue;
+        this.webhookEventProcessor = webhookEventProcessor;
+        this.webhookJournal = webhookJournal;
+        this.deliveryDeduplicator = deliveryDeduplicator;
+        this.branchShaCache = branchShaCache;
+        this.workflowTransitionCache = workflowTransitionCache;
+        this.issueSnapshotCache = issueSnapshotCache;
     }
 
     /**
@@ -207,16 +240,14 @@ public class GitHubIntegrationResource {
                         .build();
             }
 
-            // For now, return placeholder data
-            // In a full implementation, this would query GitHub for branches and PRs
-            // associated with this issue (by parsing remote links or searching GitHub)
-            Map<String, Object> result = new HashMap<>();
-            result.put("issueKey", issueKey);
-            result.put("branches", new java.util.ArrayList<>());
-            result.put("pullRequests", new java.util.ArrayList<>());
-
+            Map<String, Object> result = githubService.getIssueGitHubInfo(issueKey);
             return Response.ok(result).build();
 
+        } catch (GitHubException e) {
+            log.warn("GitHub error getting GitHub info for issue {}: {}", issueKey, e.getMessage());
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(errorResponse("Failed to load GitHub information: " + e.getMessage()))
+                    .build();
         } catch (Exception e) {
             log.error("Error getting GitHub info for issue " + issueKey, e);
             return Response.serverError()
@@ -232,9 +263,37 @@ public class GitHubIntegrationResource {
     @GET
     @Path("/health")
     public Response healthCheck() {
+        CircuitBreaker.State githubCircuit = clientRegistry.getCircuitState();
+
         Map<String, Object> response = new HashMap<>();
-        response.put("status", "ok");
+        response.put("status", githubCircuit == CircuitBreaker.State.CLOSED ? "ok" : "degraded");
         response.put("version", "1.0.0");
+        response.put("githubCircuit", githubCircuit.name());
+        return Response.ok(response).build();
+    }
+
+    /**
+     * Runtime metrics for monitoring
+     * GET /rest/github-integration/1.0/metrics
+     */
+    @GET
+    @Path("/metrics")
+    public Response metrics() {
+        if (authenticationContext.getLoggedInUser() == null) {
+            return Response.status(Response.Status.UNAUTHORIZED)
+                    .entity(errorResponse("User not authenticated"))
+                    .build();
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("githubClient", clientRegistry.getStatistics());
+        response.put("webhookQueue", webhookEventQueue.getStatistics());
+        response.put("issueLanes", webhookEventProcessor.getStatistics());
+        response.put("webhookJournal", webhookJournal.getStatistics());
+        response.put("deliveryDeduplication", deliveryDeduplicator.getStatistics());
+        response.put("branchShaCache", branchShaCache.getStatistics());
+        response.put("workflowTransitions", workflowTransitionCache.getStatistics());
+        response.put("issueCache", issueSnapshotCache.getStatistics());
         return Response.ok(response).build();
     }
 
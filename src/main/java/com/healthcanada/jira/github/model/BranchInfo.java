@@ -0,0 +1,64 @@
+package com.healthcanada.jira.github.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Branch found through the GitHub GraphQL API
+ */
+public class BranchInfo {
+
+    @JsonProperty("repository")
+    private String repository;
+
+    @JsonProperty("name")
+    private String name;
+
+    @JsonProperty("sha")
+    private String sha;
+
+    @JsonProperty("url")
+    private String url;
+
+    // Getters and Setters
+
+    /**
+     * Repository as "owner/repo"
+     */
+    public String getRepository() {
+        return repository;
+    }
+
+    public void setRepository(String repository) {
+        this.repository = repository;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Head commit SHA
+     */
+    public String getSha() {
+        return sha;
+    }
+
+    public void setSha(String sha) {
+        this.sha = sha;
+    }
+
+    /**
+     * Web URL of the branch tree
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+}
@@ -1,9 +1,13 @@
 package com.healthcanada.jira.github.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.healthcanada.jira.github.util.IssueKeyScanner;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 /**
@@ -11,6 +15,10 @@ import java.util.Map;
  */
 public class GitHubConfig {
 
+    // Connection pool defaults for the GitHub clients
+    public static final int DEFAULT_MAX_CONNECTIONS = 20;
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 10;
+
     @JsonProperty("githubEnterpriseUrl")
     private String githubEnterpriseUrl;
 
@@ -23,6 +31,12 @@ public class GitHubConfig {
     @JsonProperty("trustCustomCertificates")
     private boolean trustCustomCertificates;
 
+    @JsonProperty("maxConnections")
+    private int maxConnections;
+
+    @JsonProperty("maxConnectionsPerRoute")
+    private int maxConnectionsPerRoute;
+
     @JsonProperty("repositories")
     private List<RepositoryMapping> repositories;
 
@@ -41,12 +55,31 @@ public class GitHubConfig {
     @JsonProperty("webhookIds")
     private Map<String, String> webhookIds;
 
+    @JsonProperty("integrationUser")
+    private String integrationUser;
+
+    // Set once the instance is published as a shared configuration snapshot
+    @JsonIgnore
+    private boolean frozen;
+
+    // Lookup indexes built once when the snapshot is frozen
+    @JsonIgnore
+    private Map<String, List<RepositoryMapping>> mappingsByProject;
+
+    @JsonIgnore
+    private Map<String, List<RepositoryMapping>> mappingsByRepository;
+
+    @JsonIgnore
+    private IssueKeyScanner issueKeyScanner;
+
     public GitHubConfig() {
         this.repositories = new ArrayList<>();
         this.transitionMappings = new HashMap<>();
         this.webhookIds = new HashMap<>();
         this.branchNaming = "feature/{issueKey}-{summary}";
         this.trustCustomCertificates = false;
+        this.maxConnections = DEFAULT_MAX_CONNECTIONS;
+        this.maxConnectionsPerRoute = DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
     }
 
     // Getters and Setters
@@ -56,6 +89,7 @@ public class GitHubConfig {
     }
 
     public void setGithubEnterpriseUrl(String githubEnterpriseUrl) {
+        checkNotFrozen();
         this.githubEnterpriseUrl = githubEnterpriseUrl;
         // Auto-set API URL if not explicitly set
         if (githubEnterpriseUrl != null && !githubEnterpriseUrl.isEmpty()) {
@@ -70,6 +104,7 @@ public class GitHubConfig {
     }
 
     public void setGithubApiUrl(String githubApiUrl) {
+        checkNotFrozen();
         this.githubApiUrl = githubApiUrl;
     }
 
@@ -78,6 +113,7 @@ public class GitHubConfig {
     }
 
     public void setGithubToken(String githubToken) {
+        checkNotFrozen();
         this.githubToken = githubToken;
     }
 
@@ -86,14 +122,40 @@ public class GitHubConfig {
     }
 
     public void setTrustCustomCertificates(boolean trustCustomCertificates) {
+        checkNotFrozen();
         this.trustCustomCertificates = trustCustomCertificates;
     }
 
+    /**
+     * Size of the HTTP connection pool to GitHub Enterprise
+     */
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public void setMaxConnections(int maxConnections) {
+        checkNotFrozen();
+        this.maxConnections = maxConnections;
+    }
+
+    /**
+     * Connections per host, which also caps the adaptive concurrency limit
+     */
+    public int getMaxConnectionsPerRoute() {
+        return maxConnectionsPerRoute;
+    }
+
+    public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+        checkNotFrozen();
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+    }
+
     public List<RepositoryMapping> getRepositories() {
         return repositories;
     }
 
     public void setRepositories(List<RepositoryMapping> repositories) {
+        checkNotFrozen();
         this.repositories = repositories;
     }
 
@@ -102,6 +164,7 @@ public class GitHubConfig {
     }
 
     public void setBranchNaming(String branchNaming) {
+        checkNotFrozen();
         this.branchNaming = branchNaming;
     }
 
@@ -110,6 +173,7 @@ public class GitHubConfig {
     }
 
     public void setTransitionMappings(Map<String, String> transitionMappings) {
+        checkNotFrozen();
         this.transitionMappings = transitionMappings;
     }
 
@@ -118,6 +182,7 @@ public class GitHubConfig {
     }
 
     public void setWebhookSecret(String webhookSecret) {
+        checkNotFrozen();
         this.webhookSecret = webhookSecret;
     }
 
@@ -126,6 +191,7 @@ public class GitHubConfig {
     }
 
     public void setWebhookUrl(String webhookUrl) {
+        checkNotFrozen();
         this.webhookUrl = webhookUrl;
     }
 
@@ -134,25 +200,179 @@ public class GitHubConfig {
     }
 
     public void setWebhookIds(Map<String, String> webhookIds) {
+        checkNotFrozen();
         this.webhookIds = webhookIds;
     }
 
+    /**
+     * Jira username that webhook-driven issue updates run as
+     */
+    public String getIntegrationUser() {
+        return integrationUser;
+    }
+
+    public void setIntegrationUser(String integrationUser) {
+        checkNotFrozen();
+        this.integrationUser = integrationUser;
+    }
+
     /**
      * Find repository mapping for a given Jira project
      */
     public RepositoryMapping getRepositoryMapping(String jiraProjectKey) {
-        if (repositories == null) {
-            return null;
+        List<RepositoryMapping> mappings = getRepositoryMappings(jiraProjectKey);
+        return mappings.isEmpty() ? null : mappings.get(0);
+    }
+
+    /**
+     * Find all repository mappings for a given Jira project (case-insensitive)
+     */
+    @JsonIgnore
+    public List<RepositoryMapping> getRepositoryMappings(String jiraProjectKey) {
+        if (jiraProjectKey == null) {
+            return Collections.emptyList();
+        }
+        if (mappingsByProject != null) {
+            List<RepositoryMapping> mappings = mappingsByProject.get(normalizeProjectKey(jiraProjectKey));
+            return mappings != null ? mappings : Collections.<RepositoryMapping>emptyList();
+        }
+
+        // Editable (not yet frozen) config: fall back to a scan
+        List<RepositoryMapping> result = new ArrayList<>();
+        if (repositories != null) {
+            for (RepositoryMapping mapping : repositories) {
+                if (jiraProjectKey.equalsIgnoreCase(mapping.getJiraProject())) {
+                    result.add(mapping);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Find all mappings for a GitHub repository given as "owner/repo" (case-insensitive)
+     */
+    @JsonIgnore
+    public List<RepositoryMapping> getRepositoryMappingsByFullName(String fullRepoName) {
+        if (fullRepoName == null) {
+            return Collections.emptyList();
+        }
+        if (mappingsByRepository != null) {
+            List<RepositoryMapping> mappings = mappingsByRepository.get(normalizeRepoName(fullRepoName));
+            return mappings != null ? mappings : Collections.<RepositoryMapping>emptyList();
+        }
+
+        // Editable (not yet frozen) config: fall back to a scan
+        List<RepositoryMapping> result = new ArrayList<>();
+        if (repositories != null) {
+            for (RepositoryMapping mapping : repositories) {
+                if (fullRepoName.trim().equalsIgnoreCase(mapping.getFullRepoName())) {
+                    result.add(mapping);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get a scanner for issue keys of the mapped Jira projects
+     */
+    @JsonIgnore
+    public IssueKeyScanner getIssueKeyScanner() {
+        if (issueKeyScanner != null) {
+            return issueKeyScanner;
+        }
+
+        // Editable (not yet frozen) config: build on demand
+        List<String> projectKeys = new ArrayList<>();
+        if (repositories != null) {
+            for (RepositoryMapping mapping : repositories) {
+                projectKeys.add(mapping.getJiraProject());
+            }
+        }
+        return new IssueKeyScanner(projectKeys);
+    }
+
+    /**
+     * Build project and repository hash indexes and the issue key scanner over the repository mappings
+     */
+    private void buildIndexes() {
+        Map<String, List<RepositoryMapping>> byProject = new HashMap<>();
+        Map<String, List<RepositoryMapping>> byRepository = new HashMap<>();
+
+        for (RepositoryMapping mapping : repositories) {
+            if (mapping.getJiraProject() != null) {
+                byProject.computeIfAbsent(normalizeProjectKey(mapping.getJiraProject()), k -> new ArrayList<>())
+                        .add(mapping);
+            }
+            if (mapping.getGithubOwner() != null && mapping.getGithubRepo() != null) {
+                byRepository.computeIfAbsent(normalizeRepoName(mapping.getFullRepoName()), k -> new ArrayList<>())
+                        .add(mapping);
+            }
+        }
+
+        byProject.replaceAll((key, list) -> Collections.unmodifiableList(list));
+        byRepository.replaceAll((key, list) -> Collections.unmodifiableList(list));
+        mappingsByProject = byProject;
+        mappingsByRepository = byRepository;
+        issueKeyScanner = new IssueKeyScanner(byProject.keySet());
+    }
+
+    private static String normalizeProjectKey(String projectKey) {
+        return projectKey.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private static String normalizeRepoName(String fullRepoName) {
+        return fullRepoName.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Make this configuration read-only so it can be shared between threads
+     * Collections are copied and wrapped unmodifiable, repository mappings are replaced
+     * by read-only copies, and setters throw afterwards
+     */
+    public GitHubConfig freeze() {
+        if (frozen) {
+            return this;
+        }
+        List<RepositoryMapping> frozenRepositories = new ArrayList<>();
+        if (repositories != null) {
+            for (RepositoryMapping mapping : repositories) {
+                if (mapping != null) {
+                    frozenRepositories.add(mapping.frozenCopy());
+                }
+            }
+        }
+        repositories = Collections.unmodifiableList(frozenRepositories);
+        transitionMappings = transitionMappings != null
+                ? Collections.unmodifiableMap(new HashMap<>(transitionMappings))
+                : Collections.<String, String>emptyMap();
+        webhookIds = webhookIds != null
+                ? Collections.unmodifiableMap(new HashMap<>(webhookIds))
+                : Collections.<String, String>emptyMap();
+        buildIndexes();
+        frozen = true;
+        return this;
+    }
+
+    /**
+     * Check if this configuration is a read-only snapshot
+     */
+    @JsonIgnore
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new IllegalStateException("Configuration snapshot is read-only; use an editable copy");
         }
-        return repositories.stream()
-                .filter(mapping -> mapping.getJiraProject().equals(jiraProjectKey))
-                .findFirst()
-                .orElse(null);
     }
 
     /**
      * Check if configuration is valid
      */
+    @JsonIgnore
     public boolean isValid() {
         return githubEnterpriseUrl != null && !githubEnterpriseUrl.isEmpty()
                 && githubToken != null && !githubToken.isEmpty()
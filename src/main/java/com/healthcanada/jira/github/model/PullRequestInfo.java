@@ -0,0 +1,108 @@
+package com.healthcanada.jira.github.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Pull request state read through the GitHub GraphQL API
+ */
+public class PullRequestInfo {
+
+    @JsonProperty("id")
+    private String id;
+
+    @JsonProperty("repository")
+    private String repository;
+
+    @JsonProperty("number")
+    private int number;
+
+    @JsonProperty("title")
+    private String title;
+
+    @JsonProperty("url")
+    private String url;
+
+    @JsonProperty("state")
+    private String state;
+
+    @JsonProperty("headRef")
+    private String headRef;
+
+    @JsonProperty("baseRef")
+    private String baseRef;
+
+    // Getters and Setters
+
+    /**
+     * GraphQL node ID, usable with getPullRequestsById
+     */
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    /**
+     * Repository as "owner/repo"
+     */
+    public String getRepository() {
+        return repository;
+    }
+
+    public void setRepository(String repository) {
+        this.repository = repository;
+    }
+
+    public int getNumber() {
+        return number;
+    }
+
+    public void setNumber(int number) {
+        this.number = number;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    /**
+     * open, closed or merged
+     */
+    public String getState() {
+        return state;
+    }
+
+    public void setState(String state) {
+        this.state = state;
+    }
+
+    public String getHeadRef() {
+        return headRef;
+    }
+
+    public void setHeadRef(String headRef) {
+        this.headRef = headRef;
+    }
+
+    public String getBaseRef() {
+        return baseRef;
+    }
+
+    public void setBaseRef(String baseRef) {
+        this.baseRef = baseRef;
+    }
+}
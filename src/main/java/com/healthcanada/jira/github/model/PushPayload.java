@@ -0,0 +1,230 @@
+package com.healthcanada.jira.github.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * GitHub push webhook payload model
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class PushPayload {
+
+    private static final String BRANCH_REF_PREFIX = "refs/heads/";
+
+    @JsonProperty("ref")
+    private String ref;
+
+    @JsonProperty("before")
+    private String before;
+
+    @JsonProperty("after")
+    private String after;
+
+    @JsonProperty("created")
+    private boolean created;
+
+    @JsonProperty("deleted")
+    private boolean deleted;
+
+    @JsonProperty("compare")
+    private String compare;
+
+    @JsonProperty("commits")
+    private List<Commit> commits;
+
+    @JsonProperty("repository")
+    private WebhookPayload.Repository repository;
+
+    @JsonProperty("sender")
+    private WebhookPayload.User sender;
+
+    public PushPayload() {
+        this.commits = new ArrayList<>();
+    }
+
+    // Getters and Setters
+
+    public String getRef() {
+        return ref;
+    }
+
+    public void setRef(String ref) {
+        this.ref = ref;
+    }
+
+    /**
+     * Branch name without the refs/heads/ prefix, or null for tag pushes
+     */
+    @JsonIgnore
+    public String getBranchName() {
+        if (ref == null || !ref.startsWith(BRANCH_REF_PREFIX)) {
+            return null;
+        }
+        return ref.substring(BRANCH_REF_PREFIX.length());
+    }
+
+    public String getBefore() {
+        return before;
+    }
+
+    public void setBefore(String before) {
+        this.before = before;
+    }
+
+    public String getAfter() {
+        return after;
+    }
+
+    public void setAfter(String after) {
+        this.after = after;
+    }
+
+    public boolean isCreated() {
+        return created;
+    }
+
+    public void setCreated(boolean created) {
+        this.created = created;
+    }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(boolean deleted) {
+        this.deleted = deleted;
+    }
+
+    public String getCompare() {
+        return compare;
+    }
+
+    public void setCompare(String compare) {
+        this.compare = compare;
+    }
+
+    public List<Commit> getCommits() {
+        return commits;
+    }
+
+    public void setCommits(List<Commit> commits) {
+        this.commits = commits;
+    }
+
+    public WebhookPayload.Repository getRepository() {
+        return repository;
+    }
+
+    public void setRepository(WebhookPayload.Repository repository) {
+        this.repository = repository;
+    }
+
+    public WebhookPayload.User getSender() {
+        return sender;
+    }
+
+    public void setSender(WebhookPayload.User sender) {
+        this.sender = sender;
+    }
+
+    /**
+     * Commit information from a push
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Commit {
+        @JsonProperty("id")
+        private String id;
+
+        @JsonProperty("message")
+        private String message;
+
+        @JsonProperty("url")
+        private String url;
+
+        @JsonProperty("timestamp")
+        private String timestamp;
+
+        @JsonProperty("author")
+        private CommitAuthor author;
+
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        /**
+         * Abbreviated commit SHA
+         */
+        @JsonIgnore
+        public String getShortId() {
+            return id != null && id.length() > 7 ? id.substring(0, 7) : id;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public void setMessage(String message) {
+            this.message = message;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getTimestamp() {
+            return timestamp;
+        }
+
+        public void setTimestamp(String timestamp) {
+            this.timestamp = timestamp;
+        }
+
+        public CommitAuthor getAuthor() {
+            return author;
+        }
+
+        public void setAuthor(CommitAuthor author) {
+            this.author = author;
+        }
+    }
+
+    /**
+     * Git author of a commit
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class CommitAuthor {
+        @JsonProperty("name")
+        private String name;
+
+        @JsonProperty("username")
+        private String username;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.healthcanada.jira.github.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 /**
@@ -22,6 +23,10 @@ public class RepositoryMapping {
     @JsonProperty("branchNamingTemplate")
     private String branchNamingTemplate;
 
+    // Set on the copies held by a frozen GitHubConfig
+    @JsonIgnore
+    private boolean frozen;
+
     public RepositoryMapping() {
         this.defaultBranch = "main";
         this.branchNamingTemplate = "feature/{issueKey}-{summary}";
@@ -41,6 +46,7 @@ public class RepositoryMapping {
     }
 
     public void setJiraProject(String jiraProject) {
+        checkNotFrozen();
         this.jiraProject = jiraProject;
     }
 
@@ -49,6 +55,7 @@ public class RepositoryMapping {
     }
 
     public void setGithubOwner(String githubOwner) {
+        checkNotFrozen();
         this.githubOwner = githubOwner;
     }
 
@@ -57,6 +64,7 @@ public class RepositoryMapping {
     }
 
     public void setGithubRepo(String githubRepo) {
+        checkNotFrozen();
         this.githubRepo = githubRepo;
     }
 
@@ -65,6 +73,7 @@ public class RepositoryMapping {
     }
 
     public void setDefaultBranch(String defaultBranch) {
+        checkNotFrozen();
         this.defaultBranch = defaultBranch;
     }
 
@@ -73,12 +82,34 @@ public class RepositoryMapping {
     }
 
     public void setBranchNamingTemplate(String branchNamingTemplate) {
+        checkNotFrozen();
         this.branchNamingTemplate = branchNamingTemplate;
     }
 
+    /**
+     * Get a read-only copy of this mapping for a configuration snapshot
+     */
+    RepositoryMapping frozenCopy() {
+        if (frozen) {
+            return this;
+        }
+        RepositoryMapping copy = new RepositoryMapping(jiraProject, githubOwner, githubRepo);
+        copy.defaultBranch = defaultBranch;
+        copy.branchNamingTemplate = branchNamingTemplate;
+        copy.frozen = true;
+        return copy;
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new IllegalStateException("Repository mapping of a configuration snapshot is read-only");
+        }
+    }
+
     /**
      * Get full repository name (owner/repo)
      */
+    @JsonIgnore
     public String getFullRepoName() {
         return githubOwner + "/" + githubRepo;
     }
@@ -4,32 +4,58 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.MessageDigest;
+import java.security.SecureRandom;
 import java.util.Arrays;
 import java.util.Base64;
 
 /**
  * Handles encryption and decryption of sensitive data (tokens, secrets)
+ *
+ * Values are encrypted with AES-GCM under a random IV and stored as
+ * "v2:" + Base64(IV + ciphertext + tag). Values written by earlier versions
+ * (unprefixed AES/ECB) are still decrypted, so stored configurations keep loading
+ * and can be re-encrypted in the current format.
+ *
+ * Keys are derived once at construction; Cipher instances are reused per thread.
  */
 public class TokenEncryption {
 
     private static final Logger log = LoggerFactory.getLogger(TokenEncryption.class);
     private static final String ALGORITHM = "AES";
-    private static final int KEY_SIZE = 16; // 128-bit AES
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final String PREFIX = "v2:";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_BITS = 128;
+    // Key length of the legacy ECB format
+    private static final int LEGACY_KEY_SIZE = 16; // 128-bit AES
 
     // In production, this should be stored securely (environment variable or Jira system property)
     private static final String DEFAULT_ENCRYPTION_KEY = "github-integration-key-change-me";
 
-    private final String encryptionKey;
+    private static final ThreadLocal<Cipher> GCM_CIPHER = ThreadLocal.withInitial(() -> newCipher(TRANSFORMATION));
+    private static final ThreadLocal<Cipher> LEGACY_CIPHER = ThreadLocal.withInitial(() -> newCipher(ALGORITHM));
+
+    private final SecretKey key;
+    private final SecretKey legacyKey;
+    private final SecureRandom random = new SecureRandom();
 
     public TokenEncryption() {
         // Try to get encryption key from system property, fall back to default
-        this.encryptionKey = System.getProperty("github.integration.encryption.key", DEFAULT_ENCRYPTION_KEY);
-        if (DEFAULT_ENCRYPTION_KEY.equals(this.encryptionKey)) {
+        String encryptionKey = System.getProperty("github.integration.encryption.key", DEFAULT_ENCRYPTION_KEY);
+        if (DEFAULT_ENCRYPTION_KEY.equals(encryptionKey)) {
             log.warn("Using default encryption key. Please set 'github.integration.encryption.key' system property for production.");
         }
+        byte[] keyBytes = sha256(encryptionKey);
+        this.key = new SecretKeySpec(keyBytes, ALGORITHM);
+        // Earlier versions used the first LEGACY_KEY_SIZE bytes of the same digest
+        this.legacyKey = new SecretKeySpec(Arrays.copyOf(keyBytes, LEGACY_KEY_SIZE), ALGORITHM);
     }
 
     /**
@@ -41,12 +67,16 @@ public class TokenEncryption {
         }
 
         try {
-            SecretKeySpec key = generateKey(encryptionKey);
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
-            cipher.init(Cipher.ENCRYPT_MODE, key);
+            byte[] iv = new byte[IV_LENGTH];
+            random.nextBytes(iv);
 
+            Cipher cipher = GCM_CIPHER.get();
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
             byte[] encrypted = cipher.doFinal(plainText.getBytes(StandardCharsets.UTF_8));
-            return Base64.getEncoder().encodeToString(encrypted);
+
+            ByteBuffer payload = ByteBuffer.allocate(IV_LENGTH + encrypted.length);
+            payload.put(iv).put(encrypted);
+            return PREFIX + Base64.getEncoder().encodeToString(payload.array());
         } catch (Exception e) {
             log.error("Failed to encrypt data", e);
             throw new Exception("Encryption failed: " + e.getMessage(), e);
@@ -54,7 +84,7 @@ public class TokenEncryption {
     }
 
     /**
-     * Decrypt encrypted string
+     * Decrypt encrypted string, in the current or the legacy format
      */
     public String decrypt(String encryptedText) throws Exception {
         if (encryptedText == null || encryptedText.isEmpty()) {
@@ -62,11 +92,20 @@ public class TokenEncryption {
         }
 
         try {
-            SecretKeySpec key = generateKey(encryptionKey);
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
-            cipher.init(Cipher.DECRYPT_MODE, key);
-
-            byte[] decrypted = cipher.doFinal(Base64.getDecoder().decode(encryptedText));
+            byte[] decrypted;
+            if (isEncrypted(encryptedText)) {
+                byte[] payload = Base64.getDecoder().decode(encryptedText.substring(PREFIX.length()));
+                if (payload.length <= IV_LENGTH) {
+                    throw new GeneralSecurityException("Encrypted value is truncated");
+                }
+                Cipher cipher = GCM_CIPHER.get();
+                cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, payload, 0, IV_LENGTH));
+                decrypted = cipher.doFinal(payload, IV_LENGTH, payload.length - IV_LENGTH);
+            } else {
+                Cipher cipher = LEGACY_CIPHER.get();
+                cipher.init(Cipher.DECRYPT_MODE, legacyKey);
+                decrypted = cipher.doFinal(Base64.getDecoder().decode(encryptedText));
+            }
             return new String(decrypted, StandardCharsets.UTF_8);
         } catch (Exception e) {
             log.error("Failed to decrypt data", e);
@@ -75,29 +114,32 @@ public class TokenEncryption {
     }
 
     /**
-     * Generate AES key from encryption key string
+     * Check if a string is encrypted in the current format
      */
-    private SecretKeySpec generateKey(String key) throws Exception {
-        MessageDigest sha = MessageDigest.getInstance("SHA-256");
-        byte[] keyBytes = sha.digest(key.getBytes(StandardCharsets.UTF_8));
-        // Use first KEY_SIZE bytes for AES key
-        byte[] truncatedKey = Arrays.copyOf(keyBytes, KEY_SIZE);
-        return new SecretKeySpec(truncatedKey, ALGORITHM);
+    public boolean isEncrypted(String text) {
+        return text != null && text.startsWith(PREFIX);
     }
 
     /**
-     * Check if a string is encrypted (base64 format check)
+     * Check if a stored value predates the current format and should be re-encrypted
      */
-    public boolean isEncrypted(String text) {
-        if (text == null || text.isEmpty()) {
-            return false;
+    public boolean isLegacyFormat(String text) {
+        return text != null && !text.isEmpty() && !isEncrypted(text);
+    }
+
+    private static byte[] sha256(String key) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
         }
+    }
+
+    private static Cipher newCipher(String transformation) {
         try {
-            Base64.getDecoder().decode(text);
-            // If no exception, it's base64 encoded (likely encrypted)
-            return text.length() > 20; // Encrypted tokens are typically long
-        } catch (IllegalArgumentException e) {
-            return false;
+            return Cipher.getInstance(transformation);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(transformation + " is not available", e);
         }
     }
 }
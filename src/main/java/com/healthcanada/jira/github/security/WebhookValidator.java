@@ -4,96 +4,179 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
 import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.MessageDigest;
+import java.util.Arrays;
 
 /**
  * Validates GitHub webhook signatures using HMAC-SHA256
+ *
+ * Verification works on raw bytes: the HMAC is updated while the request body is
+ * read into a per-thread buffer, Mac instances are reused per thread and secret,
+ * and the received hex signature is decoded and compared in constant time without
+ * building strings.
  */
 public class WebhookValidator {
 
     private static final Logger log = LoggerFactory.getLogger(WebhookValidator.class);
     private static final String HMAC_SHA256 = "HmacSHA256";
+    private static final String SIGNATURE_PREFIX = "sha256=";
+    private static final int DIGEST_LENGTH = 32;
+
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+    // Larger buffers are not kept after the request, so idle threads do not pin memory
+    private static final int MAX_RETAINED_BUFFER_SIZE = 4 * 1024 * 1024;
+
+    private static final ThreadLocal<VerificationState> STATE = ThreadLocal.withInitial(VerificationState::new);
 
     /**
-     * Verify GitHub webhook signature
+     * Read a request body while computing its HMAC and verify it against the signature
      *
-     * @param payload   The request body (JSON payload)
+     * @param body      The request input stream
      * @param signature The X-Hub-Signature-256 header value
      * @param secret    The webhook secret
-     * @return true if signature is valid
+     * @param maxBytes  Maximum accepted body size
+     * @return the body bytes if the signature is valid, null otherwise
+     * @throws PayloadTooLargeException if the body exceeds maxBytes
+     * @throws IOException if reading fails
      */
-    public static boolean verifySignature(String payload, String signature, String secret) {
-        if (payload == null || signature == null || secret == null) {
+    public static byte[] readAndVerify(InputStream body, String signature, String secret, int maxBytes)
+            throws IOException {
+        if (body == null || signature == null || secret == null) {
             log.warn("Webhook validation failed: null parameters");
-            return false;
+            return null;
+        }
+
+        VerificationState state = STATE.get();
+        if (!state.decodeSignature(signature)) {
+            log.warn("Invalid signature format");
+            return null;
         }
 
         try {
-            // GitHub sends signature as "sha256=<hex_signature>"
-            if (!signature.startsWith("sha256=")) {
-                log.warn("Invalid signature format: {}", signature);
-                return false;
-            }
+            Mac mac = state.macFor(secret);
+            byte[] buffer = state.buffer;
+            // A buffer kept from an earlier request may be larger than this request's limit
+            int capacity = Math.min(buffer.length, maxBytes);
+            int length = 0;
 
-            String expectedSignature = generateSignature(payload, secret);
-            String receivedSignature = signature.substring(7); // Remove "sha256=" prefix
+            while (true) {
+                if (length == capacity) {
+                    if (length >= maxBytes) {
+                        if (body.read() < 0) {
+                            break;
+                        }
+                        throw new PayloadTooLargeException(maxBytes);
+                    }
+                    buffer = Arrays.copyOf(buffer, (int) Math.min((long) maxBytes, (long) buffer.length * 2));
+                    capacity = buffer.length;
+                }
 
-            // Use constant-time comparison to prevent timing attacks
-            boolean isValid = MessageDigest.isEqual(
-                    expectedSignature.getBytes(StandardCharsets.UTF_8),
-                    receivedSignature.getBytes(StandardCharsets.UTF_8)
-            );
+                int read = body.read(buffer, length, capacity - length);
+                if (read < 0) {
+                    break;
+                }
+                mac.update(buffer, length, read);
+                length += read;
+            }
 
-            if (!isValid) {
-                log.warn("Webhook signature mismatch. Expected: sha256={}, Received: {}", expectedSignature, signature);
+            if (buffer.length <= MAX_RETAINED_BUFFER_SIZE) {
+                state.buffer = buffer;
             }
 
-            return isValid;
-        } catch (Exception e) {
+            if (!state.matches(mac)) {
+                log.warn("Webhook signature mismatch");
+                return null;
+            }
+
+            return Arrays.copyOf(buffer, length);
+        } catch (GeneralSecurityException e) {
             log.error("Error verifying webhook signature", e);
-            return false;
+            return null;
         }
     }
 
     /**
-     * Generate HMAC-SHA256 signature for payload
-     *
-     * @param payload The request body
-     * @param secret  The webhook secret
-     * @return Hex-encoded signature
+     * Generate a random webhook secret
      */
-    private static String generateSignature(String payload, String secret) throws Exception {
-        Mac mac = Mac.getInstance(HMAC_SHA256);
-        SecretKeySpec secretKeySpec = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_SHA256);
-        mac.init(secretKeySpec);
-
-        byte[] hash = mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
-        return bytesToHex(hash);
+    public static String generateWebhookSecret() {
+        String characters = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+        StringBuilder secret = new StringBuilder();
+        for (int i = 0; i < 40; i++) {
+            int index = (int) (Math.random() * characters.length());
+            secret.append(characters.charAt(index));
+        }
+        return secret.toString();
     }
 
     /**
-     * Convert byte array to hex string
+     * Raised while reading a webhook body larger than the accepted maximum
      */
-    private static String bytesToHex(byte[] bytes) {
-        StringBuilder result = new StringBuilder();
-        for (byte b : bytes) {
-            result.append(String.format("%02x", b));
+    public static final class PayloadTooLargeException extends IOException {
+        PayloadTooLargeException(int maxBytes) {
+            super("Webhook payload exceeds " + maxBytes + " bytes");
         }
-        return result.toString();
     }
 
     /**
-     * Generate a random webhook secret
+     * Per-thread reusable Mac, digest arrays and read buffer
      */
-    public static String generateWebhookSecret() {
-        String characters = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
-        StringBuilder secret = new StringBuilder();
-        for (int i = 0; i < 40; i++) {
-            int index = (int) (Math.random() * characters.length());
-            secret.append(characters.charAt(index));
+    private static final class VerificationState {
+        private final byte[] expected = new byte[DIGEST_LENGTH];
+        private final byte[] received = new byte[DIGEST_LENGTH];
+        private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+        private Mac mac;
+        private String macSecret;
+
+        /**
+         * Get a Mac initialised for the secret, re-keying only when the secret changes
+         */
+        Mac macFor(String secret) throws GeneralSecurityException {
+            if (mac == null) {
+                mac = Mac.getInstance(HMAC_SHA256);
+            }
+            if (!secret.equals(macSecret)) {
+                mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_SHA256));
+                macSecret = secret;
+            } else {
+                mac.reset();
+            }
+            return mac;
+        }
+
+        /**
+         * Decode "sha256=<hex>" into the received digest array
+         */
+        boolean decodeSignature(String signature) {
+            // GitHub sends signature as "sha256=<hex_signature>"
+            if (!signature.startsWith(SIGNATURE_PREFIX)
+                    || signature.length() != SIGNATURE_PREFIX.length() + DIGEST_LENGTH * 2) {
+                return false;
+            }
+
+            for (int i = 0; i < DIGEST_LENGTH; i++) {
+                int pos = SIGNATURE_PREFIX.length() + i * 2;
+                int high = Character.digit(signature.charAt(pos), 16);
+                int low = Character.digit(signature.charAt(pos + 1), 16);
+                if (high < 0 || low < 0) {
+                    return false;
+                }
+                received[i] = (byte) ((high << 4) | low);
+            }
+            return true;
+        }
+
+        /**
+         * Finish the HMAC and compare with the received digest in constant time
+         */
+        boolean matches(Mac mac) throws ShortBufferException {
+            mac.doFinal(expected, 0);
+            return MessageDigest.isEqual(expected, received);
         }
-        return secret.toString();
     }
 }
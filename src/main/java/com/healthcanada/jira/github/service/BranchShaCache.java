@@ -0,0 +1,173 @@
+package com.healthcanada.jira.github.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Head SHA of recently seen branches, keyed by repository and branch name
+ *
+ * Fed by push webhooks (ref + after) and by GitHub API responses, so creating a
+ * branch off a busy base branch usually needs no extra GET. Entries older than the
+ * staleness bound are ignored and refreshed from the API. A push whose "before"
+ * does not match the cached head means a delivery was missed or reordered; the
+ * entry is dropped rather than trusted.
+ *
+ * Tuned with system properties github.integration.branchSha.maxAgeSeconds (default 300)
+ * and github.integration.branchSha.maxEntries (default 5000).
+ */
+@Component
+public class BranchShaCache {
+
+    private static final Logger log = LoggerFactory.getLogger(BranchShaCache.class);
+
+    private static final long DEFAULT_MAX_AGE_SECONDS = 300;
+    private static final int DEFAULT_MAX_ENTRIES = 5000;
+
+    private final long maxAgeMillis;
+    private final int maxEntries;
+    private final LinkedHashMap<String, BranchHead> heads;
+
+    // Statistics
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong staleHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong pushUpdates = new AtomicLong();
+    private final AtomicLong apiUpdates = new AtomicLong();
+
+    public BranchShaCache() {
+        this(TimeUnit.SECONDS.toMillis(Long.getLong("github.integration.branchSha.maxAgeSeconds",
+                        DEFAULT_MAX_AGE_SECONDS)),
+                Integer.getInteger("github.integration.branchSha.maxEntries", DEFAULT_MAX_ENTRIES));
+    }
+
+    BranchShaCache(long maxAgeMillis, int maxEntries) {
+        this.maxAgeMillis = maxAgeMillis;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.heads = new LinkedHashMap<String, BranchHead>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, BranchHead> eldest) {
+                return size() > BranchShaCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Get the cached head SHA of a branch if it is fresh enough, otherwise null
+     */
+    public String get(String owner, String repo, String branch) {
+        BranchHead head;
+        synchronized (heads) {
+            head = heads.get(key(owner + "/" + repo, branch));
+        }
+
+        if (head == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        if (System.currentTimeMillis() - head.recordedAt > maxAgeMillis) {
+            staleHits.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return head.sha;
+    }
+
+    /**
+     * Record a head SHA returned by the GitHub API
+     */
+    public void put(String owner, String repo, String branch, String sha) {
+        if (sha == null || sha.isEmpty()) {
+            return;
+        }
+        apiUpdates.incrementAndGet();
+        synchronized (heads) {
+            heads.put(key(owner + "/" + repo, branch), new BranchHead(sha, System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * Apply a push webhook: move the branch head, or forget the branch if it was deleted
+     *
+     * @param repositoryFullName owner/repo as sent in the payload
+     */
+    public void onPush(String repositoryFullName, String branch, String before, String after, boolean deleted) {
+        if (repositoryFullName == null || branch == null) {
+            return;
+        }
+
+        String key = key(repositoryFullName, branch);
+        synchronized (heads) {
+            if (deleted) {
+                heads.remove(key);
+                return;
+            }
+
+            BranchHead current = heads.get(key);
+            if (current != null && !current.sha.equals(before) && !current.sha.equals(after)) {
+                log.debug("Push to {} does not follow cached head {}, dropping entry", key, current.sha);
+                heads.remove(key);
+                return;
+            }
+            if (after != null && !after.isEmpty()) {
+                pushUpdates.incrementAndGet();
+                heads.put(key, new BranchHead(after, System.currentTimeMillis()));
+            }
+        }
+    }
+
+    /**
+     * Forget a branch head, e.g. after GitHub rejected it
+     */
+    public void invalidate(String owner, String repo, String branch) {
+        synchronized (heads) {
+            heads.remove(key(owner + "/" + repo, branch));
+        }
+    }
+
+    /**
+     * Get cache statistics for monitoring
+     */
+    public Map<String, Object> getStatistics() {
+        long hitCount = hits.get();
+        long total = hitCount + staleHits.get() + misses.get();
+
+        Map<String, Object> stats = new HashMap<>();
+        synchronized (heads) {
+            stats.put("entries", heads.size());
+        }
+        stats.put("maxAgeSeconds", TimeUnit.MILLISECONDS.toSeconds(maxAgeMillis));
+        stats.put("hits", hitCount);
+        stats.put("staleHits", staleHits.get());
+        stats.put("misses", misses.get());
+        stats.put("hitRatio", total > 0 ? (double) hitCount / total : 0.0);
+        stats.put("pushUpdates", pushUpdates.get());
+        stats.put("apiUpdates", apiUpdates.get());
+        return stats;
+    }
+
+    private static String key(String repositoryFullName, String branch) {
+        // GitHub repository names are case-insensitive, branch names are not
+        return repositoryFullName.toLowerCase(Locale.ROOT) + ":" + branch;
+    }
+
+    /**
+     * Head SHA and when it was learned
+     */
+    private static final class BranchHead {
+        private final String sha;
+        private final long recordedAt;
+
+        private BranchHead(String sha, long recordedAt) {
+            this.sha = sha;
+            this.recordedAt = recordedAt;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.healthcanada.jira.github.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Circuit breaker for calls to one GitHub Enterprise host
+ *
+ * CLOSED: calls pass and their outcome is recorded in a rolling window of the last
+ * calls. When the failure rate or the slow call rate in the window reaches its
+ * threshold the breaker opens.
+ * OPEN: calls are refused immediately until the open period has elapsed.
+ * HALF_OPEN: a few probe calls are let through; if they all succeed the breaker
+ * closes, otherwise it opens again.
+ */
+public class CircuitBreaker {
+
+    private static final Logger log = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    private static final int WINDOW_SIZE = 50;
+    private static final int MINIMUM_CALLS = 10;
+    private static final int HALF_OPEN_PROBES = 3;
+
+    // Outcome flags stored per window slot
+    private static final byte FAILURE = 1;
+    private static final byte SLOW = 2;
+
+    /**
+     * Breaker states
+     */
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+    private final int failureRateThreshold;
+    private final long slowCallNanos;
+    private final long openNanos;
+
+    // Rolling window of recent outcomes
+    private final byte[] window = new byte[WINDOW_SIZE];
+    private int windowIndex;
+    private int windowCount;
+    private int failures;
+    private int slowCalls;
+
+    private State state = State.CLOSED;
+    private long openedAtNanos;
+    private int probesInFlight;
+    private int probeSuccesses;
+
+    // Statistics
+    private long notPermittedCalls;
+    private long timesOpened;
+
+    /**
+     * @param failureRateThreshold failure or slow call percentage that opens the breaker
+     * @param slowCallMillis       duration above which a call counts as slow
+     * @param openMillis           how long the breaker stays open before probing
+     */
+    public CircuitBreaker(String name, int failureRateThreshold, long slowCallMillis, long openMillis) {
+        this.name = name;
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCallMillis);
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+    }
+
+    /**
+     * Ask permission for a call; every permitted call must be followed by
+     * {@link #onSuccess(long)} or {@link #onFailure(long)}
+     */
+    public synchronized boolean tryAcquire() {
+        switch (state) {
+            case OPEN:
+                if (System.nanoTime() - openedAtNanos < openNanos) {
+                    notPermittedCalls++;
+                    return false;
+                }
+                transitionTo(State.HALF_OPEN);
+                // fall through to admit the first probe
+            case HALF_OPEN:
+                if (probesInFlight + probeSuccesses >= HALF_OPEN_PROBES) {
+                    notPermittedCalls++;
+                    return false;
+                }
+                probesInFlight++;
+                return true;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Record a call that completed, even with a client error response
+     */
+    public synchronized void onSuccess(long durationNanos) {
+        boolean slow = durationNanos >= slowCallNanos;
+        if (state == State.HALF_OPEN) {
+            probesInFlight = Math.max(0, probesInFlight - 1);
+            if (slow) {
+                transitionTo(State.OPEN);
+            } else if (++probeSuccesses >= HALF_OPEN_PROBES) {
+                transitionTo(State.CLOSED);
+            }
+            return;
+        }
+        record(slow ? SLOW : 0);
+    }
+
+    /**
+     * Record a call that failed with a network error or server error
+     */
+    public synchronized void onFailure(long durationNanos) {
+        if (state == State.HALF_OPEN) {
+            probesInFlight = Math.max(0, probesInFlight - 1);
+            transitionTo(State.OPEN);
+            return;
+        }
+        record((byte) (FAILURE | (durationNanos >= slowCallNanos ? SLOW : 0)));
+    }
+
+    /**
+     * Get the current state
+     */
+    public synchronized State getState() {
+        // Report an expired open period as half-open even before the next call
+        if (state == State.OPEN && System.nanoTime() - openedAtNanos >= openNanos) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    /**
+     * Get breaker statistics for monitoring
+     */
+    public synchronized Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("state", getState().name());
+        stats.put("bufferedCalls", windowCount);
+        stats.put("failureRatePercent", windowCount > 0 ? failures * 100 / windowCount : 0);
+        stats.put("slowCallRatePercent", windowCount > 0 ? slowCalls * 100 / windowCount : 0);
+        stats.put("notPermittedCalls", notPermittedCalls);
+        stats.put("timesOpened", timesOpened);
+        return stats;
+    }
+
+    private void record(byte outcome) {
+        if (state != State.CLOSED) {
+            // Late result of a call started before the breaker opened
+            return;
+        }
+
+        if (windowCount == WINDOW_SIZE) {
+            byte evicted = window[windowIndex];
+            failures -= evicted & FAILURE;
+            slowCalls -= (evicted & SLOW) >> 1;
+        } else {
+            windowCount++;
+        }
+        window[windowIndex] = outcome;
+        windowIndex = (windowIndex + 1) % WINDOW_SIZE;
+        failures += outcome & FAILURE;
+        slowCalls += (outcome & SLOW) >> 1;
+
+        if (windowCount >= MINIMUM_CALLS
+                && (failures * 100 >= failureRateThreshold * windowCount
+                    || slowCalls * 100 >= failureRateThreshold * windowCount)) {
+            log.warn("Circuit breaker for {} opening: {}% failed, {}% slow over last {} calls",
+                    name, failures * 100 / windowCount, slowCalls * 100 / windowCount, windowCount);
+            transitionTo(State.OPEN);
+        }
+    }
+
+    private void transitionTo(State newState) {
+        if (state == newState) {
+            return;
+        }
+        log.info("Circuit breaker for {} changed from {} to {}", name, state, newState);
+        state = newState;
+        probesInFlight = 0;
+        probeSuccesses = 0;
+
+        if (newState == State.OPEN) {
+            openedAtNanos = System.nanoTime();
+            timesOpened++;
+        } else if (newState == State.CLOSED) {
+            windowIndex = 0;
+            windowCount = 0;
+            failures = 0;
+            slowCalls = 0;
+        }
+    }
+}
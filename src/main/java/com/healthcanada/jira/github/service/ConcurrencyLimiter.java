@@ -0,0 +1,322 @@
+package com.healthcanada.jira.github.service;
+
+import com.healthcanada.jira.github.model.GitHubException;
+import org.apache.http.HttpStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adaptive limit on concurrent requests to one GitHub Enterprise host
+ *
+ * The limit is adjusted with AIMD after every window of completed requests. It is
+ * cut by a quarter when requests in the window timed out or failed with server
+ * errors, or when their average latency rose well above the long-term average;
+ * otherwise it grows by one if the window actually used the limit. So the limit
+ * settles around the concurrency at which GHE starts to queue, and backs off by
+ * itself when the shared appliance slows down.
+ *
+ * The limit stays between 1 and the per-route connection pool size. Requests over
+ * the limit wait in FIFO order: blocking callers on their own thread, async callers
+ * as a callback run once a slot has been taken for them.
+ *
+ * Tuned with system property github.integration.concurrency.latencyTolerance
+ * (default 2.0, window latency relative to the long-term average that counts as overload).
+ */
+public class ConcurrencyLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(ConcurrencyLimiter.class);
+
+    private static final int MIN_LIMIT = 1;
+    private static final int MIN_WINDOW_SAMPLES = 10;
+    private static final double BACKOFF_RATIO = 0.75;
+    // Weight of each window in the long-term latency average
+    private static final double LONG_TERM_WEIGHT = 0.1;
+    private static final double DEFAULT_LATENCY_TOLERANCE = 2.0;
+    private static final long MAX_WAIT_MS = 30000;
+
+    private final String name;
+    private final double latencyTolerance;
+
+    private int maxLimit;
+    private int limit;
+    private int inFlight;
+    private final Deque<Waiter> waiters = new ArrayDeque<>();
+
+    // Current window
+    private int windowSamples;
+    private long windowLatencyNanos;
+    private int windowDropped;
+    private int windowPeakInFlight;
+
+    private double shortLatencyNanos;
+    private double longLatencyNanos;
+
+    // Statistics
+    private long increases;
+    private long decreases;
+    private long timedOut;
+
+    /**
+     * @param maxLimit upper bound of the limit, normally the per-route pool size
+     */
+    public ConcurrencyLimiter(String name, int maxLimit) {
+        this.name = name;
+        this.latencyTolerance = parseTolerance(System.getProperty("github.integration.concurrency.latencyTolerance"));
+        this.maxLimit = Math.max(MIN_LIMIT, maxLimit);
+        this.limit = Math.max(MIN_LIMIT, this.maxLimit / 2);
+    }
+
+    /**
+     * Wait for a slot; every acquired slot must be given back with
+     * {@link #onSuccess(long)}, {@link #onDropped(long)} or {@link #onIgnore()}
+     *
+     * @throws GitHubException with status 503 if no slot became free in time
+     */
+    public void acquire() throws GitHubException {
+        Waiter waiter;
+        synchronized (this) {
+            if (waiters.isEmpty() && inFlight < limit) {
+                take();
+                return;
+            }
+            waiter = new Waiter(null);
+            waiters.add(waiter);
+
+            long deadline = System.currentTimeMillis() + MAX_WAIT_MS;
+            try {
+                while (!waiter.granted) {
+                    long waitMs = deadline - System.currentTimeMillis();
+                    if (waitMs <= 0) {
+                        waiters.remove(waiter);
+                        timedOut++;
+                        throw new GitHubException(String.format(
+                                "GitHub Enterprise concurrency limit of %d reached for %s", limit, name),
+                                HttpStatus.SC_SERVICE_UNAVAILABLE, null);
+                    }
+                    wait(waitMs);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (waiter.granted) {
+                    release();
+                } else {
+                    waiters.remove(waiter);
+                }
+                throw new GitHubException("Interrupted while waiting for a GitHub request slot", e);
+            }
+        }
+    }
+
+    /**
+     * Take a slot without blocking
+     *
+     * @param onAcquired run once a slot has been taken for the caller, if none is free now;
+     *                   it runs on the thread that freed the slot and must not block
+     * @return true if a slot was taken now, false if the callback was queued
+     */
+    public boolean tryAcquire(Runnable onAcquired) {
+        synchronized (this) {
+            if (waiters.isEmpty() && inFlight < limit) {
+                take();
+                return true;
+            }
+            waiters.add(new Waiter(onAcquired));
+            return false;
+        }
+    }
+
+    /**
+     * Give back a slot of a request that completed, including with a client error response
+     */
+    public void onSuccess(long durationNanos) {
+        complete(durationNanos, false);
+    }
+
+    /**
+     * Give back a slot of a request that timed out or failed with a server error
+     */
+    public void onDropped(long durationNanos) {
+        complete(durationNanos, true);
+    }
+
+    /**
+     * Give back a slot of a request that was never sent
+     */
+    public void onIgnore() {
+        List<Runnable> callbacks;
+        synchronized (this) {
+            release();
+            callbacks = grant();
+        }
+        run(callbacks);
+    }
+
+    /**
+     * Change the upper bound, e.g. after the connection pool was resized
+     */
+    public void setMaxLimit(int maxLimit) {
+        List<Runnable> callbacks;
+        synchronized (this) {
+            this.maxLimit = Math.max(MIN_LIMIT, maxLimit);
+            limit = Math.min(limit, this.maxLimit);
+            callbacks = grant();
+        }
+        run(callbacks);
+    }
+
+    private void complete(long durationNanos, boolean dropped) {
+        List<Runnable> callbacks;
+        synchronized (this) {
+            release();
+            windowSamples++;
+            windowLatencyNanos += durationNanos;
+            if (dropped) {
+                windowDropped++;
+            }
+            if (windowSamples >= Math.max(MIN_WINDOW_SAMPLES, limit)) {
+                adjustLimit();
+            }
+            callbacks = grant();
+        }
+        run(callbacks);
+    }
+
+    /**
+     * Apply AIMD at the end of a window and start the next one
+     */
+    private void adjustLimit() {
+        shortLatencyNanos = (double) windowLatencyNanos / windowSamples;
+        if (longLatencyNanos == 0) {
+            longLatencyNanos = shortLatencyNanos;
+        }
+
+        boolean overloaded = windowDropped > 0 || shortLatencyNanos > longLatencyNanos * latencyTolerance;
+        int previous = limit;
+        if (overloaded) {
+            limit = Math.max(MIN_LIMIT, (int) (limit * BACKOFF_RATIO));
+        } else if (windowPeakInFlight >= limit && limit < maxLimit) {
+            limit++;
+        }
+
+        if (limit < previous) {
+            decreases++;
+            log.info("GitHub concurrency limit for {} lowered from {} to {} ({} dropped, latency {}ms vs {}ms)",
+                    name, previous, limit, windowDropped, toMillis(shortLatencyNanos), toMillis(longLatencyNanos));
+        } else if (limit > previous) {
+            increases++;
+            log.debug("GitHub concurrency limit for {} raised to {}", name, limit);
+        }
+
+        // Timeouts distort latency; keep them out of the long-term average
+        if (windowDropped == 0) {
+            longLatencyNanos += (shortLatencyNanos - longLatencyNanos) * LONG_TERM_WEIGHT;
+        }
+        windowSamples = 0;
+        windowLatencyNanos = 0;
+        windowDropped = 0;
+        windowPeakInFlight = inFlight;
+    }
+
+    private void take() {
+        inFlight++;
+        windowPeakInFlight = Math.max(windowPeakInFlight, inFlight);
+    }
+
+    private void release() {
+        inFlight = Math.max(0, inFlight - 1);
+    }
+
+    /**
+     * Hand free slots to waiters in arrival order; returns the async callbacks to run outside the lock
+     */
+    private List<Runnable> grant() {
+        List<Runnable> callbacks = null;
+        boolean wake = false;
+        while (inFlight < limit && !waiters.isEmpty()) {
+            Waiter waiter = waiters.poll();
+            take();
+            waiter.granted = true;
+            if (waiter.onAcquired != null) {
+                if (callbacks == null) {
+                    callbacks = new ArrayList<>();
+                }
+                callbacks.add(waiter.onAcquired);
+            } else {
+                wake = true;
+            }
+        }
+        if (wake) {
+            notifyAll();
+        }
+        return callbacks;
+    }
+
+    private void run(List<Runnable> callbacks) {
+        if (callbacks == null) {
+            return;
+        }
+        for (Runnable callback : callbacks) {
+            try {
+                callback.run();
+            } catch (RuntimeException e) {
+                log.error("GitHub request slot callback failed", e);
+            }
+        }
+    }
+
+    /**
+     * Get the current limit, usage and adjustment statistics for monitoring
+     */
+    public synchronized Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("limit", limit);
+        stats.put("maxLimit", maxLimit);
+        stats.put("inFlight", inFlight);
+        stats.put("queued", waiters.size());
+        stats.put("latencyMs", toMillis(shortLatencyNanos));
+        stats.put("longTermLatencyMs", toMillis(longLatencyNanos));
+        stats.put("increases", increases);
+        stats.put("decreases", decreases);
+        stats.put("timedOut", timedOut);
+        return stats;
+    }
+
+    private static long toMillis(double nanos) {
+        return TimeUnit.NANOSECONDS.toMillis((long) nanos);
+    }
+
+    private static double parseTolerance(String value) {
+        if (value != null) {
+            try {
+                double tolerance = Double.parseDouble(value.trim());
+                if (tolerance > 1) {
+                    return tolerance;
+                }
+            } catch (NumberFormatException e) {
+                // fall through to the default
+            }
+            log.warn("Ignoring invalid github.integration.concurrency.latencyTolerance '{}'", value);
+        }
+        return DEFAULT_LATENCY_TOLERANCE;
+    }
+
+    /**
+     * A caller waiting for a slot; blocking callers have no callback
+     */
+    private static final class Waiter {
+        private final Runnable onAcquired;
+        private boolean granted;
+
+        private Waiter(Runnable onAcquired) {
+            this.onAcquired = onAcquired;
+        }
+    }
+}
@@ -0,0 +1,648 @@
+package com.healthcanada.jira.github.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import com.healthcanada.jira.github.model.GitHubException;
+import org.apache.commons.io.input.CountingInputStream;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.conn.ssl.NoopHostnameVerifier;
+import org.apache.http.conn.ssl.TrustSelfSignedStrategy;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
+import org.apache.http.ssl.SSLContextBuilder;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.SSLContext;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Non-blocking HTTP client for the GitHub Enterprise API
+ *
+ * Same operations and results as {@link GitHubEnterpriseClient}, returned as
+ * CompletableFutures. Requests run on the NIO reactor of an async HttpClient, so a
+ * few threads can keep hundreds of requests in flight. Nothing blocks: rate limit
+ * waits and retry backoff are scheduled on a shared executor instead of sleeping.
+ * Shares the response cache, rate limit scheduler, circuit breaker, concurrency
+ * limiter and retry policy with the blocking client; all requests run at background
+ * priority.
+ *
+ * Futures complete on reactor or scheduler threads, so callbacks must not block.
+ */
+public class GitHubAsyncClient {
+
+    private static final Logger log = LoggerFactory.getLogger(GitHubAsyncClient.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    // Connection settings
+    private static final int CONNECT_TIMEOUT = 5000;
+    private static final int SOCKET_TIMEOUT = 30000;
+
+    private final String baseUrl;
+    private final String apiToken;
+    private final CloseableHttpAsyncClient httpClient;
+    private final GitHubResponseCache responseCache;
+    private final RateLimitScheduler rateLimiter;
+    private final CircuitBreaker circuitBreaker;
+    private final ConcurrencyLimiter concurrencyLimiter;
+    private final RetryPolicy retryPolicy;
+    private final ScheduledExecutorService scheduler;
+
+    // Lifecycle tracking so a superseded client is closed only once its in-flight requests and leases finish
+    private final AtomicInteger inFlightRequests = new AtomicInteger();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private volatile boolean retired;
+
+    /**
+     * @param scheduler runs delayed attempts; owned by the caller
+     */
+    public GitHubAsyncClient(String baseUrl, String apiToken, boolean trustCustomCertificates,
+                             int maxConnections, int maxConnectionsPerRoute,
+                             GitHubResponseCache responseCache, RateLimitScheduler rateLimiter,
+                             CircuitBreaker circuitBreaker, ConcurrencyLimiter concurrencyLimiter,
+                             RetryPolicy retryPolicy, ScheduledExecutorService scheduler) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.apiToken = apiToken;
+        this.responseCache = responseCache;
+        this.rateLimiter = rateLimiter;
+        this.circuitBreaker = circuitBreaker;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.retryPolicy = retryPolicy;
+        this.scheduler = scheduler;
+        this.httpClient = createHttpClient(trustCustomCertificates, Math.max(1, maxConnections),
+                Math.max(1, maxConnectionsPerRoute));
+        this.httpClient.start();
+        log.info("GitHub Enterprise async client initialized for: {}", this.baseUrl);
+    }
+
+    /**
+     * Create async HTTP client with SSL support and connection pooling
+     */
+    private static CloseableHttpAsyncClient createHttpClient(boolean trustCustomCertificates, int maxConnections,
+                                                             int maxConnectionsPerRoute) {
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(CONNECT_TIMEOUT)
+                .setSocketTimeout(SOCKET_TIMEOUT)
+                .setConnectionRequestTimeout(CONNECT_TIMEOUT)
+                .build();
+
+        HttpAsyncClientBuilder builder = HttpAsyncClients.custom()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnectionsPerRoute)
+                .setDefaultRequestConfig(requestConfig);
+
+        if (trustCustomCertificates) {
+            try {
+                log.info("Configuring async HTTP client to trust custom certificates");
+                SSLContext sslContext = SSLContextBuilder.create()
+                        .loadTrustMaterial(new TrustSelfSignedStrategy())
+                        .build();
+                builder.setSSLStrategy(new SSLIOSessionStrategy(
+                        sslContext,
+                        new String[]{"TLSv1.2", "TLSv1.3"},
+                        null,
+                        NoopHostnameVerifier.INSTANCE
+                ));
+            } catch (Exception e) {
+                log.error("Failed to configure custom certificate trust for async client", e);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Get base branch SHA
+     */
+    public CompletableFuture<String> getBranchSha(String owner, String repo, String branch) {
+        String url = String.format("%s/api/v3/repos/%s/%s/git/refs/heads/%s", baseUrl, owner, repo, branch);
+
+        return describeFailure(get("getBranchSha", url).thenApply(response -> response.get("object").get("sha").asText()),
+                "Failed to get branch SHA");
+    }
+
+    /**
+     * Create a new branch
+     */
+    public CompletableFuture<Map<String, Object>> createBranch(String owner, String repo, String branchName,
+                                                               String baseSha) {
+        String url = String.format("%s/api/v3/repos/%s/%s/git/refs", baseUrl, owner, repo);
+
+        Map<String, Object> body = new HashMap<>();
+        body.put("ref", "refs/heads/" + branchName);
+        body.put("sha", baseSha);
+
+        return describeFailure(post("createBranch", url, body).thenApply(response -> {
+            Map<String, Object> result = new HashMap<>();
+            result.put("ref", response.get("ref").asText());
+            result.put("sha", response.get("object").get("sha").asText());
+            result.put("url", response.get("url").asText());
+
+            log.info("Created branch {} in {}/{}", branchName, owner, repo);
+            return result;
+        }), "Failed to create branch");
+    }
+
+    /**
+     * Create a pull request
+     */
+    public CompletableFuture<Map<String, Object>> createPullRequest(String owner, String repo, String title,
+                                                                    String head, String base, String body) {
+        String url = String.format("%s/api/v3/repos/%s/%s/pulls", baseUrl, owner, repo);
+
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("title", title);
+        requestBody.put("head", head);
+        requestBody.put("base", base);
+        requestBody.put("body", body);
+
+        return describeFailure(post("createPullRequest", url, requestBody).thenApply(response -> {
+            Map<String, Object> result = new HashMap<>();
+            result.put("number", response.get("number").asInt());
+            result.put("title", response.get("title").asText());
+            result.put("url", response.get("html_url").asText());
+            result.put("state", response.get("state").asText());
+
+            log.info("Created pull request #{} in {}/{}", result.get("number"), owner, repo);
+            return result;
+        }), "Failed to create pull request");
+    }
+
+    /**
+     * Get pull request by number
+     */
+    public CompletableFuture<Map<String, Object>> getPullRequest(String owner, String repo, int prNumber) {
+        String url = String.format("%s/api/v3/repos/%s/%s/pulls/%d", baseUrl, owner, repo, prNumber);
+
+        return describeFailure(get("getPullRequest", url).thenApply(response -> {
+            Map<String, Object> result = new HashMap<>();
+            result.put("number", response.get("number").asInt());
+            result.put("title", response.get("title").asText());
+            result.put("url", response.get("html_url").asText());
+            result.put("state", response.get("state").asText());
+            result.put("merged", response.has("merged") && response.get("merged").asBoolean());
+            return result;
+        }), "Failed to get pull request");
+    }
+
+    /**
+     * List all branches for a repository, following pagination
+     * Holds every name in memory; prefer forEachBranch for large repositories
+     */
+    public CompletableFuture<List<String>> listBranches(String owner, String repo) {
+        List<String> branches = new ArrayList<>();
+        return forEachBranch(owner, repo, branches::add).thenApply(done -> branches);
+    }
+
+    /**
+     * Visit the branch names of a repository page by page
+     *
+     * @param visitor receives each name; return false to stop without fetching further pages
+     */
+    public CompletableFuture<Void> forEachBranch(String owner, String repo, Predicate<String> visitor) {
+        String url = String.format("%s/api/v3/repos/%s/%s/branches?per_page=100", baseUrl, owner, repo);
+
+        return describeFailure(visitBranches(url, true, visitor), "Failed to list branches");
+    }
+
+    /**
+     * Fetch one page of branches and chain the request for the next
+     * Only the first page is cached; later pages shift whenever an earlier one changes
+     */
+    private CompletableFuture<Void> visitBranches(String pageUrl, boolean firstPage, Predicate<String> visitor) {
+        return execute("list branches", true, () -> new HttpGet(pageUrl), firstPage ? pageUrl : null,
+                "GET " + pageUrl).thenCompose(page -> {
+            for (JsonNode branch : page.body) {
+                if (!visitor.test(branch.get("name").asText())) {
+                    return CompletableFuture.completedFuture(null);
+                }
+            }
+            return page.nextUrl != null
+                    ? visitBranches(page.nextUrl, false, visitor)
+                    : CompletableFuture.completedFuture(null);
+        });
+    }
+
+    /**
+     * Register webhook for repository
+     */
+    public CompletableFuture<String> registerWebhook(String owner, String repo, String webhookUrl, String secret) {
+        String url = String.format("%s/api/v3/repos/%s/%s/hooks", baseUrl, owner, repo);
+
+        Map<String, Object> config = new HashMap<>();
+        config.put("url", webhookUrl);
+        config.put("content_type", "json");
+        config.put("secret", secret);
+
+        Map<String, Object> body = new HashMap<>();
+        body.put("name", "web");
+        body.put("active", true);
+        body.put("events", new String[]{"pull_request", "push"});
+        body.put("config", config);
+
+        return describeFailure(post("registerWebhook", url, body).thenApply(response -> {
+            String webhookId = response.get("id").asText();
+            log.info("Registered webhook {} for {}/{}", webhookId, owner, repo);
+            return webhookId;
+        }), "Failed to register webhook");
+    }
+
+    /**
+     * GET with conditional revalidation against the shared response cache
+     */
+    private CompletableFuture<JsonNode> get(String operation, String url) {
+        return execute(operation, true, () -> new HttpGet(url), url, "GET " + url).thenApply(response -> response.body);
+    }
+
+    /**
+     * POST a JSON body
+     */
+    private CompletableFuture<JsonNode> post(String operation, String url, Map<String, Object> body) {
+        String jsonBody;
+        try {
+            jsonBody = objectMapper.writeValueAsString(body);
+        } catch (IOException e) {
+            CompletableFuture<JsonNode> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+
+        return execute(operation, false, () -> {
+            HttpPost request = new HttpPost(url);
+            request.setHeader("Content-Type", "application/json");
+            request.setEntity(new StringEntity(jsonBody, StandardCharsets.UTF_8));
+            return request;
+        }, null, "POST " + url).thenApply(response -> response.body);
+    }
+
+    /**
+     * Run a request with retries; completes with the parsed body and next page link
+     *
+     * @param operation      retry statistics key
+     * @param idempotent     whether the request may be repeated after GitHub processed it
+     * @param requestFactory creates a fresh request for every attempt
+     * @param cacheKey       response cache key for GETs, null to bypass the cache
+     */
+    private CompletableFuture<ApiResponse> execute(String operation, boolean idempotent,
+                                                   Supplier<HttpRequestBase> requestFactory, String cacheKey,
+                                                   String operationName) {
+        CompletableFuture<ApiResponse> result = new CompletableFuture<>();
+        if (closed.get()) {
+            result.completeExceptionally(new GitHubException("GitHub async client is closed"));
+            return result;
+        }
+
+        inFlightRequests.incrementAndGet();
+        result.whenComplete((response, error) -> releaseRequest());
+
+        Attempt attempt = new Attempt(retryPolicy.start(operation, idempotent), requestFactory, cacheKey,
+                operationName, result);
+        attempt.run();
+        return result;
+    }
+
+    /**
+     * Wrap any failure in a GitHubException with the operation description, like the blocking client
+     */
+    private static <T> CompletableFuture<T> describeFailure(CompletableFuture<T> future, String description) {
+        CompletableFuture<T> described = new CompletableFuture<>();
+        future.whenComplete((value, error) -> {
+            if (error == null) {
+                described.complete(value);
+            } else {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                described.completeExceptionally(new GitHubException(description + ": " + cause.getMessage(), cause));
+            }
+        });
+        return described;
+    }
+
+    /**
+     * One logical request and its attempts
+     */
+    private final class Attempt implements FutureCallback<HttpResponse> {
+        private final RetryPolicy.Request retries;
+        private final Supplier<HttpRequestBase> requestFactory;
+        private final String cacheKey;
+        private final String operationName;
+        private final CompletableFuture<ApiResponse> result;
+
+        private long waitingSince = System.currentTimeMillis();
+        private GitHubResponseCache.CachedResponse cached;
+        private long started;
+
+        private Attempt(RetryPolicy.Request retries, Supplier<HttpRequestBase> requestFactory, String cacheKey,
+                        String operationName, CompletableFuture<ApiResponse> result) {
+            this.retries = retries;
+            this.requestFactory = requestFactory;
+            this.cacheKey = cacheKey;
+            this.operationName = operationName;
+            this.result = result;
+        }
+
+        /**
+         * Send the next attempt once the rate limiter, concurrency limiter and circuit breaker allow it
+         */
+        void run() {
+            if (closed.get()) {
+                result.completeExceptionally(new GitHubException("GitHub async client is closed"));
+                return;
+            }
+
+            try {
+                long waitMs = rateLimiter.tryAcquire(apiToken, waitingSince);
+                if (waitMs > 0) {
+                    schedule(waitMs);
+                    return;
+                }
+            } catch (GitHubException e) {
+                result.completeExceptionally(e);
+                return;
+            }
+
+            // Without a free slot, send is dispatched once one has been taken for this attempt
+            if (concurrencyLimiter == null || concurrencyLimiter.tryAcquire(this::sendLater)) {
+                send();
+            }
+        }
+
+        /**
+         * Send from the scheduler, so a slot freed on a reactor thread does not start the request there
+         */
+        private void sendLater() {
+            try {
+                scheduler.execute(this::send);
+            } catch (RejectedExecutionException e) {
+                concurrencyLimiter.onIgnore();
+                result.completeExceptionally(new GitHubException("GitHub async client is shutting down", e));
+            }
+        }
+
+        /**
+         * Send the attempt while holding a concurrency slot
+         */
+        private void send() {
+            if (closed.get()) {
+                releaseSlot();
+                result.completeExceptionally(new GitHubException("GitHub async client is closed"));
+                return;
+            }
+
+            if (circuitBreaker != null && !circuitBreaker.tryAcquire()) {
+                releaseSlot();
+                result.completeExceptionally(new GitHubException(
+                        "GitHub Enterprise is unavailable (circuit open), skipping " + operationName,
+                        HttpStatus.SC_SERVICE_UNAVAILABLE, null));
+                return;
+            }
+
+            started = System.nanoTime();
+            try {
+                HttpRequestBase request = requestFactory.get();
+                request.setHeader("Authorization", "Bearer " + apiToken);
+                request.setHeader("Accept", "application/vnd.github.v3+json");
+                // The async client does not negotiate compression itself; openBody decodes it
+                request.setHeader("Accept-Encoding", "gzip");
+
+                cached = cacheKey != null ? responseCache.get(cacheKey, apiToken) : null;
+                if (cached != null) {
+                    cached.addConditionalHeaders(request);
+                }
+
+                httpClient.execute(request, this);
+            } catch (RuntimeException e) {
+                // Never handed to the reactor (bad request, reactor stopped): no callback will follow
+                if (circuitBreaker != null) {
+                    circuitBreaker.onFailure(System.nanoTime() - started);
+                }
+                releaseSlot();
+                result.completeExceptionally(e);
+            }
+        }
+
+        @Override
+        public void completed(HttpResponse response) {
+            ApiResponse parsed;
+            try {
+                parsed = readResponse(response);
+            } catch (GitHubException e) {
+                // Client errors mean GHE answered; only server errors count against it
+                recordOutcome(e.getStatusCode() == 0 || e.getStatusCode() >= 500);
+                retryOrFail(e);
+                return;
+            } catch (IOException | RuntimeException e) {
+                // An oversized body still means GHE answered
+                recordOutcome(!(e instanceof GitHubEnterpriseClient.ResponseTooLargeException));
+                retryOrFail(e);
+                return;
+            }
+            recordOutcome(false);
+            result.complete(parsed);
+        }
+
+        @Override
+        public void failed(Exception e) {
+            recordOutcome(true);
+            retryOrFail(e);
+        }
+
+        @Override
+        public void cancelled() {
+            recordOutcome(true);
+            result.completeExceptionally(new GitHubException(operationName + " was cancelled"));
+        }
+
+        private ApiResponse readResponse(HttpResponse response) throws GitHubException, IOException {
+            int statusCode = response.getStatusLine().getStatusCode();
+            rateLimiter.update(apiToken, response);
+
+            if (cached != null && statusCode == HttpStatus.SC_NOT_MODIFIED) {
+                EntityUtils.consume(response.getEntity());
+                return new ApiResponse((JsonNode) responseCache.revalidated(cached),
+                        GitHubEnterpriseClient.nextPageUrl(response));
+            }
+
+            if (statusCode < 200 || statusCode >= 300) {
+                // The async client has already buffered the body, so there is nothing to abort
+                String responseBody = GitHubEnterpriseClient.readErrorBody(null, response);
+                if (statusCode == HttpStatus.SC_FORBIDDEN && responseBody != null
+                        && responseBody.contains("secondary rate limit")
+                        && !response.containsHeader("Retry-After")) {
+                    rateLimiter.secondaryLimitHit(apiToken);
+                }
+                throw GitHubEnterpriseClient.responseException(String.format("GitHub API error: %d - %s",
+                        statusCode, response.getStatusLine().getReasonPhrase()), response, responseBody);
+            }
+
+            try (CountingInputStream body = new CountingInputStream(GitHubEnterpriseClient.openBody(response))) {
+                JsonNode node = objectMapper.readTree(body);
+                if (node == null) {
+                    node = MissingNode.getInstance();
+                }
+                if (cacheKey != null) {
+                    responseCache.put(cacheKey, apiToken, response, node, body.getByteCount());
+                }
+                return new ApiResponse(node, GitHubEnterpriseClient.nextPageUrl(response));
+            }
+        }
+
+        private void recordOutcome(boolean failed) {
+            long duration = System.nanoTime() - started;
+            if (circuitBreaker != null) {
+                if (failed) {
+                    circuitBreaker.onFailure(duration);
+                } else {
+                    circuitBreaker.onSuccess(duration);
+                }
+            }
+            if (concurrencyLimiter != null) {
+                if (failed) {
+                    concurrencyLimiter.onDropped(duration);
+                } else {
+                    concurrencyLimiter.onSuccess(duration);
+                }
+            }
+        }
+
+        private void releaseSlot() {
+            if (concurrencyLimiter != null) {
+                concurrencyLimiter.onIgnore();
+            }
+        }
+
+        /**
+         * Schedule another attempt if the retry policy allows it, fail otherwise
+         */
+        private void retryOrFail(Exception e) {
+            long delay = retries.nextDelay(e);
+            if (delay < 0) {
+                if (retries.getAttempts() > 1) {
+                    log.error("GitHub API {} failed after {} attempts", operationName, retries.getAttempts());
+                }
+                result.completeExceptionally(e);
+                return;
+            }
+
+            log.warn("GitHub API {} failed (attempt {}): {}. Retrying in {}ms",
+                    operationName, retries.getAttempts() - 1, e.getMessage(), delay);
+            waitingSince = System.currentTimeMillis() + delay;
+            schedule(delay);
+        }
+
+        private void schedule(long delayMs) {
+            try {
+                scheduler.schedule(this::run, delayMs, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                result.completeExceptionally(new GitHubException("GitHub async client is shutting down", e));
+            }
+        }
+    }
+
+    /**
+     * Parsed body of a successful response and the link to the next page, if any
+     */
+    private static final class ApiResponse {
+        private final JsonNode body;
+        private final String nextUrl;
+
+        private ApiResponse(JsonNode body, String nextUrl) {
+            this.body = body;
+            this.nextUrl = nextUrl;
+        }
+    }
+
+    /**
+     * Mark request as finished and close the client if it was retired meanwhile
+     */
+    private void releaseRequest() {
+        if (inFlightRequests.decrementAndGet() == 0 && retired) {
+            // Usually called on a reactor thread, which cannot wait for the reactor to stop
+            try {
+                scheduler.execute(this::close);
+            } catch (RejectedExecutionException e) {
+                close();
+            }
+        }
+    }
+
+    /**
+     * Take a reference that keeps this client open until {@link #release()}
+     *
+     * @return false if the client was already retired; it must not be used then
+     */
+    boolean retain() {
+        inFlightRequests.incrementAndGet();
+        if (retired) {
+            releaseRequest();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Give back a reference taken with {@link #retain()}
+     */
+    void release() {
+        releaseRequest();
+    }
+
+    /**
+     * Retire this client: it is closed as soon as no requests are in flight
+     */
+    public void closeWhenIdle() {
+        retired = true;
+        if (inFlightRequests.get() == 0) {
+            close();
+        }
+    }
+
+    /**
+     * Get number of requests currently executing on this client, plus leases held on it
+     */
+    public int getInFlightRequests() {
+        return inFlightRequests.get();
+    }
+
+    ConcurrencyLimiter getConcurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+
+    /**
+     * Close HTTP client and its I/O reactor
+     */
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            try {
+                httpClient.close();
+            } catch (IOException e) {
+                log.error("Failed to close async HTTP client", e);
+            }
+            log.debug("GitHub Enterprise async client closed for: {}", baseUrl);
+        }
+    }
+}
@@ -0,0 +1,382 @@
+package com.healthcanada.jira.github.service;
+
+import com.healthcanada.jira.github.model.GitHubConfig;
+import com.healthcanada.jira.github.model.GitHubException;
+import com.healthcanada.jira.github.storage.ConfigurationListener;
+import com.healthcanada.jira.github.storage.PluginConfigurationManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Holds one long-lived, pooled GitHubEnterpriseClient for the active configuration,
+ * plus a GitHubAsyncClient created on first use.
+ * The clients are rebuilt only when the connection-relevant settings change
+ * (base URL, token, custom certificate trust, connection pool sizes). Callers lease a
+ * client for a unit of work; a superseded client is closed once its leases are released
+ * and its in-flight requests complete, and is never handed out again. The conditional GET
+ * response cache, the request coalescer, the rate limit scheduler, the retry policy
+ * (and its retry budget) and the per-host circuit breakers and concurrency limiters
+ * are owned here so they are shared by all clients.
+ *
+ * Tuned with system properties github.integration.http.cacheEntries (default 500),
+ * github.integration.circuit.failureRatePercent (default 50),
+ * github.integration.circuit.slowCallMs (default 10000) and
+ * github.integration.circuit.openSeconds (default 30)
+ */
+@Component
+public class GitHubClientRegistry implements ConfigurationListener, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(GitHubClientRegistry.class);
+
+    private static final int DEFAULT_CACHE_ENTRIES = 500;
+    private static final int DEFAULT_FAILURE_RATE = 50;
+    private static final long DEFAULT_SLOW_CALL_MS = 10000;
+    private static final long DEFAULT_OPEN_SECONDS = 30;
+
+    private final PluginConfigurationManager configManager;
+    private final GitHubResponseCache responseCache;
+    private final RateLimitScheduler rateLimiter = new RateLimitScheduler();
+    private final RequestCoalescer coalescer = new RequestCoalescer();
+    private final RetryPolicy retryPolicy = new RetryPolicy();
+    private final Map<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+    private final Map<String, ConcurrencyLimiter> concurrencyLimiters = new ConcurrentHashMap<>();
+    // Rate limit waits and retry backoff of async requests
+    private final ScheduledExecutorService asyncScheduler;
+    private final Object lock = new Object();
+
+    private volatile ClientHolder current;
+
+    @Autowired
+    public GitHubClientRegistry(PluginConfigurationManager configManager) {
+        this.configManager = configManager;
+        this.responseCache = new GitHubResponseCache(
+                Integer.getInteger("github.integration.http.cacheEntries", DEFAULT_CACHE_ENTRIES));
+        this.asyncScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "github-async-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        configManager.addConfigurationListener(this);
+    }
+
+    /**
+     * Lease the shared client for the current configuration
+     */
+    public Lease<GitHubEnterpriseClient> leaseClient() throws GitHubException {
+        return leaseClient(configManager.getConfiguration());
+    }
+
+    /**
+     * Lease the shared client for the given configuration, building it on first use
+     * The client stays open until the lease is closed, even if the settings change meanwhile
+     */
+    public Lease<GitHubEnterpriseClient> leaseClient(GitHubConfig config) throws GitHubException {
+        while (true) {
+            ClientHolder holder = holderFor(config);
+            GitHubEnterpriseClient client = holder.client;
+            if (client.retain()) {
+                return new Lease<>(client, client::release);
+            }
+            // Retired between lookup and retain; look up its replacement
+        }
+    }
+
+    /**
+     * Lease the shared non-blocking client for the current configuration
+     */
+    public Lease<GitHubAsyncClient> leaseAsyncClient() throws GitHubException {
+        return leaseAsyncClient(configManager.getConfiguration());
+    }
+
+    /**
+     * Lease the shared non-blocking client for the given configuration, building it on first use
+     * Requests started under the lease keep the client open until they complete
+     */
+    public Lease<GitHubAsyncClient> leaseAsyncClient(GitHubConfig config) throws GitHubException {
+        while (true) {
+            ClientHolder holder = holderFor(config);
+            synchronized (holder) {
+                if (holder.retired) {
+                    continue;
+                }
+                if (holder.asyncClient == null) {
+                    ClientKey key = holder.key;
+                    holder.asyncClient = new GitHubAsyncClient(
+                            config.getGithubEnterpriseUrl(), config.getGithubToken(),
+                            config.isTrustCustomCertificates(), key.maxConnections, key.maxConnectionsPerRoute,
+                            responseCache, rateLimiter, circuitBreakerFor(key.baseUrl),
+                            concurrencyLimiterFor(key.baseUrl, key.maxConnectionsPerRoute), retryPolicy,
+                            asyncScheduler);
+                }
+                GitHubAsyncClient client = holder.asyncClient;
+                if (client.retain()) {
+                    return new Lease<>(client, client::release);
+                }
+            }
+        }
+    }
+
+    private ClientHolder holderFor(GitHubConfig config) throws GitHubException {
+        if (config.getGithubEnterpriseUrl() == null || config.getGithubEnterpriseUrl().isEmpty()) {
+            throw new GitHubException("GitHub integration is not configured");
+        }
+
+        ClientKey key = ClientKey.of(config);
+        ClientHolder holder = current;
+        if (holder != null && holder.key.equals(key)) {
+            return holder;
+        }
+
+        synchronized (lock) {
+            holder = current;
+            if (holder != null && holder.key.equals(key)) {
+                return holder;
+            }
+
+            GitHubEnterpriseClient client = new GitHubEnterpriseClient(
+                    config.getGithubEnterpriseUrl(), config.getGithubToken(), config.isTrustCustomCertificates(),
+                    key.maxConnections, key.maxConnectionsPerRoute, responseCache, rateLimiter,
+                    circuitBreakerFor(key.baseUrl), concurrencyLimiterFor(key.baseUrl, key.maxConnectionsPerRoute),
+                    coalescer, retryPolicy);
+            ClientHolder created = new ClientHolder(key, client);
+            current = created;
+            retire(holder);
+            return created;
+        }
+    }
+
+    @Override
+    public void onConfigurationChanged(GitHubConfig config) {
+        synchronized (lock) {
+            ClientHolder holder = current;
+            if (holder == null) {
+                return;
+            }
+
+            boolean configured = config.getGithubEnterpriseUrl() != null && !config.getGithubEnterpriseUrl().isEmpty();
+            if (!configured || !holder.key.equals(ClientKey.of(config))) {
+                log.info("GitHub connection settings changed, retiring pooled client for {}", holder.key);
+                current = null;
+                retire(holder);
+                responseCache.clear();
+            }
+        }
+    }
+
+    /**
+     * Get the circuit breaker for the host of a base URL, shared by all clients of that host
+     */
+    private CircuitBreaker circuitBreakerFor(String baseUrl) {
+        String host = hostOf(baseUrl);
+        return circuitBreakers.computeIfAbsent(host, h -> new CircuitBreaker(h,
+                Integer.getInteger("github.integration.circuit.failureRatePercent", DEFAULT_FAILURE_RATE),
+                Long.getLong("github.integration.circuit.slowCallMs", DEFAULT_SLOW_CALL_MS),
+                TimeUnit.SECONDS.toMillis(Long.getLong("github.integration.circuit.openSeconds",
+                        DEFAULT_OPEN_SECONDS))));
+    }
+
+    /**
+     * Get the concurrency limiter for the host of a base URL, capped at the per-route pool size
+     */
+    private ConcurrencyLimiter concurrencyLimiterFor(String baseUrl, int maxConnectionsPerRoute) {
+        ConcurrencyLimiter limiter = concurrencyLimiters.computeIfAbsent(hostOf(baseUrl),
+                h -> new ConcurrencyLimiter(h, maxConnectionsPerRoute));
+        limiter.setMaxLimit(maxConnectionsPerRoute);
+        return limiter;
+    }
+
+    private static String hostOf(String baseUrl) {
+        try {
+            String host = new URI(baseUrl).getHost();
+            return host != null ? host.toLowerCase(Locale.ROOT) : baseUrl;
+        } catch (URISyntaxException e) {
+            return baseUrl;
+        }
+    }
+
+    /**
+     * Get the worst circuit breaker state across GitHub hosts, CLOSED if none were used
+     */
+    public CircuitBreaker.State getCircuitState() {
+        CircuitBreaker.State worst = CircuitBreaker.State.CLOSED;
+        for (CircuitBreaker breaker : circuitBreakers.values()) {
+            CircuitBreaker.State state = breaker.getState();
+            if (state == CircuitBreaker.State.OPEN) {
+                return state;
+            }
+            if (state == CircuitBreaker.State.HALF_OPEN) {
+                worst = state;
+            }
+        }
+        return worst;
+    }
+
+    /**
+     * Get response cache, coalescing, retry, rate limit, circuit breaker and concurrency statistics for monitoring
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> breakers = new HashMap<>();
+        for (Map.Entry<String, CircuitBreaker> entry : circuitBreakers.entrySet()) {
+            breakers.put(entry.getKey(), entry.getValue().getStatistics());
+        }
+        Map<String, Object> limiters = new HashMap<>();
+        for (Map.Entry<String, ConcurrencyLimiter> entry : concurrencyLimiters.entrySet()) {
+            limiters.put(entry.getKey(), entry.getValue().getStatistics());
+        }
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("responseCache", responseCache.getStatistics());
+        stats.put("coalescing", coalescer.getStatistics());
+        stats.put("retries", retryPolicy.getStatistics());
+        stats.put("rateLimit", rateLimiter.getStatistics());
+        stats.put("circuitBreakers", breakers);
+        stats.put("concurrency", limiters);
+        return stats;
+    }
+
+    @Override
+    public void destroy() {
+        configManager.removeConfigurationListener(this);
+        synchronized (lock) {
+            ClientHolder holder = current;
+            current = null;
+            if (holder != null) {
+                holder.client.close();
+                synchronized (holder) {
+                    holder.retired = true;
+                    if (holder.asyncClient != null) {
+                        holder.asyncClient.close();
+                    }
+                }
+            }
+        }
+        asyncScheduler.shutdownNow();
+    }
+
+    /**
+     * Close a superseded client once it is idle
+     */
+    private void retire(ClientHolder holder) {
+        if (holder != null) {
+            holder.client.closeWhenIdle();
+            synchronized (holder) {
+                holder.retired = true;
+                if (holder.asyncClient != null) {
+                    holder.asyncClient.closeWhenIdle();
+                }
+            }
+        }
+    }
+
+    /**
+     * A client held for a unit of work; closing the lease lets a superseded client close
+     */
+    public static final class Lease<T> implements AutoCloseable {
+        private final T client;
+        private final Runnable release;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Lease(T client, Runnable release) {
+            this.client = client;
+            this.release = release;
+        }
+
+        public T getClient() {
+            return client;
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                release.run();
+            }
+        }
+    }
+
+    /**
+     * Clients paired with the settings they were built from
+     */
+    private static final class ClientHolder {
+        private final ClientKey key;
+        private final GitHubEnterpriseClient client;
+        // Created on first use and guarded by the holder's monitor
+        private GitHubAsyncClient asyncClient;
+        private boolean retired;
+
+        private ClientHolder(ClientKey key, GitHubEnterpriseClient client) {
+            this.key = key;
+            this.client = client;
+        }
+    }
+
+    /**
+     * Connection-relevant configuration identity
+     */
+    private static final class ClientKey {
+        private final String baseUrl;
+        private final String apiToken;
+        private final boolean trustCustomCertificates;
+        private final int maxConnections;
+        private final int maxConnectionsPerRoute;
+
+        private ClientKey(String baseUrl, String apiToken, boolean trustCustomCertificates,
+                          int maxConnections, int maxConnectionsPerRoute) {
+            this.baseUrl = baseUrl;
+            this.apiToken = apiToken;
+            this.trustCustomCertificates = trustCustomCertificates;
+            this.maxConnections = maxConnections;
+            this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        }
+
+        static ClientKey of(GitHubConfig config) {
+            String url = config.getGithubEnterpriseUrl();
+            if (url != null && url.endsWith("/")) {
+                url = url.substring(0, url.length() - 1);
+            }
+            return new ClientKey(url, config.getGithubToken(), config.isTrustCustomCertificates(),
+                    config.getMaxConnections(), config.getMaxConnectionsPerRoute());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ClientKey)) {
+                return false;
+            }
+            ClientKey other = (ClientKey) o;
+            return trustCustomCertificates == other.trustCustomCertificates
+                    && maxConnections == other.maxConnections
+                    && maxConnectionsPerRoute == other.maxConnectionsPerRoute
+                    && Objects.equals(baseUrl, other.baseUrl)
+                    && Objects.equals(apiToken, other.apiToken);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(baseUrl, apiToken, trustCustomCertificates, maxConnections, maxConnectionsPerRoute);
+        }
+
+        @Override
+        public String toString() {
+            // Never include the token
+            return baseUrl;
+        }
+    }
+}
@@ -1,14 +1,26 @@
 package com.healthcanada.jira.github.service;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import com.healthcanada.jira.github.model.BranchInfo;
+import com.healthcanada.jira.github.model.GitHubConfig;
 import com.healthcanada.jira.github.model.GitHubException;
+import com.healthcanada.jira.github.model.PullRequestInfo;
+import org.apache.commons.io.input.CountingInputStream;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
 import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.entity.GzipDecompressingEntity;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.conn.ssl.NoopHostnameVerifier;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.conn.ssl.TrustSelfSignedStrategy;
@@ -20,53 +32,120 @@ import org.apache.http.ssl.SSLContextBuilder;
 import org.apache.http.util.EntityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.stereotype.Component;
 
 import javax.net.ssl.SSLContext;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
 
 /**
  * HTTP client for GitHub Enterprise API with SSL support and connection pooling
+ * Instances are long-lived and shared through {@link GitHubClientRegistry}
+ * GET requests are revalidated against a shared {@link GitHubResponseCache}
+ * and all requests are paced by a shared {@link RateLimitScheduler}
+ * Attempts go through the per-host {@link CircuitBreaker}, so calls fail fast while GHE is down,
+ * and the per-host {@link ConcurrencyLimiter}, which lowers concurrency when GHE slows down
+ * Identical GETs in flight at the same time share one request through {@link RequestCoalescer}
+ * Failed attempts are retried as decided by the shared {@link RetryPolicy}
  */
-@Component
 public class GitHubEnterpriseClient {
 
     private static final Logger log = LoggerFactory.getLogger(GitHubEnterpriseClient.class);
     private static final ObjectMapper objectMapper = new ObjectMapper();
 
-    // Connection pool settings
-    private static final int MAX_CONNECTIONS = 20;
-    private static final int MAX_PER_ROUTE = 10;
+    // Connection settings
     private static final int CONNECT_TIMEOUT = 5000;
     private static final int SOCKET_TIMEOUT = 30000;
 
-    // Retry settings
-    private static final int MAX_RETRIES = 3;
-    private static final int INITIAL_RETRY_DELAY_MS = 1000;
-    private static final int MAX_RETRY_DELAY_MS = 10000;
+    private static final int DEFAULT_CACHE_ENTRIES = 500;
+
+    // Larger response bodies are rejected instead of parsed
+    private static final long MAX_RESPONSE_BYTES =
+            Long.getLong("github.integration.http.maxResponseMb", 10) * 1024 * 1024;
+    // Error bodies attached to GitHubException are cut to this length
+    private static final int MAX_ERROR_BODY_CHARS = 4096;
+
+    // Largest page size GitHub allows
+    private static final int PAGE_SIZE = 100;
+    private static final String BRANCH_REF_PREFIX = "refs/heads/";
+
+    // GraphQL batching: aliases per query, and nodes per query well below GitHub's 500,000 limit
+    private static final int GRAPHQL_MAX_ALIASES = 25;
+    private static final int GRAPHQL_MAX_NODES = 5000;
+    private static final int GRAPHQL_MAX_IDS = 100;
+    private static final String PULL_REQUEST_FIELDS =
+            "id number title url state headRefName baseRefName repository { nameWithOwner }";
 
     private String baseUrl;
     private String apiToken;
     private CloseableHttpClient httpClient;
     private boolean trustCustomCertificates;
+    private final int maxConnections;
+    private final int maxConnectionsPerRoute;
+    private final GitHubResponseCache responseCache;
+    private final RateLimitScheduler rateLimiter;
+    private final CircuitBreaker circuitBreaker;
+    private final ConcurrencyLimiter concurrencyLimiter;
+    private final RequestCoalescer coalescer;
+    private final RetryPolicy retryPolicy;
+
+    // Lifecycle tracking so a superseded client is closed only once its in-flight requests and leases finish
+    private final AtomicInteger inFlightRequests = new AtomicInteger();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private volatile boolean retired;
 
     public GitHubEnterpriseClient() {
-        // Default constructor for Spring
+        // Call initialize() before use
+        this.maxConnections = GitHubConfig.DEFAULT_MAX_CONNECTIONS;
+        this.maxConnectionsPerRoute = GitHubConfig.DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+        this.responseCache = new GitHubResponseCache(DEFAULT_CACHE_ENTRIES);
+        this.rateLimiter = new RateLimitScheduler();
+        this.circuitBreaker = null;
+        this.concurrencyLimiter = null;
+        this.coalescer = new RequestCoalescer();
+        this.retryPolicy = new RetryPolicy();
+    }
+
+    public GitHubEnterpriseClient(String baseUrl, String apiToken, boolean trustCustomCertificates,
+                                  int maxConnections, int maxConnectionsPerRoute,
+                                  GitHubResponseCache responseCache, RateLimitScheduler rateLimiter,
+                                  CircuitBreaker circuitBreaker, ConcurrencyLimiter concurrencyLimiter,
+                                  RequestCoalescer coalescer, RetryPolicy retryPolicy) {
+        this.maxConnections = Math.max(1, maxConnections);
+        this.maxConnectionsPerRoute = Math.max(1, maxConnectionsPerRoute);
+        this.responseCache = responseCache;
+        this.rateLimiter = rateLimiter;
+        this.circuitBreaker = circuitBreaker;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.coalescer = coalescer;
+        this.retryPolicy = retryPolicy;
+        initialize(baseUrl, apiToken, trustCustomCertificates);
     }
 
     /**
      * Initialize client with configuration
      */
     public void initialize(String baseUrl, String apiToken, boolean trustCustomCertificates) {
+        CloseableHttpClient previous = this.httpClient;
         this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
         this.apiToken = apiToken;
         this.trustCustomCertificates = trustCustomCertificates;
         this.httpClient = createHttpClient();
+        closeQuietly(previous);
         log.info("GitHub Enterprise client initialized for: {}", this.baseUrl);
     }
 
@@ -76,8 +155,8 @@ public class GitHubEnterpriseClient {
     private CloseableHttpClient createHttpClient() {
         try {
             PoolingHttpClientConnectionManager cm = new PoolingHttpClientConnectionManager();
-            cm.setMaxTotal(MAX_CONNECTIONS);
-            cm.setDefaultMaxPerRoute(MAX_PER_ROUTE);
+            cm.setMaxTotal(maxConnections);
+            cm.setDefaultMaxPerRoute(maxConnectionsPerRoute);
 
             RequestConfig requestConfig = RequestConfig.custom()
                     .setConnectTimeout(CONNECT_TIMEOUT)
@@ -120,12 +199,15 @@ public class GitHubEnterpriseClient {
      * Test connection to GitHub Enterprise
      */
     public boolean testConnection() throws IOException {
+        inFlightRequests.incrementAndGet();
         try {
             String url = baseUrl + "/api/v3/user";
             HttpGet request = new HttpGet(url);
             addAuthHeaders(request);
 
+            rateLimiter.acquire(apiToken);
             try (CloseableHttpResponse response = httpClient.execute(request)) {
+                rateLimiter.update(apiToken, response);
                 int statusCode = response.getStatusLine().getStatusCode();
                 if (statusCode == 200) {
                     log.info("Successfully connected to GitHub Enterprise");
@@ -138,6 +220,8 @@ public class GitHubEnterpriseClient {
         } catch (Exception e) {
             log.error("Failed to test GitHub Enterprise connection", e);
             throw new IOException("Connection test failed: " + e.getMessage(), e);
+        } finally {
+            releaseRequest();
         }
     }
 
@@ -149,7 +233,7 @@ public class GitHubEnterpriseClient {
             String url = String.format("%s/api/v3/repos/%s/%s/git/refs/heads/%s",
                     baseUrl, owner, repo, branch);
 
-            JsonNode response = executeGet(url);
+            JsonNode response = executeGet("getBranchSha", url);
             return response.get("object").get("sha").asText();
         } catch (Exception e) {
             throw new GitHubException("Failed to get branch SHA: " + e.getMessage(), e);
@@ -168,7 +252,7 @@ public class GitHubEnterpriseClient {
             body.put("ref", "refs/heads/" + branchName);
             body.put("sha", baseSha);
 
-            JsonNode response = executePost(url, body);
+            JsonNode response = executePost("createBranch", url, body, false);
 
             Map<String, Object> result = new HashMap<>();
             result.put("ref", response.get("ref").asText());
@@ -196,7 +280,7 @@ public class GitHubEnterpriseClient {
             requestBody.put("base", base);
             requestBody.put("body", body);
 
-            JsonNode response = executePost(url, requestBody);
+            JsonNode response = executePost("createPullRequest", url, requestBody, false);
 
             Map<String, Object> result = new HashMap<>();
             result.put("number", response.get("number").asInt());
@@ -218,7 +302,7 @@ public class GitHubEnterpriseClient {
         try {
             String url = String.format("%s/api/v3/repos/%s/%s/pulls/%d", baseUrl, owner, repo, prNumber);
 
-            JsonNode response = executeGet(url);
+            JsonNode response = executeGet("getPullRequest", url);
 
             Map<String, Object> result = new HashMap<>();
             result.put("number", response.get("number").asInt());
@@ -234,25 +318,43 @@ public class GitHubEnterpriseClient {
     }
 
     /**
-     * List branches for a repository
+     * List all branches for a repository, following pagination
+     * Holds every name in memory; prefer forEachBranch for large repositories
      */
     public List<String> listBranches(String owner, String repo) throws GitHubException {
-        try {
-            String url = String.format("%s/api/v3/repos/%s/%s/branches", baseUrl, owner, repo);
+        List<String> branches = new ArrayList<>();
+        forEachBranch(owner, repo, branches::add);
+        return branches;
+    }
 
-            JsonNode response = executeGet(url);
-            List<String> branches = new ArrayList<>();
+    /**
+     * Visit the branch names of a repository page by page
+     *
+     * @param visitor receives each name; return false to stop without fetching further pages
+     */
+    public void forEachBranch(String owner, String repo, Predicate<String> visitor) throws GitHubException {
+        String url = String.format("%s/api/v3/repos/%s/%s/branches", baseUrl, owner, repo);
+        paginate(url, "branches", parser -> readStringField(parser, "name"), visitor);
+    }
 
-            if (response.isArray()) {
-                for (JsonNode branch : response) {
-                    branches.add(branch.get("name").asText());
-                }
-            }
+    /**
+     * Find branches whose name starts with a prefix, stopping after maxResults
+     * Uses the matching-refs endpoint so GitHub filters by prefix server-side
+     */
+    public List<String> findBranches(String owner, String repo, String prefix, int maxResults)
+            throws GitHubException {
+        String url = String.format("%s/api/v3/repos/%s/%s/git/matching-refs/heads/%s",
+                baseUrl, owner, repo, prefix);
 
-            return branches;
-        } catch (Exception e) {
-            throw new GitHubException("Failed to list branches: " + e.getMessage(), e);
-        }
+        List<String> branches = new ArrayList<>();
+        paginate(url, "branch refs", parser -> {
+            String ref = readStringField(parser, "ref");
+            return ref != null && ref.startsWith(BRANCH_REF_PREFIX) ? ref.substring(BRANCH_REF_PREFIX.length()) : null;
+        }, branch -> {
+            branches.add(branch);
+            return branches.size() < maxResults;
+        });
+        return branches;
     }
 
     /**
@@ -274,7 +376,7 @@ public class GitHubEnterpriseClient {
             body.put("events", new String[]{"pull_request", "push"});
             body.put("config", config);
 
-            JsonNode response = executePost(url, body);
+            JsonNode response = executePost("registerWebhook", url, body, false);
 
             String webhookId = response.get("id").asText();
             log.info("Registered webhook {} for {}/{}", webhookId, owner, repo);
@@ -284,25 +386,380 @@ public class GitHubEnterpriseClient {
         }
     }
 
+    /**
+     * Find branches whose name starts with a prefix in several repositories with GraphQL
+     * One query covers many repositories; large repository lists are split into several queries
+     *
+     * GitHub's refs query is a substring match, and a refPrefix other than a whole path segment
+     * is not reliably supported, so the prefix is sent as the query to narrow the results on the
+     * server and matched with startsWith here. A full page is requested per repository so that
+     * substring-only matches such as feature/XABC-12 for ABC-1 do not use up maxPerRepository.
+     *
+     * @param repositories repositories as "owner/repo"
+     */
+    public List<BranchInfo> findBranches(Collection<String> repositories, String namePrefix, int maxPerRepository)
+            throws GitHubException {
+        try {
+            int limit = Math.max(1, maxPerRepository);
+            List<BranchInfo> branches = new ArrayList<>();
+
+            for (List<String[]> chunk : partition(splitRepositories(repositories), aliasesPerQuery(PAGE_SIZE))) {
+                StringBuilder declarations = new StringBuilder("$query: String!, $first: Int!");
+                StringBuilder selections = new StringBuilder();
+                Map<String, Object> variables = new HashMap<>();
+                variables.put("query", namePrefix);
+                variables.put("first", PAGE_SIZE);
+
+                for (int i = 0; i < chunk.size(); i++) {
+                    declareRepository(declarations, variables, i, chunk.get(i));
+                    selections.append("r").append(i).append(": repository(owner: $o").append(i)
+                            .append(", name: $n").append(i).append(") { nameWithOwner url ")
+                            .append("refs(refPrefix: \"refs/heads/\", query: $query, first: $first) ")
+                            .append("{ nodes { name target { oid } } } } ");
+                }
+
+                JsonNode data = executeGraphQL(declarations, selections, variables);
+                for (int i = 0; i < chunk.size(); i++) {
+                    JsonNode repository = data.path("r" + i);
+                    int found = 0;
+                    for (JsonNode ref : repository.path("refs").path("nodes")) {
+                        if (found == limit || !ref.path("name").asText().startsWith(namePrefix)) {
+                            continue;
+                        }
+                        found++;
+                        BranchInfo branch = new BranchInfo();
+                        branch.setRepository(repository.path("nameWithOwner").asText());
+                        branch.setName(ref.path("name").asText());
+                        branch.setSha(ref.path("target").path("oid").asText(null));
+                        branch.setUrl(repository.path("url").asText() + "/tree/" + branch.getName());
+                        branches.add(branch);
+                    }
+                }
+            }
+            return branches;
+        } catch (Exception e) {
+            throw new GitHubException("Failed to find branches: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Find pull requests opened from the given branches with GraphQL, newest first
+     */
+    public List<PullRequestInfo> findPullRequestsByHeadRefs(Collection<BranchInfo> branches, int maxPerBranch)
+            throws GitHubException {
+        try {
+            int first = Math.max(1, Math.min(PAGE_SIZE, maxPerBranch));
+            List<BranchInfo> valid = new ArrayList<>();
+            for (BranchInfo branch : branches) {
+                if (splitRepository(branch.getRepository()) != null) {
+                    valid.add(branch);
+                }
+            }
+
+            List<PullRequestInfo> pullRequests = new ArrayList<>();
+            for (List<BranchInfo> chunk : partition(valid, aliasesPerQuery(first))) {
+                StringBuilder declarations = new StringBuilder("$first: Int!");
+                StringBuilder selections = new StringBuilder();
+                Map<String, Object> variables = new HashMap<>();
+                variables.put("first", first);
+
+                for (int i = 0; i < chunk.size(); i++) {
+                    declareRepository(declarations, variables, i, splitRepository(chunk.get(i).getRepository()));
+                    declarations.append(", $h").append(i).append(": String!");
+                    variables.put("h" + i, chunk.get(i).getName());
+                    selections.append("p").append(i).append(": repository(owner: $o").append(i)
+                            .append(", name: $n").append(i).append(") { pullRequests(headRefName: $h").append(i)
+                            .append(", first: $first, orderBy: {field: CREATED_AT, direction: DESC}) ")
+                            .append("{ nodes { ").append(PULL_REQUEST_FIELDS).append(" } } } ");
+                }
+
+                JsonNode data = executeGraphQL(declarations, selections, variables);
+                for (int i = 0; i < chunk.size(); i++) {
+                    for (JsonNode node : data.path("p" + i).path("pullRequests").path("nodes")) {
+                        pullRequests.add(readPullRequestInfo(node));
+                    }
+                }
+            }
+            return pullRequests;
+        } catch (Exception e) {
+            throw new GitHubException("Failed to find pull requests: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Refresh pull request state by GraphQL node ID, up to 100 pull requests per query
+     * IDs that no longer resolve to a pull request are left out of the result
+     */
+    public List<PullRequestInfo> getPullRequestsById(Collection<String> nodeIds) throws GitHubException {
+        try {
+            List<PullRequestInfo> pullRequests = new ArrayList<>();
+            for (List<String> chunk : partition(new ArrayList<>(nodeIds), GRAPHQL_MAX_IDS)) {
+                Map<String, Object> variables = new HashMap<>();
+                variables.put("ids", chunk);
+
+                JsonNode data = executeGraphQL(new StringBuilder("$ids: [ID!]!"),
+                        new StringBuilder("nodes(ids: $ids) { ... on PullRequest { ")
+                                .append(PULL_REQUEST_FIELDS).append(" } }"), variables);
+                for (JsonNode node : data.path("nodes")) {
+                    if (node.hasNonNull("number")) {
+                        pullRequests.add(readPullRequestInfo(node));
+                    }
+                }
+            }
+            return pullRequests;
+        } catch (Exception e) {
+            throw new GitHubException("Failed to get pull requests: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Run a GraphQL query and return its data
+     * Partial errors (e.g. one missing repository) leave that alias null and are only logged
+     */
+    private JsonNode executeGraphQL(CharSequence declarations, CharSequence selections, Map<String, Object> variables)
+            throws GitHubException, IOException {
+        Map<String, Object> body = new HashMap<>();
+        body.put("query", "query(" + declarations + ") { " + selections + "}");
+        body.put("variables", variables);
+
+        // Queries only read, so they are as safe to repeat as a GET
+        JsonNode response = executePost("graphql", baseUrl + "/api/graphql", body, true);
+        JsonNode data = response.path("data");
+        JsonNode errors = response.path("errors");
+        if (errors.size() > 0) {
+            String message = errors.get(0).path("message").asText();
+            if (!data.isObject()) {
+                throw new GitHubException("GitHub GraphQL error: " + message);
+            }
+            log.debug("GitHub GraphQL query returned {} errors, first: {}", errors.size(), message);
+        }
+        return data;
+    }
+
+    private static PullRequestInfo readPullRequestInfo(JsonNode node) {
+        PullRequestInfo pr = new PullRequestInfo();
+        pr.setId(node.path("id").asText());
+        pr.setRepository(node.path("repository").path("nameWithOwner").asText(null));
+        pr.setNumber(node.path("number").asInt());
+        pr.setTitle(node.path("title").asText());
+        pr.setUrl(node.path("url").asText());
+        // GraphQL reports OPEN, CLOSED or MERGED
+        pr.setState(node.path("state").asText().toLowerCase(Locale.ROOT));
+        pr.setHeadRef(node.path("headRefName").asText(null));
+        pr.setBaseRef(node.path("baseRefName").asText(null));
+        return pr;
+    }
+
+    private static void declareRepository(StringBuilder declarations, Map<String, Object> variables, int index,
+                                          String[] ownerAndName) {
+        declarations.append(", $o").append(index).append(": String!, $n").append(index).append(": String!");
+        variables.put("o" + index, ownerAndName[0]);
+        variables.put("n" + index, ownerAndName[1]);
+    }
+
+    private static List<String[]> splitRepositories(Collection<String> repositories) {
+        List<String[]> result = new ArrayList<>();
+        for (String repository : repositories) {
+            String[] ownerAndName = splitRepository(repository);
+            if (ownerAndName != null) {
+                result.add(ownerAndName);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Split "owner/repo", or null if it is not in that form
+     */
+    private static String[] splitRepository(String fullName) {
+        int slash = fullName != null ? fullName.indexOf('/') : -1;
+        if (slash <= 0 || slash == fullName.length() - 1) {
+            return null;
+        }
+        return new String[]{fullName.substring(0, slash), fullName.substring(slash + 1)};
+    }
+
+    /**
+     * Aliases per query so that the query stays within the node budget
+     */
+    private static int aliasesPerQuery(int nodesPerAlias) {
+        return Math.max(1, Math.min(GRAPHQL_MAX_ALIASES, GRAPHQL_MAX_NODES / nodesPerAlias));
+    }
+
+    private static <T> List<List<T>> partition(List<T> items, int size) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int start = 0; start < items.size(); start += size) {
+            chunks.add(items.subList(start, Math.min(items.size(), start + size)));
+        }
+        return chunks;
+    }
+
     /**
      * Execute GET request with retry logic
      */
-    private JsonNode executeGet(String url) throws GitHubException, IOException {
-        return executeWithRetry(() -> {
+    private JsonNode executeGet(String operation, String url) throws GitHubException, IOException {
+        return executeGet(operation, url, url, (response, body) -> objectMapper.readTree(body));
+    }
+
+    /**
+     * Execute GET request with retry logic, reading a successful body with the given reader
+     * Concurrent identical requests share one execution and its parsed result
+     *
+     * @param cacheKey distinguishes results of different readers for the same URL
+     */
+    private <T> T executeGet(String operation, String url, String cacheKey, ResponseReader<T> reader)
+            throws GitHubException, IOException {
+        return executeGet(operation, url, cacheKey, true, reader);
+    }
+
+    /**
+     * @param cacheable whether the response is revalidated against and stored in the response cache
+     */
+    private <T> T executeGet(String operation, String url, String cacheKey, boolean cacheable,
+                             ResponseReader<T> reader) throws GitHubException, IOException {
+        return coalescer.execute(cacheKey, apiToken,
+                () -> executeGetWithRetry(operation, url, cacheable ? cacheKey : null, reader));
+    }
+
+    /**
+     * Revalidate cached responses with conditional headers and reuse them on 304
+     *
+     * @param cacheKey response cache key, null to bypass the cache
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T executeGetWithRetry(String operation, String url, String cacheKey, ResponseReader<T> reader)
+            throws GitHubException, IOException {
+        return executeWithRetry(operation, true, () -> {
             HttpGet request = new HttpGet(url);
             addAuthHeaders(request);
 
+            GitHubResponseCache.CachedResponse cached = cacheKey == null ? null : responseCache.get(cacheKey, apiToken);
+            if (cached != null) {
+                cached.addConditionalHeaders(request);
+            }
+
             try (CloseableHttpResponse response = httpClient.execute(request)) {
-                return handleResponse(response);
+                if (cached != null && response.getStatusLine().getStatusCode() == HttpStatus.SC_NOT_MODIFIED) {
+                    checkRateLimit(response);
+                    EntityUtils.consume(response.getEntity());
+                    return (T) responseCache.revalidated(cached);
+                }
+
+                int statusCode = response.getStatusLine().getStatusCode();
+                if (statusCode < 200 || statusCode >= 300) {
+                    // Throws with the error details
+                    handleResponse(request, response);
+                }
+                checkRateLimit(response);
+
+                try (CountingInputStream body = new CountingInputStream(openBody(response))) {
+                    T result = reader.read(response, body);
+                    if (cacheKey != null) {
+                        responseCache.put(cacheKey, apiToken, response, result, body.getByteCount());
+                    }
+                    return result;
+                }
             }
         }, "GET " + url);
     }
 
+    /**
+     * Stream the items of a paginated list endpoint, page by page
+     * Follows the Link rel="next" header with per_page=100; only one page is held in
+     * memory and no further pages are fetched once the visitor returns false
+     * Only the first page goes through the response cache: later pages shift whenever an
+     * earlier one changes, so caching them would mostly evict entries that do revalidate
+     *
+     * @param itemReader reads one array element, positioned on its START_OBJECT
+     * @param visitor    receives each item; return false to stop
+     */
+    public <T> void paginate(String url, String itemType, ItemReader<T> itemReader, Predicate<T> visitor)
+            throws GitHubException {
+        String pageUrl = url + (url.contains("?") ? "&" : "?") + "per_page=" + PAGE_SIZE;
+        boolean firstPage = true;
+        try {
+            while (pageUrl != null) {
+                Page<T> page = executeGet("list " + itemType, pageUrl, pageUrl + "#" + itemType, firstPage,
+                        (response, body) -> readPage(response, body, itemReader));
+                firstPage = false;
+                for (T item : page.items) {
+                    if (!visitor.test(item)) {
+                        return;
+                    }
+                }
+                pageUrl = page.nextUrl;
+            }
+        } catch (GitHubException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new GitHubException("Failed to list " + itemType + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Parse one page: a JSON array read element by element, plus the next page link
+     */
+    private static <T> Page<T> readPage(HttpResponse response, InputStream body, ItemReader<T> itemReader)
+            throws IOException {
+        List<T> items = new ArrayList<>();
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Expected a JSON array but found " + parser.currentToken());
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                T item = itemReader.read(parser);
+                if (item != null) {
+                    items.add(item);
+                }
+            }
+        }
+        return new Page<>(Collections.unmodifiableList(items), nextPageUrl(response));
+    }
+
+    /**
+     * Extract the rel="next" URL from a Link header
+     */
+    static String nextPageUrl(HttpResponse response) {
+        Header link = response.getFirstHeader("Link");
+        if (link == null) {
+            return null;
+        }
+        // Format: <https://host/api/v3/...&page=2>; rel="next", <...>; rel="last"
+        for (String part : link.getValue().split(",")) {
+            int start = part.indexOf('<');
+            int end = part.indexOf('>', start + 1);
+            if (start >= 0 && end > start && part.substring(end).contains("rel=\"next\"")) {
+                return part.substring(start + 1, end);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Read a string field from the current object and skip everything else
+     */
+    private static String readStringField(JsonParser parser, String fieldName) throws IOException {
+        String value = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if (fieldName.equals(field)) {
+                value = parser.getValueAsString();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return value;
+    }
+
     /**
      * Execute POST request with retry logic
+     *
+     * @param idempotent whether the POST only reads, so it may be retried after GitHub processed it
      */
-    private JsonNode executePost(String url, Map<String, Object> body) throws GitHubException, IOException {
-        return executeWithRetry(() -> {
+    private JsonNode executePost(String operation, String url, Map<String, Object> body, boolean idempotent)
+            throws GitHubException, IOException {
+        return executeWithRetry(operation, idempotent, () -> {
             HttpPost request = new HttpPost(url);
             addAuthHeaders(request);
             request.setHeader("Content-Type", "application/json");
@@ -311,33 +768,114 @@ public class GitHubEnterpriseClient {
             request.setEntity(new StringEntity(jsonBody, StandardCharsets.UTF_8));
 
             try (CloseableHttpResponse response = httpClient.execute(request)) {
-                return handleResponse(response);
+                return handleResponse(request, response);
             }
         }, "POST " + url);
     }
 
     /**
      * Handle HTTP response and check for errors
+     * The body is parsed straight from the entity stream
      */
-    private JsonNode handleResponse(HttpResponse response) throws GitHubException, IOException {
+    private JsonNode handleResponse(HttpUriRequest request, HttpResponse response) throws GitHubException, IOException {
         int statusCode = response.getStatusLine().getStatusCode();
-        String responseBody = EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
-
-        // Check rate limit
-        if (response.containsHeader("X-RateLimit-Remaining")) {
-            int remaining = Integer.parseInt(response.getFirstHeader("X-RateLimit-Remaining").getValue());
-            if (remaining < 100) {
-                log.warn("GitHub API rate limit low: {} requests remaining", remaining);
-            }
-        }
+        checkRateLimit(response);
 
         if (statusCode >= 200 && statusCode < 300) {
-            return objectMapper.readTree(responseBody);
+            try (InputStream body = openBody(response)) {
+                JsonNode node = objectMapper.readTree(body);
+                return node != null ? node : MissingNode.getInstance();
+            }
         } else {
+            String responseBody = readErrorBody(request, response);
+            if (statusCode == HttpStatus.SC_FORBIDDEN && responseBody != null
+                    && responseBody.contains("secondary rate limit") && !response.containsHeader("Retry-After")) {
+                rateLimiter.secondaryLimitHit(apiToken);
+            }
             String errorMessage = String.format("GitHub API error: %d - %s",
                     statusCode, response.getStatusLine().getReasonPhrase());
-            throw new GitHubException(errorMessage, statusCode, responseBody);
+            throw responseException(errorMessage, response, responseBody);
+        }
+    }
+
+    /**
+     * Build the exception for an error response, noting rate limit rejections and Retry-After
+     */
+    static GitHubResponseException responseException(String message, HttpResponse response, String responseBody) {
+        int statusCode = response.getStatusLine().getStatusCode();
+        long retryAfterMillis = RetryPolicy.serverDelayMillis(response);
+        boolean rateLimited = statusCode == 429
+                || (statusCode == HttpStatus.SC_FORBIDDEN && (retryAfterMillis >= 0
+                    || (responseBody != null && responseBody.contains("rate limit"))));
+        return new GitHubResponseException(message, statusCode, responseBody, rateLimited, retryAfterMillis);
+    }
+
+    /**
+     * Open the response body for parsing, limited to the maximum response size
+     * Decompresses gzip bodies the HTTP client has not already decoded
+     */
+    static InputStream openBody(HttpResponse response) throws IOException {
+        HttpEntity entity = decodedEntity(response);
+        if (entity == null) {
+            return new ByteArrayInputStream(new byte[0]);
         }
+        if (entity.getContentLength() > MAX_RESPONSE_BYTES) {
+            throw new ResponseTooLargeException(MAX_RESPONSE_BYTES);
+        }
+        return new SizeLimitedInputStream(entity.getContent(), MAX_RESPONSE_BYTES);
+    }
+
+    /**
+     * Read an error body for GitHubException, truncated to a few kilobytes
+     * Closing the stream would read the rest of a longer body to reuse the connection, so the
+     * request is aborted instead when the body is cut short or cannot be read
+     *
+     * @param request the request to abort, or null when the body is already in memory
+     */
+    static String readErrorBody(HttpUriRequest request, HttpResponse response) throws IOException {
+        HttpEntity entity = decodedEntity(response);
+        if (entity == null) {
+            return null;
+        }
+
+        char[] buffer = new char[MAX_ERROR_BODY_CHARS + 1];
+        int length = 0;
+        boolean complete = false;
+        Reader reader = new InputStreamReader(entity.getContent(), StandardCharsets.UTF_8);
+        try {
+            int read;
+            while (length < buffer.length && (read = reader.read(buffer, length, buffer.length - length)) != -1) {
+                length += read;
+            }
+            complete = length <= MAX_ERROR_BODY_CHARS;
+        } finally {
+            if (complete || request == null) {
+                reader.close();
+            } else {
+                request.abort();
+            }
+        }
+        if (length > MAX_ERROR_BODY_CHARS) {
+            return new String(buffer, 0, MAX_ERROR_BODY_CHARS) + "... (truncated)";
+        }
+        return new String(buffer, 0, length);
+    }
+
+    private static HttpEntity decodedEntity(HttpResponse response) {
+        HttpEntity entity = response.getEntity();
+        if (entity != null && entity.getContentEncoding() != null
+                && "gzip".equalsIgnoreCase(entity.getContentEncoding().getValue())) {
+            entity = new GzipDecompressingEntity(entity);
+            response.setEntity(entity);
+        }
+        return entity;
+    }
+
+    /**
+     * Feed rate limit headers to the scheduler
+     */
+    private void checkRateLimit(HttpResponse response) {
+        rateLimiter.update(apiToken, response);
     }
 
     /**
@@ -349,69 +887,214 @@ public class GitHubEnterpriseClient {
     }
 
     /**
-     * Execute operation with exponential backoff retry logic
+     * Execute operation, retrying failed attempts as the retry policy allows
+     *
+     * @param operation  retry statistics key
+     * @param idempotent whether the request may be repeated after GitHub processed it
      */
-    private <T> T executeWithRetry(RetryableOperation<T> operation, String operationName)
-            throws GitHubException, IOException {
-        int attempt = 0;
-        GitHubException lastException = null;
-        IOException lastIOException = null;
+    private <T> T executeWithRetry(String operation, boolean idempotent, RetryableOperation<T> attempt,
+                                   String operationName) throws GitHubException, IOException {
+        inFlightRequests.incrementAndGet();
+        try {
+            return executeAttempts(retryPolicy.start(operation, idempotent), attempt, operationName);
+        } finally {
+            releaseRequest();
+        }
+    }
 
-        while (attempt < MAX_RETRIES) {
+    /**
+     * Run the retry loop for a single logical request
+     */
+    private <T> T executeAttempts(RetryPolicy.Request retries, RetryableOperation<T> operation,
+                                  String operationName) throws GitHubException, IOException {
+        while (true) {
+            Exception failure;
             try {
-                return operation.execute();
-            } catch (GitHubException e) {
-                lastException = e;
-                // Don't retry on client errors (4xx), only server errors (5xx) and network issues
-                if (e.getStatusCode() > 0 && e.getStatusCode() < 500) {
-                    throw e;
+                return executeAttempt(operation, operationName);
+            } catch (ResponseTooLargeException e) {
+                // Would be just as large on the next attempt
+                throw new GitHubException(e.getMessage(), e);
+            } catch (GitHubException | IOException e) {
+                failure = e;
+            }
+
+            long delay = retries.nextDelay(failure);
+            if (delay < 0) {
+                if (retries.getAttempts() > 1) {
+                    log.error("GitHub API {} failed after {} attempts", operationName, retries.getAttempts());
                 }
-                attempt++;
-                if (attempt < MAX_RETRIES) {
-                    int delay = calculateRetryDelay(attempt);
-                    log.warn("GitHub API {} failed (attempt {}/{}): {}. Retrying in {}ms",
-                            operationName, attempt, MAX_RETRIES, e.getMessage(), delay);
-                    sleep(delay);
-                }
-            } catch (IOException e) {
-                lastIOException = e;
-                attempt++;
-                if (attempt < MAX_RETRIES) {
-                    int delay = calculateRetryDelay(attempt);
-                    log.warn("Network error for {} (attempt {}/{}): {}. Retrying in {}ms",
-                            operationName, attempt, MAX_RETRIES, e.getMessage(), delay);
-                    sleep(delay);
+                if (failure instanceof GitHubException) {
+                    throw (GitHubException) failure;
                 }
+                throw (IOException) failure;
             }
+
+            log.warn("GitHub API {} failed (attempt {}): {}. Retrying in {}ms",
+                    operationName, retries.getAttempts() - 1, failure.getMessage(), delay);
+            sleep(delay);
         }
+    }
 
-        // All retries exhausted
-        if (lastException != null) {
-            log.error("GitHub API {} failed after {} attempts", operationName, MAX_RETRIES);
-            throw lastException;
-        } else {
-            log.error("Network operation {} failed after {} attempts", operationName, MAX_RETRIES);
-            throw lastIOException;
+    /**
+     * Run one attempt under the rate limiter, concurrency limiter and circuit breaker
+     */
+    private <T> T executeAttempt(RetryableOperation<T> operation, String operationName)
+            throws GitHubException, IOException {
+        rateLimiter.acquire(apiToken);
+        if (concurrencyLimiter != null) {
+            concurrencyLimiter.acquire();
+        }
+
+        boolean sent = false;
+        long started = 0;
+        boolean failed = true;
+        try {
+            if (circuitBreaker != null && !circuitBreaker.tryAcquire()) {
+                throw new CircuitOpenException("GitHub Enterprise is unavailable (circuit open), skipping "
+                        + operationName);
+            }
+            sent = true;
+            started = System.nanoTime();
+            T result = operation.execute();
+            failed = false;
+            return result;
+        } catch (GitHubException e) {
+            // Client errors mean GHE answered; only server errors count against it
+            failed = e.getStatusCode() == 0 || e.getStatusCode() >= 500;
+            throw e;
+        } catch (ResponseTooLargeException e) {
+            failed = false;
+            throw e;
+        } finally {
+            if (sent) {
+                recordOutcome(failed, System.nanoTime() - started);
+            } else if (concurrencyLimiter != null) {
+                concurrencyLimiter.onIgnore();
+            }
         }
     }
 
     /**
-     * Calculate exponential backoff delay
+     * Report a sent attempt to the circuit breaker and concurrency limiter
      */
-    private int calculateRetryDelay(int attempt) {
-        int delay = INITIAL_RETRY_DELAY_MS * (int) Math.pow(2, attempt - 1);
-        return Math.min(delay, MAX_RETRY_DELAY_MS);
+    private void recordOutcome(boolean failed, long durationNanos) {
+        if (circuitBreaker != null) {
+            if (failed) {
+                circuitBreaker.onFailure(durationNanos);
+            } else {
+                circuitBreaker.onSuccess(durationNanos);
+            }
+        }
+        if (concurrencyLimiter != null) {
+            if (failed) {
+                concurrencyLimiter.onDropped(durationNanos);
+            } else {
+                concurrencyLimiter.onSuccess(durationNanos);
+            }
+        }
     }
 
     /**
-     * Sleep for specified milliseconds
+     * Wait before a retry; the blocking client waits on the caller's thread
      */
-    private void sleep(int milliseconds) {
+    private void sleep(long milliseconds) throws GitHubException {
         try {
             Thread.sleep(milliseconds);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
-            log.warn("Retry sleep interrupted", e);
+            throw new GitHubException("Interrupted while waiting to retry GitHub request", e);
+        }
+    }
+
+    /**
+     * Raised without contacting GHE while the circuit breaker is open
+     */
+    private static final class CircuitOpenException extends GitHubException {
+        CircuitOpenException(String message) {
+            super(message, HttpStatus.SC_SERVICE_UNAVAILABLE, null);
+        }
+    }
+
+    /**
+     * Raised while reading a response body larger than the configured maximum
+     */
+    static final class ResponseTooLargeException extends IOException {
+        ResponseTooLargeException(long limit) {
+            super(String.format("GitHub response is larger than %d MB", limit / (1024 * 1024)));
+        }
+    }
+
+    /**
+     * Fails the read once more than the limit has been read
+     */
+    private static final class SizeLimitedInputStream extends FilterInputStream {
+        private final long limit;
+        private long count;
+
+        private SizeLimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                count(read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count(skipped);
+            return skipped;
+        }
+
+        private void count(long bytes) throws ResponseTooLargeException {
+            count += bytes;
+            if (count > limit) {
+                throw new ResponseTooLargeException(limit);
+            }
+        }
+    }
+
+    /**
+     * Reads a successful response body
+     */
+    @FunctionalInterface
+    private interface ResponseReader<T> {
+        T read(HttpResponse response, InputStream body) throws IOException;
+    }
+
+    /**
+     * Reads one element of a list response, consuming the whole object
+     */
+    @FunctionalInterface
+    public interface ItemReader<T> {
+        T read(JsonParser parser) throws IOException;
+    }
+
+    /**
+     * Items of one page and the link to the next
+     */
+    private static final class Page<T> {
+        private final List<T> items;
+        private final String nextUrl;
+
+        private Page(List<T> items, String nextUrl) {
+            this.items = items;
+            this.nextUrl = nextUrl;
         }
     }
 
@@ -423,13 +1106,74 @@ public class GitHubEnterpriseClient {
         T execute() throws GitHubException, IOException;
     }
 
+    /**
+     * Mark request as finished and close the client if it was retired meanwhile
+     */
+    private void releaseRequest() {
+        if (inFlightRequests.decrementAndGet() == 0 && retired) {
+            close();
+        }
+    }
+
+    /**
+     * Take a reference that keeps this client open until {@link #release()}
+     *
+     * @return false if the client was already retired; it must not be used then
+     */
+    boolean retain() {
+        inFlightRequests.incrementAndGet();
+        if (retired) {
+            releaseRequest();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Give back a reference taken with {@link #retain()}
+     */
+    void release() {
+        releaseRequest();
+    }
+
+    /**
+     * Retire this client: it is closed as soon as no requests are in flight
+     */
+    public void closeWhenIdle() {
+        retired = true;
+        if (inFlightRequests.get() == 0) {
+            close();
+        }
+    }
+
+    /**
+     * Get number of requests currently executing on this client, plus leases held on it
+     */
+    public int getInFlightRequests() {
+        return inFlightRequests.get();
+    }
+
+    ConcurrencyLimiter getConcurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+
     /**
      * Close HTTP client
      */
     public void close() {
-        if (httpClient != null) {
+        if (closed.compareAndSet(false, true)) {
+            closeQuietly(httpClient);
+            log.debug("GitHub Enterprise client closed for: {}", baseUrl);
+        }
+    }
+
+    /**
+     * Close an HTTP client, logging instead of propagating failures
+     */
+    private static void closeQuietly(CloseableHttpClient client) {
+        if (client != null) {
             try {
-                httpClient.close();
+                client.close();
             } catch (IOException e) {
                 log.error("Failed to close HTTP client", e);
             }
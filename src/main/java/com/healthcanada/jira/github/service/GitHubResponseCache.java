@@ -0,0 +1,173 @@
+package com.healthcanada.jira.github.service;
+
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpRequestBase;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded LRU cache of GitHub GET responses for conditional requests
+ *
+ * Entries are keyed by URL (or a URL-derived key) and API token and keep the
+ * ETag / Last-Modified validators with the parsed body. The client sends them as
+ * If-None-Match / If-Modified-Since and reuses the cached body when GitHub answers
+ * 304, which does not count against the rate limit. Cached bodies are shared
+ * between callers and must not be modified.
+ */
+public class GitHubResponseCache {
+
+    // Very large bodies are not worth holding on to
+    private static final int MAX_CACHEABLE_BYTES = 1024 * 1024;
+
+    private final int maxEntries;
+    private final LinkedHashMap<CacheKey, CachedResponse> entries;
+
+    // Statistics
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong bytesSaved = new AtomicLong();
+
+    public GitHubResponseCache(int maxEntries) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.entries = new LinkedHashMap<CacheKey, CachedResponse>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CacheKey, CachedResponse> eldest) {
+                return size() > GitHubResponseCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Look up the cached response for a key
+     */
+    public CachedResponse get(String key, String apiToken) {
+        synchronized (entries) {
+            return entries.get(new CacheKey(key, apiToken));
+        }
+    }
+
+    /**
+     * Store a successful response if it carries a validator
+     */
+    public void put(String key, String apiToken, HttpResponse response, Object body, long bodyBytes) {
+        misses.incrementAndGet();
+
+        String etag = headerValue(response, "ETag");
+        String lastModified = headerValue(response, "Last-Modified");
+        if ((etag == null && lastModified == null) || bodyBytes > MAX_CACHEABLE_BYTES) {
+            return;
+        }
+
+        CachedResponse entry = new CachedResponse(etag, lastModified, body, bodyBytes);
+        synchronized (entries) {
+            entries.put(new CacheKey(key, apiToken), entry);
+        }
+    }
+
+    /**
+     * Record that a cached body was reused after a 304 Not Modified
+     */
+    public Object revalidated(CachedResponse entry) {
+        hits.incrementAndGet();
+        bytesSaved.addAndGet(entry.bodyBytes);
+        return entry.body;
+    }
+
+    /**
+     * Drop all entries, e.g. when the token changes
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Get cache statistics for monitoring
+     */
+    public Map<String, Object> getStatistics() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+
+        Map<String, Object> stats = new HashMap<>();
+        synchronized (entries) {
+            stats.put("entries", entries.size());
+        }
+        stats.put("maxEntries", maxEntries);
+        stats.put("hits", hitCount);
+        stats.put("misses", misses.get());
+        stats.put("hitRatio", total > 0 ? (double) hitCount / total : 0.0);
+        stats.put("bytesSaved", bytesSaved.get());
+        return stats;
+    }
+
+    private static String headerValue(HttpResponse response, String name) {
+        Header header = response.getFirstHeader(name);
+        return header != null ? header.getValue() : null;
+    }
+
+    /**
+     * Cached validators and parsed body of one response
+     */
+    public static final class CachedResponse {
+        private final String etag;
+        private final String lastModified;
+        private final Object body;
+        private final long bodyBytes;
+
+        private CachedResponse(String etag, String lastModified, Object body, long bodyBytes) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.body = body;
+            this.bodyBytes = bodyBytes;
+        }
+
+        /**
+         * Add If-None-Match / If-Modified-Since headers to a request
+         */
+        public void addConditionalHeaders(HttpRequestBase request) {
+            if (etag != null) {
+                request.setHeader("If-None-Match", etag);
+            }
+            if (lastModified != null) {
+                request.setHeader("If-Modified-Since", lastModified);
+            }
+        }
+    }
+
+    /**
+     * URL plus the token it was fetched with, since visibility differs per token
+     * Also identifies identical requests for {@link RequestCoalescer}
+     */
+    static final class CacheKey {
+        private final String url;
+        private final String apiToken;
+
+        CacheKey(String url, String apiToken) {
+            this.url = url;
+            this.apiToken = apiToken;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey other = (CacheKey) o;
+            return url.equals(other.url) && Objects.equals(apiToken, other.apiToken);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * url.hashCode() + Objects.hashCode(apiToken);
+        }
+    }
+}
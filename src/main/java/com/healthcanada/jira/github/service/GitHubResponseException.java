@@ -0,0 +1,31 @@
+package com.healthcanada.jira.github.service;
+
+import com.healthcanada.jira.github.model.GitHubException;
+
+/**
+ * Error response received from GitHub, with what it said about retrying
+ */
+public class GitHubResponseException extends GitHubException {
+
+    private final boolean rateLimited;
+    private final long retryAfterMillis;
+
+    /**
+     * @param rateLimited      the request was rejected by a rate limit without being processed
+     * @param retryAfterMillis wait GitHub asked for, or -1
+     */
+    public GitHubResponseException(String message, int statusCode, String responseBody,
+                                   boolean rateLimited, long retryAfterMillis) {
+        super(message, statusCode, responseBody);
+        this.rateLimited = rateLimited;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    public boolean isRateLimited() {
+        return rateLimited;
+    }
+
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
@@ -1,7 +1,9 @@
 package com.healthcanada.jira.github.service;
 
+import com.healthcanada.jira.github.model.BranchInfo;
 import com.healthcanada.jira.github.model.GitHubConfig;
 import com.healthcanada.jira.github.model.GitHubException;
+import com.healthcanada.jira.github.model.PullRequestInfo;
 import com.healthcanada.jira.github.model.RepositoryMapping;
 import com.healthcanada.jira.github.storage.PluginConfigurationManager;
 import org.apache.commons.lang3.StringUtils;
@@ -10,7 +12,14 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -22,17 +31,27 @@ public class GitHubService {
 
     private static final Logger log = LoggerFactory.getLogger(GitHubService.class);
 
+    // Issue panel limits
+    private static final int MAX_PANEL_BRANCHES_PER_REPO = 20;
+    private static final int MAX_PANEL_PRS_PER_BRANCH = 5;
+
+    // GitHub's answer to creating a ref from a SHA it does not know
+    private static final int HTTP_UNPROCESSABLE_ENTITY = 422;
+
     private final PluginConfigurationManager configManager;
-    private final GitHubEnterpriseClient githubClient;
+    private final GitHubClientRegistry clientRegistry;
     private final JiraService jiraService;
+    private final BranchShaCache branchShaCache;
 
     @Autowired
     public GitHubService(PluginConfigurationManager configManager,
-                         GitHubEnterpriseClient githubClient,
-                         JiraService jiraService) {
+                         GitHubClientRegistry clientRegistry,
+                         JiraService jiraService,
+                         BranchShaCache branchShaCache) {
         this.configManager = configManager;
-        this.githubClient = githubClient;
+        this.clientRegistry = clientRegistry;
         this.jiraService = jiraService;
+        this.branchShaCache = branchShaCache;
     }
 
     /**
@@ -40,6 +59,8 @@ public class GitHubService {
      */
     public Map<String, Object> createBranch(String issueKey, String baseBranch, String branchName)
             throws GitHubException {
+        // User-initiated: served ahead of background sync requests when rate limited
+        boolean previousPriority = RateLimitScheduler.enterInteractive();
         try {
             // Load configuration
             GitHubConfig config = configManager.getConfiguration();
@@ -57,24 +78,45 @@ public class GitHubService {
                 throw new GitHubException("No repository mapping found for project: " + projectKey);
             }
 
-            // Initialize GitHub client
-            githubClient.initialize(config.getGithubEnterpriseUrl(), config.getGithubToken(),
-                    config.isTrustCustomCertificates());
-
             // Sanitize branch name
             String sanitizedBranchName = sanitizeBranchName(branchName, issueKey, issueDetails);
+            String owner = mapping.getGithubOwner();
+            String repo = mapping.getGithubRepo();
+            String base = baseBranch != null ? baseBranch : mapping.getDefaultBranch();
+
+            Map<String, Object> result;
+            try (GitHubClientRegistry.Lease<GitHubEnterpriseClient> lease = clientRegistry.leaseClient(config)) {
+                GitHubEnterpriseClient githubClient = lease.getClient();
+
+                // Get base branch SHA, from push webhooks if recent enough
+                String baseSha = branchShaCache.get(owner, repo, base);
+                boolean cachedSha = baseSha != null;
+                if (!cachedSha) {
+                    baseSha = githubClient.getBranchSha(owner, repo, base);
+                    branchShaCache.put(owner, repo, base, baseSha);
+                }
 
-            // Get base branch SHA
-            String baseSha = githubClient.getBranchSha(mapping.getGithubOwner(), mapping.getGithubRepo(),
-                    baseBranch != null ? baseBranch : mapping.getDefaultBranch());
-
-            // Create branch
-            Map<String, Object> result = githubClient.createBranch(
-                    mapping.getGithubOwner(),
-                    mapping.getGithubRepo(),
-                    sanitizedBranchName,
-                    baseSha
-            );
+                // Create branch
+                try {
+                    result = githubClient.createBranch(owner, repo, sanitizedBranchName, baseSha);
+                } catch (GitHubException e) {
+                    if (!cachedSha || statusCodeOf(e) != HTTP_UNPROCESSABLE_ENTITY) {
+                        throw e;
+                    }
+                    // The cached head may be unknown to GitHub (missed or reordered push); retry once from the API
+                    branchShaCache.invalidate(owner, repo, base);
+                    String freshSha = githubClient.getBranchSha(owner, repo, base);
+                    branchShaCache.put(owner, repo, base, freshSha);
+                    if (freshSha.equals(baseSha)) {
+                        throw e;
+                    }
+                    log.debug("Cached head {} of {}/{}:{} was rejected, retrying with {}",
+                            baseSha, owner, repo, base, freshSha);
+                    baseSha = freshSha;
+                    result = githubClient.createBranch(owner, repo, sanitizedBranchName, baseSha);
+                }
+                branchShaCache.put(owner, repo, sanitizedBranchName, baseSha);
+            }
 
             // Add comment to Jira issue
             String branchUrl = String.format("%s/%s/%s/tree/%s",
@@ -97,6 +139,8 @@ public class GitHubService {
         } catch (Exception e) {
             log.error("Failed to create branch for issue " + issueKey, e);
             throw new GitHubException("Failed to create branch: " + e.getMessage(), e);
+        } finally {
+            RateLimitScheduler.exitInteractive(previousPriority);
         }
     }
 
@@ -106,6 +150,8 @@ public class GitHubService {
     public Map<String, Object> createPullRequest(String issueKey, String sourceBranch,
                                                    String targetBranch, String title, String description)
             throws GitHubException {
+        // User-initiated: served ahead of background sync requests when rate limited
+        boolean previousPriority = RateLimitScheduler.enterInteractive();
         try {
             // Load configuration
             GitHubConfig config = configManager.getConfiguration();
@@ -123,23 +169,22 @@ public class GitHubService {
                 throw new GitHubException("No repository mapping found for project: " + projectKey);
             }
 
-            // Initialize GitHub client
-            githubClient.initialize(config.getGithubEnterpriseUrl(), config.getGithubToken(),
-                    config.isTrustCustomCertificates());
-
             // Build PR body with Jira link
             String jiraUrl = jiraService.getIssueUrl(issueKey);
             String prBody = String.format("Related to %s\n\n%s", jiraUrl, description != null ? description : "");
 
             // Create pull request
-            Map<String, Object> result = githubClient.createPullRequest(
-                    mapping.getGithubOwner(),
-                    mapping.getGithubRepo(),
-                    title,
-                    sourceBranch,
-                    targetBranch != null ? targetBranch : mapping.getDefaultBranch(),
-                    prBody
-            );
+            Map<String, Object> result;
+            try (GitHubClientRegistry.Lease<GitHubEnterpriseClient> lease = clientRegistry.leaseClient(config)) {
+                result = lease.getClient().createPullRequest(
+                        mapping.getGithubOwner(),
+                        mapping.getGithubRepo(),
+                        title,
+                        sourceBranch,
+                        targetBranch != null ? targetBranch : mapping.getDefaultBranch(),
+                        prBody
+                );
+            }
 
             // Transition issue to "In Review" if configured
             String prOpenedStatus = config.getTransitionMappings().get("pr_opened");
@@ -167,26 +212,127 @@ public class GitHubService {
         } catch (Exception e) {
             log.error("Failed to create pull request for issue " + issueKey, e);
             throw new GitHubException("Failed to create pull request: " + e.getMessage(), e);
+        } finally {
+            RateLimitScheduler.exitInteractive(previousPriority);
         }
     }
 
+    /**
+     * Get the branches and pull requests of an issue across all repositories mapped to its project
+     * Uses two GraphQL queries however many repositories are mapped
+     */
+    public Map<String, Object> getIssueGitHubInfo(String issueKey) throws GitHubException {
+        // Shown to a user waiting on the issue panel
+        boolean previousPriority = RateLimitScheduler.enterInteractive();
+        try {
+            Map<String, Object> result = new HashMap<>();
+            result.put("issueKey", issueKey);
+            result.put("branches", new ArrayList<BranchInfo>());
+            result.put("pullRequests", new ArrayList<PullRequestInfo>());
+
+            GitHubConfig config = configManager.getConfiguration();
+            int separator = issueKey.indexOf('-');
+            if (!config.isValid() || separator <= 0) {
+                return result;
+            }
+
+            String projectKey = issueKey.substring(0, separator);
+            Set<String> repositories = new LinkedHashSet<>();
+            Set<String> prefixes = new LinkedHashSet<>();
+            prefixes.add(branchPrefix(config.getBranchNaming(), projectKey, issueKey));
+            for (RepositoryMapping mapping : config.getRepositoryMappings(projectKey)) {
+                repositories.add(mapping.getFullRepoName());
+                prefixes.add(branchPrefix(mapping.getBranchNamingTemplate(), projectKey, issueKey));
+            }
+            prefixes.add(issueKey);
+            prefixes.remove(null);
+            if (repositories.isEmpty()) {
+                return result;
+            }
+
+            try (GitHubClientRegistry.Lease<GitHubEnterpriseClient> lease = clientRegistry.leaseClient(config)) {
+                GitHubEnterpriseClient githubClient = lease.getClient();
+
+                // A prefix of ABC-1 also matches ABC-12; drop branches where the key is only part of a longer key
+                Map<String, BranchInfo> found = new LinkedHashMap<>();
+                for (String prefix : prefixes) {
+                    for (BranchInfo branch : githubClient.findBranches(repositories, prefix,
+                            MAX_PANEL_BRANCHES_PER_REPO)) {
+                        if (containsIssueKey(branch.getName(), issueKey)) {
+                            found.putIfAbsent(branch.getRepository() + ":" + branch.getName(), branch);
+                        }
+                    }
+                }
+                List<BranchInfo> branches = new ArrayList<>(found.values());
+                result.put("branches", branches);
+
+                if (!branches.isEmpty()) {
+                    result.put("pullRequests",
+                            githubClient.findPullRequestsByHeadRefs(branches, MAX_PANEL_PRS_PER_BRANCH));
+                }
+            }
+            return result;
+        } finally {
+            RateLimitScheduler.exitInteractive(previousPriority);
+        }
+    }
+
+    /**
+     * Get the HTTP status of a failed call, looking through the client's descriptive wrapper
+     */
+    private static int statusCodeOf(GitHubException e) {
+        if (e.getStatusCode() == 0 && e.getCause() instanceof GitHubException) {
+            return ((GitHubException) e.getCause()).getStatusCode();
+        }
+        return e.getStatusCode();
+    }
+
+    /**
+     * Check a branch name mentions the issue key, not a longer key such as PROJ-1234 for PROJ-123
+     */
+    private static boolean containsIssueKey(String branchName, String issueKey) {
+        String name = branchName.toUpperCase(Locale.ROOT);
+        int index = name.indexOf(issueKey.toUpperCase(Locale.ROOT));
+        while (index >= 0) {
+            int end = index + issueKey.length();
+            boolean startsClean = index == 0 || !Character.isLetterOrDigit(name.charAt(index - 1));
+            boolean endsClean = end == name.length() || !Character.isDigit(name.charAt(end));
+            if (startsClean && endsClean) {
+                return true;
+            }
+            index = name.indexOf(issueKey.toUpperCase(Locale.ROOT), index + 1);
+        }
+        return false;
+    }
+
     /**
      * Register webhook for a repository
      */
     public String registerWebhook(String owner, String repo, String webhookUrl, String secret)
             throws GitHubException {
         try {
-            GitHubConfig config = configManager.getConfiguration();
-            githubClient.initialize(config.getGithubEnterpriseUrl(), config.getGithubToken(),
-                    config.isTrustCustomCertificates());
-
-            return githubClient.registerWebhook(owner, repo, webhookUrl, secret);
+            try (GitHubClientRegistry.Lease<GitHubEnterpriseClient> lease = clientRegistry.leaseClient()) {
+                return lease.getClient().registerWebhook(owner, repo, webhookUrl, secret);
+            }
         } catch (Exception e) {
             log.error("Failed to register webhook for {}/{}", owner, repo, e);
             throw new GitHubException("Failed to register webhook: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Get the branch name prefix a naming template gives an issue, up to and including the issue key
+     * Returns null when the template has no {issueKey} or a variable other than {project} comes before it
+     */
+    static String branchPrefix(String template, String projectKey, String issueKey) {
+        int index = template == null ? -1 : template.indexOf("{issueKey}");
+        if (index < 0) {
+            return null;
+        }
+        String head = template.substring(0, index).replace("{project}", projectKey);
+        return head.indexOf('{') >= 0 ? null : head + issueKey;
+    }
+
     /**
      * Sanitize branch name (remove special characters, limit length)
      */
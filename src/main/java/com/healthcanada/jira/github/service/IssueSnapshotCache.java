@@ -0,0 +1,387 @@
+package com.healthcanada.jira.github.service;
+
+import com.atlassian.event.api.EventListener;
+import com.atlassian.event.api.EventPublisher;
+import com.atlassian.jira.event.ClearCacheEvent;
+import com.atlassian.jira.event.issue.IssueEvent;
+import com.atlassian.jira.issue.Issue;
+import com.atlassian.jira.user.ApplicationUser;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Recently loaded issue details and view permission decisions, keyed by issue key
+ *
+ * Branch and pull request creation and webhook handling look up the same issues
+ * again and again; the details map (key, project, summary, type, status, assignee)
+ * is served from here until it expires or an IssueEvent for the issue arrives.
+ * Entries are also indexed by issue id, so an issue moved to another key is dropped
+ * together with the permission decisions cached under its old key.
+ * Permission decisions per (user, issue) are kept for a much shorter time, since
+ * changes to permission schemes and group membership raise no issue event.
+ *
+ * A load that overlaps an invalidation of the same issue is not cached, so an event
+ * can never be undone by a slower concurrent read. Recent invalidations are remembered
+ * per key and id; once one is evicted, loads started before it are no longer cached.
+ *
+ * Tuned with system properties github.integration.issueCache.maxAgeSeconds (default 60),
+ * github.integration.issueCache.maxEntries (default 2000) and
+ * github.integration.issueCache.permissionSeconds (default 10).
+ */
+@Component
+public class IssueSnapshotCache implements InitializingBean, DisposableBean {
+
+    private static final long DEFAULT_MAX_AGE_SECONDS = 60;
+    private static final int DEFAULT_MAX_ENTRIES = 2000;
+    private static final long DEFAULT_PERMISSION_SECONDS = 10;
+
+    private final EventPublisher eventPublisher;
+    private final long maxAgeMillis;
+    private final long permissionMaxAgeMillis;
+    // All state below is guarded by the issues map
+    private final LinkedHashMap<String, CachedIssue> issues;
+    private final Map<Long, String> keysById = new HashMap<>();
+    // Stamp of the latest invalidation per issue key (String) or issue id (Long)
+    private final LinkedHashMap<Object, Long> recentInvalidations;
+    // Loads started at or before this stamp are not cached
+    private long invalidationFloor;
+    // Bumped on every invalidation; a load remembers the value it started with
+    private final AtomicLong invalidationCount = new AtomicLong();
+
+    // Statistics
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    private final AtomicLong permissionHits = new AtomicLong();
+    private final AtomicLong permissionMisses = new AtomicLong();
+
+    @Autowired
+    public IssueSnapshotCache(EventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+        this.maxAgeMillis = TimeUnit.SECONDS.toMillis(Long.getLong("github.integration.issueCache.maxAgeSeconds",
+                DEFAULT_MAX_AGE_SECONDS));
+        this.permissionMaxAgeMillis = TimeUnit.SECONDS.toMillis(Long.getLong(
+                "github.integration.issueCache.permissionSeconds", DEFAULT_PERMISSION_SECONDS));
+        int maxEntries = Math.max(1, Integer.getInteger("github.integration.issueCache.maxEntries",
+                DEFAULT_MAX_ENTRIES));
+        this.issues = new LinkedHashMap<String, CachedIssue>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedIssue> eldest) {
+                if (size() <= maxEntries) {
+                    return false;
+                }
+                unindex(eldest.getKey(), eldest.getValue());
+                return true;
+            }
+        };
+        this.recentInvalidations = new LinkedHashMap<Object, Long>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Long> eldest) {
+                if (size() <= maxEntries) {
+                    return false;
+                }
+                invalidationFloor = Math.max(invalidationFloor, eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        eventPublisher.register(this);
+    }
+
+    @Override
+    public void destroy() {
+        eventPublisher.unregister(this);
+        clear();
+    }
+
+    /**
+     * Get the cached details of an issue if they are fresh, otherwise null
+     */
+    public Map<String, String> getDetails(String issueKey) {
+        String key = normalize(issueKey);
+        IssueSnapshot snapshot;
+        synchronized (issues) {
+            CachedIssue cached = issues.get(key);
+            snapshot = cached != null ? cached.snapshot : null;
+            if (snapshot != null && System.currentTimeMillis() - snapshot.loadedAt > maxAgeMillis) {
+                cached.snapshot = null;
+                removeIfEmpty(key, cached);
+                expired.incrementAndGet();
+                snapshot = null;
+            }
+        }
+
+        if (snapshot == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return snapshot.details;
+    }
+
+    /**
+     * Mark the start of a load; pass the result to {@link #putDetails} or {@link #putPermission}
+     */
+    public long startLoad() {
+        return invalidationCount.get();
+    }
+
+    /**
+     * Cache the details of an issue loaded since {@code loadStamp}
+     *
+     * @return the details as an unmodifiable map
+     */
+    public Map<String, String> putDetails(Issue issue, Map<String, String> details, long loadStamp) {
+        Map<String, String> cached = Collections.unmodifiableMap(new HashMap<>(details));
+        String key = normalize(issue.getKey());
+        synchronized (issues) {
+            if (!isStale(key, issue.getId(), loadStamp)) {
+                entryFor(key, issue.getId()).snapshot = new IssueSnapshot(cached, System.currentTimeMillis());
+            }
+        }
+        return cached;
+    }
+
+    /**
+     * Get a cached view permission decision if it is fresh, otherwise null
+     */
+    public Boolean getPermission(ApplicationUser user, String issueKey) {
+        String key = normalize(issueKey);
+        PermissionDecision decision;
+        synchronized (issues) {
+            CachedIssue cached = issues.get(key);
+            decision = cached != null ? cached.permissions.get(userKey(user)) : null;
+            if (decision != null && System.currentTimeMillis() - decision.decidedAt > permissionMaxAgeMillis) {
+                cached.permissions.remove(userKey(user));
+                removeIfEmpty(key, cached);
+                decision = null;
+            }
+        }
+
+        if (decision == null) {
+            permissionMisses.incrementAndGet();
+            return null;
+        }
+        permissionHits.incrementAndGet();
+        return decision.allowed;
+    }
+
+    /**
+     * Cache a view permission decision made since {@code loadStamp}
+     *
+     * @param issueId id of the issue if the user could see it, otherwise null
+     */
+    public void putPermission(ApplicationUser user, String issueKey, Long issueId, boolean allowed, long loadStamp) {
+        String key = normalize(issueKey);
+        synchronized (issues) {
+            if (!isStale(key, issueId, loadStamp)) {
+                entryFor(key, issueId).permissions.put(userKey(user),
+                        new PermissionDecision(allowed, System.currentTimeMillis()));
+            }
+        }
+    }
+
+    @EventListener
+    public void onIssueEvent(IssueEvent event) {
+        Issue issue = event.getIssue();
+        if (issue != null) {
+            invalidate(issue.getId(), issue.getKey());
+        }
+    }
+
+    @EventListener
+    public void onClearCache(ClearCacheEvent event) {
+        clear();
+    }
+
+    /**
+     * Forget an issue, matching cached entries by id or key
+     */
+    public void invalidate(Long issueId, String issueKey) {
+        long stamp = invalidationCount.incrementAndGet();
+        String key = issueKey != null ? normalize(issueKey) : null;
+
+        synchronized (issues) {
+            if (key != null) {
+                recentInvalidations.put(key, stamp);
+                remove(key);
+            }
+            if (issueId != null) {
+                recentInvalidations.put(issueId, stamp);
+                // The issue may be cached under the key it had before a move
+                String previousKey = keysById.get(issueId);
+                if (previousKey != null) {
+                    remove(previousKey);
+                }
+            }
+        }
+    }
+
+    /**
+     * Forget everything
+     */
+    public void clear() {
+        long stamp = invalidationCount.incrementAndGet();
+        synchronized (issues) {
+            issues.clear();
+            keysById.clear();
+            recentInvalidations.clear();
+            invalidationFloor = stamp;
+        }
+    }
+
+    /**
+     * Get cache statistics for monitoring and sizing
+     */
+    public Map<String, Object> getStatistics() {
+        long hitCount = hits.get();
+        long lookups = hitCount + misses.get();
+        long permissionHitCount = permissionHits.get();
+        long permissionLookups = permissionHitCount + permissionMisses.get();
+
+        int snapshotEntries = 0;
+        int permissionEntries = 0;
+        synchronized (issues) {
+            for (CachedIssue cached : issues.values()) {
+                if (cached.snapshot != null) {
+                    snapshotEntries++;
+                }
+                permissionEntries += cached.permissions.size();
+            }
+        }
+
+        Map<String, Object> permissionStats = new HashMap<>();
+        permissionStats.put("entries", permissionEntries);
+        permissionStats.put("maxAgeSeconds", TimeUnit.MILLISECONDS.toSeconds(permissionMaxAgeMillis));
+        permissionStats.put("hits", permissionHitCount);
+        permissionStats.put("misses", permissionMisses.get());
+        permissionStats.put("hitRatio", permissionLookups > 0 ? (double) permissionHitCount / permissionLookups : 0.0);
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("entries", snapshotEntries);
+        stats.put("maxAgeSeconds", TimeUnit.MILLISECONDS.toSeconds(maxAgeMillis));
+        stats.put("hits", hitCount);
+        stats.put("misses", misses.get());
+        stats.put("expired", expired.get());
+        stats.put("hitRatio", lookups > 0 ? (double) hitCount / lookups : 0.0);
+        stats.put("invalidations", invalidationCount.get());
+        stats.put("permissions", permissionStats);
+        return stats;
+    }
+
+    /**
+     * Check whether the issue was invalidated after a load started; call with the issues lock held
+     */
+    private boolean isStale(String key, Long issueId, long loadStamp) {
+        if (loadStamp < invalidationFloor) {
+            return true;
+        }
+        Long keyStamp = recentInvalidations.get(key);
+        if (keyStamp != null && keyStamp > loadStamp) {
+            return true;
+        }
+        Long idStamp = issueId != null ? recentInvalidations.get(issueId) : null;
+        return idStamp != null && idStamp > loadStamp;
+    }
+
+    /**
+     * Get or create the entry for an issue key, dropping any entry left under the issue's previous key
+     */
+    private CachedIssue entryFor(String key, Long issueId) {
+        CachedIssue cached = issues.get(key);
+        if (cached == null) {
+            cached = new CachedIssue();
+            issues.put(key, cached);
+        }
+        if (issueId != null && !issueId.equals(cached.issueId)) {
+            if (cached.issueId != null) {
+                // The key now belongs to another issue
+                keysById.remove(cached.issueId, key);
+                cached.snapshot = null;
+                cached.permissions.clear();
+            }
+            cached.issueId = issueId;
+            String previousKey = keysById.put(issueId, key);
+            if (previousKey != null && !previousKey.equals(key)) {
+                remove(previousKey);
+            }
+        }
+        return cached;
+    }
+
+    private void remove(String key) {
+        CachedIssue cached = issues.remove(key);
+        if (cached != null) {
+            unindex(key, cached);
+        }
+    }
+
+    private void removeIfEmpty(String key, CachedIssue cached) {
+        if (cached.snapshot == null && cached.permissions.isEmpty()) {
+            remove(key);
+        }
+    }
+
+    private void unindex(String key, CachedIssue cached) {
+        if (cached.issueId != null) {
+            keysById.remove(cached.issueId, key);
+        }
+    }
+
+    private static String normalize(String issueKey) {
+        return issueKey.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private static String userKey(ApplicationUser user) {
+        // Anonymous users share one entry per issue
+        return user != null ? user.getKey() : "";
+    }
+
+    /**
+     * Everything cached for one issue key
+     */
+    private static final class CachedIssue {
+        private Long issueId;
+        private IssueSnapshot snapshot;
+        private final Map<String, PermissionDecision> permissions = new HashMap<>();
+    }
+
+    /**
+     * Details of one issue and when they were loaded
+     */
+    private static final class IssueSnapshot {
+        private final Map<String, String> details;
+        private final long loadedAt;
+
+        private IssueSnapshot(Map<String, String> details, long loadedAt) {
+            this.details = details;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    /**
+     * A view permission decision and when it was made
+     */
+    private static final class PermissionDecision {
+        private final boolean allowed;
+        private final long decidedAt;
+
+        private PermissionDecision(boolean allowed, long decidedAt) {
+            this.allowed = allowed;
+            this.decidedAt = decidedAt;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.healthcanada.jira.github.service;
 
 import com.atlassian.jira.bc.issue.IssueService;
+import com.atlassian.jira.bc.issue.comment.CommentService;
 //import com.atlassian.jira.bc.issue.link.RemoteLinkService;
 import com.atlassian.jira.issue.Issue;
 import com.atlassian.jira.issue.IssueManager;
@@ -8,8 +9,10 @@ import com.atlassian.jira.issue.IssueManager;
 //import com.atlassian.jira.issue.link.RemoteIssueLinkBuilder;
 import com.atlassian.jira.security.JiraAuthenticationContext;
 import com.atlassian.jira.user.ApplicationUser;
+import com.atlassian.jira.user.util.UserManager;
 import com.atlassian.jira.workflow.TransitionOptions;
 import com.atlassian.sal.api.ApplicationProperties;
+import com.healthcanada.jira.github.storage.PluginConfigurationManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,6 +20,7 @@ import org.springframework.stereotype.Component;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Business logic for Jira operations
@@ -26,29 +30,55 @@ public class JiraService {
 
     private static final Logger log = LoggerFactory.getLogger(JiraService.class);
 
+    // Guards against workflows whose post functions keep moving the issue elsewhere
+    private static final int MAX_TRANSITION_STEPS = 10;
+
     private final IssueManager issueManager;
     private final IssueService issueService;
+    private final CommentService commentService;
     //private final RemoteLinkService remoteLinkService;
     private final JiraAuthenticationContext authenticationContext;
     private final ApplicationProperties applicationProperties;
+    private final WorkflowTransitionCache transitionCache;
+    private final IssueSnapshotCache issueCache;
+    private final PluginConfigurationManager configManager;
+    private final UserManager userManager;
 
     @Autowired
     public JiraService(IssueManager issueManager,
                        IssueService issueService,
+                       CommentService commentService,
                        //RemoteLinkService remoteLinkService,
                        JiraAuthenticationContext authenticationContext,
-                       ApplicationProperties applicationProperties) {
+                       ApplicationProperties applicationProperties,
+                       WorkflowTransitionCache transitionCache,
+                       IssueSnapshotCache issueCache,
+                       PluginConfigurationManager configManager,
+                       UserManager userManager) {
         this.issueManager = issueManager;
         this.issueService = issueService;
+        this.commentService = commentService;
         //this.remoteLinkService = remoteLinkService;
         this.authenticationContext = authenticationContext;
         this.applicationProperties = applicationProperties;
+        this.transitionCache = transitionCache;
+        this.issueCache = issueCache;
+        this.configManager = configManager;
+        this.userManager = userManager;
     }
 
     /**
-     * Get issue details
+     * Get issue details, served from the issue cache while fresh
+     *
+     * @return an unmodifiable map
      */
     public Map<String, String> getIssueDetails(String issueKey) {
+        Map<String, String> cached = issueCache.getDetails(issueKey);
+        if (cached != null) {
+            return cached;
+        }
+
+        long loadStamp = issueCache.startLoad();
         Issue issue = issueManager.getIssueByCurrentKey(issueKey);
         if (issue == null) {
             throw new IllegalArgumentException("Issue not found: " + issueKey);
@@ -65,7 +95,7 @@ public class JiraService {
             details.put("assignee", issue.getAssignee().getUsername());
         }
 
-        return details;
+        return issueCache.putDetails(issue, details, loadStamp);
     }
 
     /**
@@ -78,12 +108,15 @@ public class JiraService {
 
     /**
      * Add comment to issue
-     * TODO: Re-enable when IssueService API is available
+     *
+     * Webhook threads have no logged-in user, so there the comment is written by the configured
+     * integration user. It is skipped with a warning if neither user is available.
      */
     public void addComment(String issueKey, String comment) {
-        // Temporarily disabled due to API compatibility issues
-        log.debug("Would add comment to issue {} (functionality disabled): {}", issueKey, comment);
-        /*
+        runAsActingUser(issueKey, "add comment", user -> addComment(user, issueKey, comment));
+    }
+
+    private void addComment(ApplicationUser user, String issueKey, String comment) {
         try {
             Issue issue = issueManager.getIssueByCurrentKey(issueKey);
             if (issue == null) {
@@ -91,21 +124,23 @@ public class JiraService {
                 return;
             }
 
-            ApplicationUser user = authenticationContext.getLoggedInUser();
-            IssueService.IssueResult commentResult = issueService.validateAddComment(
-                    user, issue.getId(), comment);
-
-            if (commentResult.isValid()) {
-                issueService.addComment(user, commentResult);
-                log.debug("Added comment to issue {}", issueKey);
-            } else {
+            CommentService.CommentCreateValidationResult validation = commentService.validateCommentCreate(user,
+                    CommentService.CommentParameters.builder()
+                            .issue(issue)
+                            .author(user)
+                            .body(comment)
+                            .build());
+            if (!validation.isValid()) {
                 log.warn("Failed to validate comment for issue {}: {}",
-                        issueKey, commentResult.getErrorCollection());
+                        issueKey, validation.getErrorCollection());
+                return;
             }
+
+            commentService.create(user, validation, true);
+            log.debug("Added comment to issue {}", issueKey);
         } catch (Exception e) {
             log.error("Failed to add comment to issue " + issueKey, e);
         }
-        */
     }
 
     /**
@@ -150,13 +185,46 @@ public class JiraService {
     }
 
     /**
-     * Transition issue to a new status
-     * TODO: Re-enable when IssueService API is available
+     * Transition issue to a new status, through intermediate statuses if the workflow has no direct transition
+     * Each step takes the next transition on a shortest path from the cached workflow graph.
+     *
+     * Runs as the logged-in user, or as the configured integration user on webhook threads,
+     * which have none. The graph ignores transition conditions: if the next transition on the
+     * shortest path is not allowed, the issue is left where it is and no longer path is tried.
      */
     public void transitionIssue(String issueKey, String targetStatus) {
-        log.debug("Would transition issue {} to {} (functionality disabled)", issueKey, targetStatus);
-        // Temporarily disabled due to API compatibility issues
-        /*
+        runAsActingUser(issueKey, "transition to " + targetStatus,
+                user -> transitionIssue(user, issueKey, targetStatus));
+    }
+
+    /**
+     * Run an issue update as the logged-in user, or as the integration user when there is none
+     *
+     * The integration user is set on the authentication context for the duration, so post
+     * functions and listeners see the same user.
+     */
+    private void runAsActingUser(String issueKey, String action, Consumer<ApplicationUser> update) {
+        ApplicationUser loggedInUser = authenticationContext.getLoggedInUser();
+        ApplicationUser user = loggedInUser != null ? loggedInUser : getIntegrationUser();
+        if (user == null) {
+            log.warn("Cannot update issue {} ({}) - no logged-in user and no integration user configured",
+                    issueKey, action);
+            return;
+        }
+
+        if (loggedInUser == null) {
+            authenticationContext.setLoggedInUser(user);
+        }
+        try {
+            update.accept(user);
+        } finally {
+            if (loggedInUser == null) {
+                authenticationContext.setLoggedInUser(null);
+            }
+        }
+    }
+
+    private void transitionIssue(ApplicationUser user, String issueKey, String targetStatus) {
         try {
             Issue issue = issueManager.getIssueByCurrentKey(issueKey);
             if (issue == null) {
@@ -171,86 +239,91 @@ public class JiraService {
                 return;
             }
 
-            ApplicationUser user = authenticationContext.getLoggedInUser();
-
-            // Find transition by target status name
-            IssueService.IssueResult transitionResult = findAndExecuteTransition(
-                    user, issue, targetStatus);
-
-            if (transitionResult != null && transitionResult.isValid()) {
-                log.info("Transitioned issue {} from {} to {}", issueKey, currentStatus, targetStatus);
-            } else {
-                log.warn("Failed to transition issue {} to {}: no valid transition found or error occurred",
-                        issueKey, targetStatus);
+            for (int step = 0; step < MAX_TRANSITION_STEPS; step++) {
+                WorkflowTransitionCache.Transition transition = transitionCache.nextTransition(issue, targetStatus);
+                if (transition == null) {
+                    log.warn("No transition path from {} to {} for issue {}",
+                            issue.getStatus().getName(), targetStatus, issueKey);
+                    return;
+                }
+
+                issue = executeTransition(user, issue, transition);
+                if (issue == null) {
+                    return;
+                }
+                if (issue.getStatus().getName().equalsIgnoreCase(targetStatus)) {
+                    log.info("Transitioned issue {} from {} to {} in {} step(s)",
+                            issueKey, currentStatus, targetStatus, step + 1);
+                    return;
+                }
             }
+            log.warn("Gave up transitioning issue {} to {} after {} steps, now in {}",
+                    issueKey, targetStatus, MAX_TRANSITION_STEPS, issue.getStatus().getName());
         } catch (Exception e) {
             log.error("Failed to transition issue " + issueKey + " to " + targetStatus, e);
         }
-        */
     }
 
     /**
-     * Find and execute transition to target status
-     * TODO: Re-enable when IssueService API is available
+     * Resolve the configured integration user, or null if none is set or it does not exist
      */
-    /*
-    private IssueService.IssueResult findAndExecuteTransition(ApplicationUser user, Issue issue,
-                                                               String targetStatus) {
-        try {
-            IssueService.TransitionValidationResult validationResult =
-                    issueService.validateTransition(user, issue.getId(), -1,
-                            new IssueService.IssueInputParameters(), TransitionOptions.defaults());
-
-            if (!validationResult.isValid()) {
-                log.warn("Cannot get transitions for issue {}: {}",
-                        issue.getKey(), validationResult.getErrorCollection());
-                return null;
-            }
+    private ApplicationUser getIntegrationUser() {
+        String username = configManager.getConfiguration().getIntegrationUser();
+        if (username == null || username.trim().isEmpty()) {
+            return null;
+        }
 
-            // Find transition that leads to target status
-            Integer transitionId = validationResult.getTransitions().stream()
-                    .filter(t -> t.getDestinationWorkflowStatus().getName().equalsIgnoreCase(targetStatus))
-                    .map(t -> t.getId())
-                    .findFirst()
-                    .orElse(null);
-
-            if (transitionId == null) {
-                log.warn("No transition found from {} to {} for issue {}",
-                        issue.getStatus().getName(), targetStatus, issue.getKey());
-                return null;
-            }
+        ApplicationUser user = userManager.getUserByName(username.trim());
+        if (user == null) {
+            log.warn("Integration user {} does not exist", username);
+        }
+        return user;
+    }
 
-            // Execute transition
-            IssueService.TransitionValidationResult transitionValidation =
-                    issueService.validateTransition(user, issue.getId(), transitionId,
-                            new IssueService.IssueInputParameters(), TransitionOptions.defaults());
+    /**
+     * Validate and execute one transition
+     *
+     * @return the transitioned issue, or null if the transition was not allowed or failed
+     */
+    private Issue executeTransition(ApplicationUser user, Issue issue,
+                                    WorkflowTransitionCache.Transition transition) {
+        IssueService.TransitionValidationResult validation = issueService.validateTransition(
+                user, issue.getId(), transition.getId(), issueService.newIssueInputParameters(),
+                TransitionOptions.defaults());
+        if (!validation.isValid()) {
+            log.warn("Transition '{}' not allowed for issue {}: {}",
+                    transition.getName(), issue.getKey(), validation.getErrorCollection());
+            return null;
+        }
 
-            if (transitionValidation.isValid()) {
-                return issueService.transition(user, transitionValidation);
-            } else {
-                log.warn("Transition validation failed for issue {}: {}",
-                        issue.getKey(), transitionValidation.getErrorCollection());
-                return null;
-            }
-        } catch (Exception e) {
-            log.error("Error finding/executing transition for issue " + issue.getKey(), e);
+        IssueService.IssueResult result = issueService.transition(user, validation);
+        if (!result.isValid()) {
+            log.warn("Transition '{}' failed for issue {}: {}",
+                    transition.getName(), issue.getKey(), result.getErrorCollection());
             return null;
         }
+        log.debug("Issue {} moved to {} by transition '{}'",
+                issue.getKey(), transition.getToStatusName(), transition.getName());
+        return result.getIssue();
     }
-    */
 
     /**
      * Check if user has permission to view issue
      */
     public boolean hasViewPermission(ApplicationUser user, String issueKey) {
-        try {
-            Issue issue = issueManager.getIssueByCurrentKey(issueKey);
-            if (issue == null) {
-                return false;
-            }
+        Boolean cached = issueCache.getPermission(user, issueKey);
+        if (cached != null) {
+            return cached;
+        }
 
+        try {
+            long loadStamp = issueCache.startLoad();
+            // Invalid for a missing issue as well as for one the user cannot see
             IssueService.IssueResult result = issueService.getIssue(user, issueKey);
-            return result.isValid();
+            boolean allowed = result.isValid();
+            Long issueId = allowed && result.getIssue() != null ? result.getIssue().getId() : null;
+            issueCache.putPermission(user, issueKey, issueId, allowed, loadStamp);
+            return allowed;
         } catch (Exception e) {
             log.error("Failed to check view permission for issue " + issueKey, e);
             return false;
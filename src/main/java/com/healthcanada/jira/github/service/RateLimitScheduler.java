@@ -0,0 +1,323 @@
+package com.healthcanada.jira.github.service;
+
+import com.healthcanada.jira.github.model.GitHubException;
+import com.healthcanada.jira.github.util.ResponseHeaders;
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Paces GitHub API requests against the rate limit of each token
+ *
+ * The remaining budget and reset time are taken from the X-RateLimit-* headers of
+ * every response. While plenty of budget is left requests pass straight through;
+ * once it runs low they are spread over the rest of the window with a token bucket.
+ * Retry-After and secondary rate limit responses block all requests for the token
+ * until the given time.
+ *
+ * Interactive requests (branch and pull request creation by a user) are marked with
+ * {@link #enterInteractive()}. They are admitted before waiting background requests,
+ * and a small part of the budget is kept back for them.
+ */
+public class RateLimitScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimitScheduler.class);
+
+    // Below this many remaining requests, pacing starts
+    private static final int PACING_THRESHOLD = 500;
+    // Requests kept back for interactive calls
+    private static final int INTERACTIVE_RESERVE = 50;
+    private static final int BURST = 10;
+    // Secondary rate limit responses without Retry-After
+    private static final long SECONDARY_LIMIT_BACKOFF_MS = 60000;
+    private static final long MAX_INTERACTIVE_WAIT_MS = 10000;
+    private static final long MAX_BACKGROUND_WAIT_MS = 120000;
+
+    private static final ThreadLocal<Boolean> INTERACTIVE = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    private final Map<String, Budget> budgets = new ConcurrentHashMap<>();
+
+    // Statistics
+    private final AtomicLong throttledRequests = new AtomicLong();
+    private final AtomicLong rejectedRequests = new AtomicLong();
+
+    /**
+     * Mark requests on the current thread as interactive
+     *
+     * @return the previous marking, to pass to {@link #exitInteractive(boolean)}
+     */
+    public static boolean enterInteractive() {
+        boolean previous = INTERACTIVE.get();
+        INTERACTIVE.set(Boolean.TRUE);
+        return previous;
+    }
+
+    /**
+     * Restore the marking saved by {@link #enterInteractive()}
+     */
+    public static void exitInteractive(boolean previous) {
+        if (previous) {
+            INTERACTIVE.set(Boolean.TRUE);
+        } else {
+            INTERACTIVE.remove();
+        }
+    }
+
+    /**
+     * Wait until a request may be sent with the token
+     *
+     * @throws GitHubException with status 429 if the wait would exceed the limit for this priority
+     */
+    public void acquire(String apiToken) throws GitHubException {
+        boolean interactive = INTERACTIVE.get();
+        Budget budget = budgetFor(apiToken);
+        long deadline = System.currentTimeMillis() + (interactive ? MAX_INTERACTIVE_WAIT_MS : MAX_BACKGROUND_WAIT_MS);
+
+        synchronized (budget) {
+            if (interactive) {
+                budget.waitingInteractive++;
+            } else {
+                budget.waitingBackground++;
+            }
+
+            try {
+                boolean throttled = false;
+                while (true) {
+                    long now = System.currentTimeMillis();
+                    long waitMs = budget.waitTime(now, interactive);
+                    if (waitMs <= 0) {
+                        budget.take(now);
+                        break;
+                    }
+                    if (now + waitMs > deadline) {
+                        rejectedRequests.incrementAndGet();
+                        throw new GitHubException(String.format(
+                                "GitHub API rate limit reached, retry in %d seconds",
+                                TimeUnit.MILLISECONDS.toSeconds(waitMs) + 1), 429, null);
+                    }
+                    if (!throttled) {
+                        throttled = true;
+                        throttledRequests.incrementAndGet();
+                        log.debug("Delaying {} GitHub request by {}ms for rate limit",
+                                interactive ? "interactive" : "background", waitMs);
+                    }
+                    budget.wait(waitMs);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new GitHubException("Interrupted while waiting for GitHub rate limit", e);
+            } finally {
+                if (interactive) {
+                    budget.waitingInteractive--;
+                } else {
+                    budget.waitingBackground--;
+                }
+                budget.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Take a request slot for the token without blocking, at background priority
+     *
+     * @param waitingSince when the caller first asked, to apply the same wait limit as {@link #acquire(String)}
+     * @return 0 if the request may be sent now, otherwise milliseconds to wait before asking again
+     * @throws GitHubException with status 429 if the wait would exceed the limit
+     */
+    public long tryAcquire(String apiToken, long waitingSince) throws GitHubException {
+        Budget budget = budgetFor(apiToken);
+        synchronized (budget) {
+            long now = System.currentTimeMillis();
+            long waitMs = budget.waitTime(now, false);
+            if (waitMs <= 0) {
+                budget.take(now);
+                return 0;
+            }
+            if (now + waitMs > waitingSince + MAX_BACKGROUND_WAIT_MS) {
+                rejectedRequests.incrementAndGet();
+                throw new GitHubException(String.format(
+                        "GitHub API rate limit reached, retry in %d seconds",
+                        TimeUnit.MILLISECONDS.toSeconds(waitMs) + 1), 429, null);
+            }
+            return waitMs;
+        }
+    }
+
+    /**
+     * Update the budget for the token from a response
+     */
+    public void update(String apiToken, HttpResponse response) {
+        Budget budget = budgetFor(apiToken);
+        int statusCode = response.getStatusLine().getStatusCode();
+        long now = System.currentTimeMillis();
+
+        long remaining = ResponseHeaders.getLong(response, "X-RateLimit-Remaining");
+        long limit = ResponseHeaders.getLong(response, "X-RateLimit-Limit");
+        long reset = ResponseHeaders.getLong(response, "X-RateLimit-Reset");
+        long retryAfterMillis = ResponseHeaders.getRetryAfterMillis(response, now);
+
+        // GraphQL and search have budgets of their own; only the core REST budget is paced
+        Header resource = response.getFirstHeader("X-RateLimit-Resource");
+        if (resource != null && !"core".equals(resource.getValue())) {
+            remaining = -1;
+            limit = -1;
+            reset = -1;
+        }
+
+        synchronized (budget) {
+            if (remaining >= 0) {
+                budget.remaining = remaining;
+            }
+            if (limit > 0) {
+                budget.limit = limit;
+            }
+            if (reset > 0) {
+                budget.resetAtMillis = TimeUnit.SECONDS.toMillis(reset);
+            }
+
+            if (retryAfterMillis >= 0) {
+                budget.blockedUntil = Math.max(budget.blockedUntil, now + retryAfterMillis);
+                log.warn("GitHub asked to retry after {}s (status {})",
+                        TimeUnit.MILLISECONDS.toSeconds(retryAfterMillis), statusCode);
+            } else if (statusCode == 429) {
+                blockFor(budget, now, statusCode);
+            }
+
+            if (remaining >= 0 && remaining < 100) {
+                log.warn("GitHub API rate limit low: {} requests remaining", remaining);
+            }
+            budget.notifyAll();
+        }
+    }
+
+    /**
+     * Record a 403 secondary rate limit response that carried no Retry-After header
+     */
+    public void secondaryLimitHit(String apiToken) {
+        Budget budget = budgetFor(apiToken);
+        synchronized (budget) {
+            blockFor(budget, System.currentTimeMillis(), 403);
+            budget.notifyAll();
+        }
+    }
+
+    private void blockFor(Budget budget, long now, int statusCode) {
+        budget.blockedUntil = Math.max(budget.blockedUntil, now + SECONDARY_LIMIT_BACKOFF_MS);
+        log.warn("GitHub secondary rate limit hit (status {}), pausing requests for {}s",
+                statusCode, TimeUnit.MILLISECONDS.toSeconds(SECONDARY_LIMIT_BACKOFF_MS));
+    }
+
+    private Budget budgetFor(String apiToken) {
+        return budgets.computeIfAbsent(apiToken != null ? apiToken : "", key -> new Budget());
+    }
+
+    /**
+     * Get current budget and queue statistics for monitoring
+     */
+    public Map<String, Object> getStatistics() {
+        long now = System.currentTimeMillis();
+        List<Map<String, Object>> tokens = new ArrayList<>();
+        int queuedInteractive = 0;
+        int queuedBackground = 0;
+
+        for (Budget budget : budgets.values()) {
+            synchronized (budget) {
+                Map<String, Object> stats = new HashMap<>();
+                stats.put("remaining", budget.remaining);
+                stats.put("limit", budget.limit);
+                stats.put("resetInSeconds", Math.max(0, TimeUnit.MILLISECONDS.toSeconds(budget.resetAtMillis - now)));
+                stats.put("blockedForSeconds", Math.max(0, TimeUnit.MILLISECONDS.toSeconds(budget.blockedUntil - now)));
+                stats.put("queuedInteractive", budget.waitingInteractive);
+                stats.put("queuedBackground", budget.waitingBackground);
+                tokens.add(stats);
+                queuedInteractive += budget.waitingInteractive;
+                queuedBackground += budget.waitingBackground;
+            }
+        }
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("budgets", tokens);
+        stats.put("queuedInteractive", queuedInteractive);
+        stats.put("queuedBackground", queuedBackground);
+        stats.put("throttled", throttledRequests.get());
+        stats.put("rejected", rejectedRequests.get());
+        return stats;
+    }
+
+    /**
+     * Rate limit state of one token; guarded by its own monitor
+     */
+    private static final class Budget {
+        // -1 until the first response reports it
+        private long remaining = -1;
+        private long limit = -1;
+        private long resetAtMillis;
+        private long blockedUntil;
+
+        // Token bucket used while pacing
+        private double tokens = BURST;
+        private long refilledAt = System.currentTimeMillis();
+
+        private int waitingInteractive;
+        private int waitingBackground;
+
+        /**
+         * Milliseconds until a request of the given priority may be sent, 0 if now
+         */
+        long waitTime(long now, boolean interactive) {
+            if (blockedUntil > now) {
+                return blockedUntil - now;
+            }
+
+            // Background requests let waiting interactive ones go first
+            if (!interactive && waitingInteractive > 0) {
+                return 50;
+            }
+
+            if (remaining < 0 || remaining > PACING_THRESHOLD || resetAtMillis <= now) {
+                return 0;
+            }
+
+            long usable = interactive ? remaining : remaining - INTERACTIVE_RESERVE;
+            if (usable <= 0) {
+                return resetAtMillis - now;
+            }
+
+            refill(now, usable);
+            if (tokens >= 1) {
+                return 0;
+            }
+            double perMs = (double) usable / (resetAtMillis - now);
+            return Math.max(1, (long) Math.ceil((1 - tokens) / perMs));
+        }
+
+        /**
+         * Spread the usable budget evenly over the rest of the window
+         */
+        private void refill(long now, long usable) {
+            double perMs = (double) usable / (resetAtMillis - now);
+            tokens = Math.min(BURST, tokens + (now - refilledAt) * perMs);
+            refilledAt = now;
+        }
+
+        void take(long now) {
+            if (remaining > 0) {
+                // Count locally until the response reports the real value
+                remaining--;
+            }
+            if (tokens >= 1) {
+                tokens--;
+            }
+            refilledAt = Math.max(refilledAt, now);
+        }
+    }
+}
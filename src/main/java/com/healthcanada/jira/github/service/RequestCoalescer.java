@@ -0,0 +1,103 @@
+package com.healthcanada.jira.github.service;
+
+import com.healthcanada.jira.github.model.GitHubException;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single-flight execution of identical idempotent GitHub requests
+ *
+ * The first caller for a key runs the request; callers arriving with the same key
+ * while it is in flight wait for it and receive the same parsed result or the same
+ * exception. Nothing is kept once the request completes, so later callers go through
+ * the response cache and revalidate as usual. Shared results must not be modified.
+ */
+public class RequestCoalescer {
+
+    private final Map<GitHubResponseCache.CacheKey, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    // Statistics
+    private final AtomicLong executed = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /**
+     * Run the request unless an identical one is already in flight, in which case wait for its result
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, String apiToken, Request<T> request) throws GitHubException, IOException {
+        GitHubResponseCache.CacheKey cacheKey = new GitHubResponseCache.CacheKey(key, apiToken);
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(cacheKey, future);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            return (T) await(existing);
+        }
+
+        executed.incrementAndGet();
+        try {
+            T result = request.execute();
+            future.complete(result);
+            return result;
+        } catch (Throwable e) {
+            // Any failure, including an Error, must reach the waiters or they would block forever
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(cacheKey, future);
+        }
+    }
+
+    private static Object await(CompletableFuture<Object> future) throws GitHubException, IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GitHubException("Interrupted while waiting for GitHub request", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof GitHubException) {
+                throw (GitHubException) cause;
+            }
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new GitHubException("GitHub request failed: " + cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Get coalescing statistics for monitoring
+     */
+    public Map<String, Object> getStatistics() {
+        long executedCount = executed.get();
+        long coalescedCount = coalesced.get();
+        long total = executedCount + coalescedCount;
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("inFlight", inFlight.size());
+        stats.put("executed", executedCount);
+        stats.put("coalesced", coalescedCount);
+        stats.put("coalescedRatio", total > 0 ? (double) coalescedCount / total : 0.0);
+        return stats;
+    }
+
+    /**
+     * A request that may be shared between callers
+     */
+    @FunctionalInterface
+    public interface Request<T> {
+        T execute() throws GitHubException, IOException;
+    }
+}
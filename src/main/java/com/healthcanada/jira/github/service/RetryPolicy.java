@@ -0,0 +1,246 @@
+package com.healthcanada.jira.github.service;
+
+import com.healthcanada.jira.github.model.GitHubException;
+import com.healthcanada.jira.github.util.ResponseHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+
+import java.net.ConnectException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides whether and when a failed GitHub request is retried
+ *
+ * - Idempotent requests (GET, GraphQL reads) are retried on network errors and 5xx.
+ *   Other requests (POST) only when GitHub cannot have acted on them: the connection
+ *   was never established, or the request was rejected by a rate limit.
+ * - Delays use decorrelated jitter, and are never shorter than the Retry-After (seconds
+ *   or HTTP-date) or
+ *   X-RateLimit-Reset time GitHub asked for. Requests asked to wait longer than a
+ *   minute are not retried.
+ * - A retry budget shared by all requests caps retries to a percentage of recent traffic
+ *   (plus a trickle of one per second up to ten), so retries cannot multiply load while
+ *   GHE is struggling, even after an idle period.
+ *
+ * Subclasses can override {@link #isRetryable} and {@link #backoff} to change the policy.
+ *
+ * Tuned with system properties github.integration.retry.maxAttempts (default 3)
+ * and github.integration.retry.budgetPercent (default 20).
+ */
+public class RetryPolicy {
+
+    private static final int DEFAULT_MAX_ATTEMPTS = 3;
+    private static final int DEFAULT_BUDGET_PERCENT = 20;
+
+    private static final long BASE_DELAY_MS = 500;
+    private static final long MAX_DELAY_MS = 10000;
+    // Longer server-requested waits fail the request instead
+    private static final long MAX_SERVER_DELAY_MS = 60000;
+
+    // Retry budget: deposits from requests raise the balance up to MAX_BUDGET, while the
+    // time-based trickle only tops it up to TRICKLE_BUDGET, so an idle period cannot bank a burst
+    private static final double MAX_BUDGET = 100;
+    private static final double TRICKLE_BUDGET = 10;
+    private static final double RETRIES_PER_SECOND = 1;
+
+    private final int maxAttempts;
+    private final double depositPerRequest;
+
+    private double budget = TRICKLE_BUDGET;
+    private long budgetRefilledAt = System.nanoTime();
+
+    // Statistics
+    private final Map<String, OperationStats> operations = new ConcurrentHashMap<>();
+    private final AtomicLong budgetExhausted = new AtomicLong();
+
+    public RetryPolicy() {
+        this(Integer.getInteger("github.integration.retry.maxAttempts", DEFAULT_MAX_ATTEMPTS),
+                Integer.getInteger("github.integration.retry.budgetPercent", DEFAULT_BUDGET_PERCENT));
+    }
+
+    public RetryPolicy(int maxAttempts, int budgetPercent) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.depositPerRequest = Math.max(0, budgetPercent) / 100.0;
+    }
+
+    /**
+     * Start tracking one logical request
+     *
+     * @param operation  statistics key, e.g. "getBranchSha"
+     * @param idempotent whether repeating the request after GitHub may have processed it is safe
+     */
+    public Request start(String operation, boolean idempotent) {
+        operationStats(operation).requests.incrementAndGet();
+        synchronized (this) {
+            refillBudget();
+            budget = Math.min(MAX_BUDGET, budget + depositPerRequest);
+        }
+        return new Request(operation, idempotent);
+    }
+
+    /**
+     * Whether the failure is worth another attempt
+     */
+    protected boolean isRetryable(Exception failure, boolean idempotent) {
+        if (failure instanceof GitHubResponseException) {
+            GitHubResponseException response = (GitHubResponseException) failure;
+            if (response.isRateLimited()) {
+                // Rejected before processing, safe for any method
+                return true;
+            }
+            return idempotent && response.getStatusCode() >= 500;
+        }
+        if (failure instanceof GitHubException) {
+            // Raised locally (rate limit wait too long, circuit open, interrupted)
+            return false;
+        }
+        if (!idempotent) {
+            // The request never reached GitHub
+            return failure instanceof ConnectException
+                    || failure instanceof ConnectTimeoutException
+                    || failure instanceof ConnectionPoolTimeoutException;
+        }
+        return !(failure instanceof GitHubEnterpriseClient.ResponseTooLargeException);
+    }
+
+    /**
+     * Decorrelated jitter: a random delay between the base and three times the previous delay
+     */
+    protected long backoff(long previousDelayMs) {
+        long upper = Math.max(BASE_DELAY_MS + 1, Math.min(MAX_DELAY_MS, previousDelayMs * 3));
+        return ThreadLocalRandom.current().nextLong(BASE_DELAY_MS, upper + 1);
+    }
+
+    /**
+     * How long the response asked us to wait, from Retry-After or an exhausted X-RateLimit budget
+     *
+     * @return milliseconds, or -1 if the response does not say
+     */
+    public static long serverDelayMillis(HttpResponse response) {
+        long now = System.currentTimeMillis();
+        long retryAfter = ResponseHeaders.getRetryAfterMillis(response, now);
+        if (retryAfter >= 0) {
+            return retryAfter;
+        }
+        if (ResponseHeaders.getLong(response, "X-RateLimit-Remaining") == 0) {
+            long reset = ResponseHeaders.getLong(response, "X-RateLimit-Reset");
+            if (reset > 0) {
+                return Math.max(0, TimeUnit.SECONDS.toMillis(reset) - now);
+            }
+        }
+        return -1;
+    }
+
+    private synchronized boolean withdrawBudget() {
+        refillBudget();
+        if (budget < 1) {
+            return false;
+        }
+        budget -= 1;
+        return true;
+    }
+
+    private void refillBudget() {
+        long now = System.nanoTime();
+        double seconds = (now - budgetRefilledAt) / (double) TimeUnit.SECONDS.toNanos(1);
+        if (budget < TRICKLE_BUDGET) {
+            budget = Math.min(TRICKLE_BUDGET, budget + seconds * RETRIES_PER_SECOND);
+        }
+        budgetRefilledAt = now;
+    }
+
+    private OperationStats operationStats(String operation) {
+        return operations.computeIfAbsent(operation, key -> new OperationStats());
+    }
+
+    /**
+     * Get retry budget and per-operation retry statistics for monitoring
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> perOperation = new HashMap<>();
+        for (Map.Entry<String, OperationStats> entry : operations.entrySet()) {
+            OperationStats stats = entry.getValue();
+            Map<String, Object> values = new HashMap<>();
+            values.put("requests", stats.requests.get());
+            values.put("retries", stats.retries.get());
+            values.put("retriesDenied", stats.retriesDenied.get());
+            perOperation.put(entry.getKey(), values);
+        }
+
+        Map<String, Object> stats = new HashMap<>();
+        synchronized (this) {
+            refillBudget();
+            stats.put("budgetAvailable", (long) budget);
+        }
+        stats.put("budgetExhausted", budgetExhausted.get());
+        stats.put("maxAttempts", maxAttempts);
+        stats.put("operations", perOperation);
+        return stats;
+    }
+
+    /**
+     * Attempts of one logical request
+     */
+    public final class Request {
+        private final String operation;
+        private final boolean idempotent;
+        private int attempts = 1;
+        private long previousDelayMs = BASE_DELAY_MS;
+
+        private Request(String operation, boolean idempotent) {
+            this.operation = operation;
+            this.idempotent = idempotent;
+        }
+
+        /**
+         * Decide on a failed attempt
+         *
+         * @return milliseconds to wait before the next attempt, or -1 to give up
+         */
+        public long nextDelay(Exception failure) {
+            if (attempts >= maxAttempts || !isRetryable(failure, idempotent)) {
+                return -1;
+            }
+
+            long serverDelay = failure instanceof GitHubResponseException
+                    ? ((GitHubResponseException) failure).getRetryAfterMillis() : -1;
+            if (serverDelay > MAX_SERVER_DELAY_MS) {
+                return -1;
+            }
+
+            OperationStats stats = operationStats(operation);
+            if (!withdrawBudget()) {
+                budgetExhausted.incrementAndGet();
+                stats.retriesDenied.incrementAndGet();
+                return -1;
+            }
+
+            attempts++;
+            stats.retries.incrementAndGet();
+            previousDelayMs = Math.max(backoff(previousDelayMs), serverDelay);
+            return previousDelayMs;
+        }
+
+        /**
+         * Number of attempts made so far, including the first
+         */
+        public int getAttempts() {
+            return attempts;
+        }
+    }
+
+    /**
+     * Counters of one operation
+     */
+    private static final class OperationStats {
+        private final AtomicLong requests = new AtomicLong();
+        private final AtomicLong retries = new AtomicLong();
+        private final AtomicLong retriesDenied = new AtomicLong();
+    }
+}
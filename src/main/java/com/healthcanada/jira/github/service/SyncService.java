@@ -1,6 +1,8 @@
 package com.healthcanada.jira.github.service;
 
 import com.healthcanada.jira.github.model.GitHubConfig;
+import com.healthcanada.jira.github.model.PushPayload;
+import com.healthcanada.jira.github.model.RepositoryMapping;
 import com.healthcanada.jira.github.model.WebhookPayload;
 import com.healthcanada.jira.github.storage.PluginConfigurationManager;
 import org.slf4j.Logger;
@@ -8,8 +10,8 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Orchestrates synchronization between GitHub events and Jira updates
@@ -19,8 +21,8 @@ public class SyncService {
 
     private static final Logger log = LoggerFactory.getLogger(SyncService.class);
 
-    // Pattern to extract Jira issue keys (PROJECT-123)
-    private static final Pattern ISSUE_KEY_PATTERN = Pattern.compile("([A-Z][A-Z0-9]+-\\d+)");
+    // Longer pushes are summarised with a compare link
+    private static final int MAX_COMMITS_IN_COMMENT = 20;
 
     private final JiraService jiraService;
     private final PluginConfigurationManager configManager;
@@ -155,23 +157,123 @@ public class SyncService {
         }
     }
 
+    /**
+     * Handle the commits of one push that mention an issue
+     * Adds a single comment listing all of them
+     */
+    public void handlePush(String issueKey, PushPayload push, List<PushPayload.Commit> commits) {
+        try {
+            log.info("Handling push event for issue {} - {} commit(s) to {}",
+                    issueKey, commits.size(), push.getRef());
+
+            String comment = buildPushComment(push, commits);
+            jiraService.addComment(issueKey, comment);
+
+            log.info("Successfully handled push event for issue {}", issueKey);
+
+        } catch (Exception e) {
+            log.error("Failed to handle push event for issue " + issueKey, e);
+        }
+    }
+
     /**
      * Extract issue key from text (branch name or PR title)
+     * Returns the first key of a mapped Jira project
      */
     public String extractIssueKey(String text) {
+        return extractIssueKey(text, null);
+    }
+
+    /**
+     * Extract issue key from text of a pull request in the given "owner/repo" repository
+     * Keys of the projects the repository is mapped to win over keys of other mapped projects;
+     * without such a key, or for an unmapped repository, the first key of any mapped project is returned
+     */
+    public String extractIssueKey(String text, String repositoryFullName) {
         if (text == null || text.isEmpty()) {
             return null;
         }
 
-        Matcher matcher = ISSUE_KEY_PATTERN.matcher(text);
-        if (matcher.find()) {
-            String issueKey = matcher.group(1);
+        GitHubConfig config = configManager.getConfiguration();
+        List<RepositoryMapping> mappings = config.getRepositoryMappingsByFullName(repositoryFullName);
+        String issueKey = mappings.isEmpty()
+                ? config.getIssueKeyScanner().findFirst(text)
+                : preferMappedProject(config.getIssueKeyScanner().findAll(text), mappings);
+        if (issueKey != null) {
             log.debug("Extracted issue key {} from text: {}", issueKey, text);
-            return issueKey;
+        } else {
+            log.debug("No issue key found in text: {}", text);
+        }
+        return issueKey;
+    }
+
+    private static String preferMappedProject(List<String> issueKeys, List<RepositoryMapping> mappings) {
+        for (String issueKey : issueKeys) {
+            String projectKey = issueKey.substring(0, issueKey.lastIndexOf('-'));
+            for (RepositoryMapping mapping : mappings) {
+                if (projectKey.equalsIgnoreCase(mapping.getJiraProject())) {
+                    return issueKey;
+                }
+            }
+        }
+        return issueKeys.isEmpty() ? null : issueKeys.get(0);
+    }
+
+    /**
+     * Extract all distinct issue keys of mapped Jira projects from text
+     * (branch name, PR title or commit message)
+     */
+    public List<String> extractIssueKeys(String text) {
+        if (text == null || text.isEmpty()) {
+            return Collections.emptyList();
         }
+        return configManager.getConfiguration().getIssueKeyScanner().findAll(text);
+    }
 
-        log.debug("No issue key found in text: {}", text);
-        return null;
+    /**
+     * Build comment for commits pushed
+     */
+    private String buildPushComment(PushPayload push, List<PushPayload.Commit> commits) {
+        StringBuilder comment = new StringBuilder();
+        comment.append(commits.size() == 1 ? "1 commit pushed" : commits.size() + " commits pushed");
+
+        String branch = push.getBranchName() != null ? push.getBranchName() : push.getRef();
+        if (branch != null) {
+            comment.append(" to ").append(branch);
+        }
+        if (push.getRepository() != null && push.getRepository().getFullName() != null) {
+            comment.append(" in ").append(push.getRepository().getFullName());
+        }
+        comment.append(":\n");
+
+        int listed = Math.min(commits.size(), MAX_COMMITS_IN_COMMENT);
+        for (int i = 0; i < listed; i++) {
+            PushPayload.Commit commit = commits.get(i);
+            comment.append("* [").append(commit.getShortId()).append("|").append(commit.getUrl()).append("] ");
+            comment.append(firstLine(commit.getMessage()));
+            if (commit.getAuthor() != null && commit.getAuthor().getName() != null) {
+                comment.append(" (").append(commit.getAuthor().getName()).append(")");
+            }
+            comment.append("\n");
+        }
+
+        if (commits.size() > listed) {
+            comment.append("... and ").append(commits.size() - listed).append(" more");
+            if (push.getCompare() != null) {
+                comment.append(": [Compare|").append(push.getCompare()).append("]");
+            }
+            comment.append("\n");
+        }
+
+        return comment.toString();
+    }
+
+    private static String firstLine(String message) {
+        if (message == null) {
+            return "";
+        }
+        int newline = message.indexOf('\n');
+        return newline >= 0 ? message.substring(0, newline) : message;
     }
 
     /**
@@ -0,0 +1,325 @@
+package com.healthcanada.jira.github.service;
+
+import com.atlassian.event.api.EventListener;
+import com.atlassian.event.api.EventPublisher;
+import com.atlassian.jira.event.ClearCacheEvent;
+import com.atlassian.jira.event.workflow.WorkflowDeletedEvent;
+import com.atlassian.jira.event.workflow.WorkflowUpdatedEvent;
+import com.atlassian.jira.issue.Issue;
+import com.atlassian.jira.issue.status.Status;
+import com.atlassian.jira.workflow.JiraWorkflow;
+import com.atlassian.jira.workflow.WorkflowManager;
+import com.opensymphony.workflow.loader.ActionDescriptor;
+import com.opensymphony.workflow.loader.ResultDescriptor;
+import com.opensymphony.workflow.loader.StepDescriptor;
+import com.opensymphony.workflow.loader.WorkflowDescriptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of workflow transition graphs for moving issues to a status by name
+ *
+ * Each workflow is read once into a graph of status -> outgoing transitions, keyed by
+ * workflow name and last update time. For every target status asked for, one reverse
+ * BFS over the graph records the next transition on a shortest path from each status,
+ * so an issue can be moved to a status several transitions away without walking the
+ * workflow again. Graphs are dropped when a workflow is published or deleted, and
+ * when Jira clears its caches.
+ *
+ * Transition conditions are not part of the graph, so a shortest path can start with
+ * a transition that a particular issue or user is not allowed to take.
+ */
+@Component
+public class WorkflowTransitionCache implements InitializingBean, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(WorkflowTransitionCache.class);
+
+    // OSWorkflow result step meaning "stay in the current step"
+    private static final int SAME_STEP = -1;
+
+    private final WorkflowManager workflowManager;
+    private final EventPublisher eventPublisher;
+    private final Map<WorkflowKey, TransitionGraph> graphs = new ConcurrentHashMap<>();
+
+    // Statistics
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @Autowired
+    public WorkflowTransitionCache(WorkflowManager workflowManager, EventPublisher eventPublisher) {
+        this.workflowManager = workflowManager;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        eventPublisher.register(this);
+    }
+
+    @Override
+    public void destroy() {
+        eventPublisher.unregister(this);
+        graphs.clear();
+    }
+
+    /**
+     * Get the next transition on a shortest path from the issue's status to the target status
+     *
+     * @param targetStatus status name, case-insensitive
+     * @return the transition, or null if the issue is already in the target status or cannot reach it
+     */
+    public Transition nextTransition(Issue issue, String targetStatus) {
+        JiraWorkflow workflow = workflowManager.getWorkflow(issue);
+        if (workflow == null || issue.getStatus() == null) {
+            return null;
+        }
+        return graphFor(workflow).nextHops(targetStatus).get(issue.getStatus().getId());
+    }
+
+    private TransitionGraph graphFor(JiraWorkflow workflow) {
+        WorkflowKey key = WorkflowKey.of(workflow);
+        TransitionGraph graph = graphs.get(key);
+        if (graph != null) {
+            hits.incrementAndGet();
+            return graph;
+        }
+
+        misses.incrementAndGet();
+        graph = TransitionGraph.build(workflow);
+        // Older versions of the same workflow are no longer used
+        graphs.keySet().removeIf(existing -> existing.name.equals(key.name) && !existing.equals(key));
+        graphs.put(key, graph);
+        log.debug("Built transition graph for workflow {} with {} statuses", key.name, graph.statusNames.size());
+        return graph;
+    }
+
+    @EventListener
+    public void onWorkflowUpdated(WorkflowUpdatedEvent event) {
+        invalidateAll();
+    }
+
+    @EventListener
+    public void onWorkflowDeleted(WorkflowDeletedEvent event) {
+        invalidateAll();
+    }
+
+    @EventListener
+    public void onClearCache(ClearCacheEvent event) {
+        invalidateAll();
+    }
+
+    /**
+     * Drop all graphs; they are rebuilt on next use
+     */
+    public void invalidateAll() {
+        if (!graphs.isEmpty()) {
+            graphs.clear();
+            invalidations.incrementAndGet();
+        }
+    }
+
+    /**
+     * Get cache statistics for monitoring
+     */
+    public Map<String, Object> getStatistics() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("workflows", graphs.size());
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRatio", hitCount + missCount > 0 ? (double) hitCount / (hitCount + missCount) : 0.0);
+        stats.put("invalidations", invalidations.get());
+        return stats;
+    }
+
+    /**
+     * A workflow transition from one status to another
+     */
+    public static final class Transition {
+        private final int id;
+        private final String name;
+        private final String fromStatusId;
+        private final String toStatusId;
+        private final String toStatusName;
+
+        Transition(int id, String name, String fromStatusId, String toStatusId, String toStatusName) {
+            this.id = id;
+            this.name = name;
+            this.fromStatusId = fromStatusId;
+            this.toStatusId = toStatusId;
+            this.toStatusName = toStatusName;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getFromStatusId() {
+            return fromStatusId;
+        }
+
+        public String getToStatusId() {
+            return toStatusId;
+        }
+
+        public String getToStatusName() {
+            return toStatusName;
+        }
+    }
+
+    /**
+     * Statuses and transitions of one workflow version, with next hops memoized per target status
+     */
+    private static final class TransitionGraph {
+        private final Map<String, String> statusNames;
+        // Transitions by destination status, for the reverse search
+        private final Map<String, List<Transition>> incoming;
+        private final Map<String, Map<String, Transition>> nextHopsByTarget = new ConcurrentHashMap<>();
+
+        private TransitionGraph(Map<String, String> statusNames, Map<String, List<Transition>> incoming) {
+            this.statusNames = statusNames;
+            this.incoming = incoming;
+        }
+
+        @SuppressWarnings("unchecked")
+        static TransitionGraph build(JiraWorkflow workflow) {
+            WorkflowDescriptor descriptor = workflow.getDescriptor();
+            List<ActionDescriptor> globalActions = descriptor.getGlobalActions() != null
+                    ? descriptor.getGlobalActions() : Collections.<ActionDescriptor>emptyList();
+            Map<Integer, ActionDescriptor> commonActions = descriptor.getCommonActions() != null
+                    ? descriptor.getCommonActions() : Collections.<Integer, ActionDescriptor>emptyMap();
+
+            Map<String, String> statusNames = new HashMap<>();
+            Map<String, List<Transition>> incoming = new HashMap<>();
+            for (Status status : workflow.getLinkedStatusObjects()) {
+                statusNames.put(status.getId(), status.getName());
+                StepDescriptor step = workflow.getLinkedStep(status);
+                if (step == null) {
+                    continue;
+                }
+
+                List<ActionDescriptor> actions = new ArrayList<>((List<ActionDescriptor>) step.getActions());
+                if (step.getCommonActions() != null) {
+                    for (Object actionId : step.getCommonActions()) {
+                        ActionDescriptor action = commonActions.get(actionId);
+                        if (action != null) {
+                            actions.add(action);
+                        }
+                    }
+                }
+                actions.addAll(globalActions);
+
+                for (ActionDescriptor action : actions) {
+                    Status destination = destinationOf(workflow, descriptor, action);
+                    if (destination != null && !destination.getId().equals(status.getId())) {
+                        incoming.computeIfAbsent(destination.getId(), id -> new ArrayList<>())
+                                .add(new Transition(action.getId(), action.getName(), status.getId(),
+                                        destination.getId(), destination.getName()));
+                    }
+                }
+            }
+            return new TransitionGraph(statusNames, incoming);
+        }
+
+        private static Status destinationOf(JiraWorkflow workflow, WorkflowDescriptor descriptor,
+                                            ActionDescriptor action) {
+            ResultDescriptor result = action.getUnconditionalResult();
+            if (result == null || result.getStep() == SAME_STEP) {
+                return null;
+            }
+            StepDescriptor step = descriptor.getStep(result.getStep());
+            return step != null ? workflow.getLinkedStatusObject(step) : null;
+        }
+
+        /**
+         * Next transition on a shortest path to the target, by current status id
+         */
+        Map<String, Transition> nextHops(String targetStatus) {
+            return nextHopsByTarget.computeIfAbsent(targetStatus.toLowerCase(Locale.ROOT), this::searchFrom);
+        }
+
+        /**
+         * Breadth-first search backwards from the statuses with the target name
+         */
+        private Map<String, Transition> searchFrom(String targetStatus) {
+            Map<String, Transition> nextHops = new HashMap<>();
+            Deque<String> queue = new ArrayDeque<>();
+            for (Map.Entry<String, String> status : statusNames.entrySet()) {
+                if (status.getValue() != null && status.getValue().equalsIgnoreCase(targetStatus)) {
+                    queue.add(status.getKey());
+                }
+            }
+            List<String> targets = new ArrayList<>(queue);
+
+            while (!queue.isEmpty()) {
+                String statusId = queue.poll();
+                for (Transition transition : incoming.getOrDefault(statusId, Collections.<Transition>emptyList())) {
+                    String from = transition.getFromStatusId();
+                    if (!targets.contains(from) && !nextHops.containsKey(from)) {
+                        nextHops.put(from, transition);
+                        queue.add(from);
+                    }
+                }
+            }
+            return Collections.unmodifiableMap(nextHops);
+        }
+    }
+
+    /**
+     * Workflow identity: name plus last update, so a published change is a new key
+     */
+    private static final class WorkflowKey {
+        private final String name;
+        private final long updated;
+
+        private WorkflowKey(String name, long updated) {
+            this.name = name;
+            this.updated = updated;
+        }
+
+        static WorkflowKey of(JiraWorkflow workflow) {
+            Date updatedDate = workflow.getUpdatedDate();
+            return new WorkflowKey(workflow.getName(), updatedDate != null ? updatedDate.getTime() : 0);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof WorkflowKey)) {
+                return false;
+            }
+            WorkflowKey other = (WorkflowKey) o;
+            return updated == other.updated && name.equals(other.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(name, updated);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.healthcanada.jira.github.storage;
+
+import com.healthcanada.jira.github.model.GitHubConfig;
+
+/**
+ * Callback for components that need to react when the plugin configuration changes
+ */
+public interface ConfigurationListener {
+
+    /**
+     * Called after the configuration has been saved or deleted
+     *
+     * @param config The configuration now in effect (empty config after a delete)
+     */
+    void onConfigurationChanged(GitHubConfig config);
+}
@@ -0,0 +1,50 @@
+package com.healthcanada.jira.github.storage;
+
+import com.healthcanada.jira.github.model.GitHubConfig;
+
+/**
+ * Immutable, versioned view of the decrypted plugin configuration
+ * A new snapshot is published on every save, delete or cluster invalidation
+ */
+public final class ConfigurationSnapshot {
+
+    private final long version;
+    private final GitHubConfig config;
+    private final boolean stored;
+    private final long loadedAt;
+
+    ConfigurationSnapshot(long version, GitHubConfig config, boolean stored) {
+        this.version = version;
+        this.config = config.freeze();
+        this.stored = stored;
+        this.loadedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Monotonic version, incremented each time the snapshot is rebuilt on this node
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Read-only configuration (tokens already decrypted)
+     */
+    public GitHubConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Whether a configuration was present in plugin settings when loaded
+     */
+    public boolean isStored() {
+        return stored;
+    }
+
+    /**
+     * Time the snapshot was built, in epoch milliseconds
+     */
+    public long getLoadedAt() {
+        return loadedAt;
+    }
+}
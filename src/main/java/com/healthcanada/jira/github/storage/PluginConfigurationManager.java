@@ -1,5 +1,7 @@
 package com.healthcanada.jira.github.storage;
 
+import com.atlassian.jira.cluster.ClusterMessageConsumer;
+import com.atlassian.jira.cluster.ClusterMessagingService;
 import com.atlassian.sal.api.pluginsettings.PluginSettings;
 import com.atlassian.sal.api.pluginsettings.PluginSettingsFactory;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -7,49 +9,122 @@ import com.healthcanada.jira.github.model.GitHubConfig;
 import com.healthcanada.jira.github.security.TokenEncryption;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * Manages plugin configuration persistence using Jira's PluginSettings
+ * Reads are served from an immutable in-memory snapshot that is rebuilt only
+ * when the configuration is saved or deleted (on any node of the cluster)
  */
 @Component
-public class PluginConfigurationManager {
+public class PluginConfigurationManager implements DisposableBean {
 
     private static final Logger log = LoggerFactory.getLogger(PluginConfigurationManager.class);
     private static final String STORAGE_KEY = "com.healthcanada.jira.github.config";
 
+    // Cluster channel names are limited to 20 characters
+    private static final String CLUSTER_CHANNEL = "GHI-ConfigChanged";
+
     private final PluginSettingsFactory pluginSettingsFactory;
     private final TokenEncryption tokenEncryption;
+    private final ClusterMessagingService clusterMessagingService;
     private final ObjectMapper objectMapper;
+    private final List<ConfigurationListener> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong versionCounter = new AtomicLong();
+    private final Object reloadLock = new Object();
+    // Serializes writes of the stored JSON on this node; never held while reloading
+    private final Object storageLock = new Object();
+
+    // Held as a field: the messaging service only keeps weak references to consumers
+    private final ClusterMessageConsumer clusterConsumer = new ClusterMessageConsumer() {
+        @Override
+        public void receive(String channel, String message, String senderId) {
+            log.debug("Configuration invalidated by cluster node {}", senderId);
+            reload();
+        }
+    };
+
+    private volatile ConfigurationSnapshot snapshot;
 
     @Autowired
-    public PluginConfigurationManager(PluginSettingsFactory pluginSettingsFactory, TokenEncryption tokenEncryption) {
+    public PluginConfigurationManager(PluginSettingsFactory pluginSettingsFactory,
+                                      TokenEncryption tokenEncryption,
+                                      ClusterMessagingService clusterMessagingService) {
         this.pluginSettingsFactory = pluginSettingsFactory;
         this.tokenEncryption = tokenEncryption;
+        this.clusterMessagingService = clusterMessagingService;
         this.objectMapper = new ObjectMapper();
+        clusterMessagingService.registerListener(CLUSTER_CHANNEL, clusterConsumer);
+    }
+
+    /**
+     * Get the current configuration snapshot, loading it on first use
+     */
+    public ConfigurationSnapshot getSnapshot() {
+        ConfigurationSnapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+
+        synchronized (reloadLock) {
+            if (snapshot == null) {
+                snapshot = loadSnapshot();
+            }
+            return snapshot;
+        }
     }
 
     /**
      * Load configuration from plugin settings
+     * The returned instance is a shared read-only snapshot; use
+     * {@link #getEditableConfiguration()} when the result will be modified
      */
     public GitHubConfig getConfiguration() {
+        return getSnapshot().getConfig();
+    }
+
+    /**
+     * Get a mutable deep copy of the current configuration
+     */
+    public GitHubConfig getEditableConfiguration() {
+        GitHubConfig config = getConfiguration();
+        try {
+            return objectMapper.readValue(objectMapper.writeValueAsString(config), GitHubConfig.class);
+        } catch (Exception e) {
+            log.error("Failed to copy configuration", e);
+            return new GitHubConfig();
+        }
+    }
+
+    /**
+     * Read, parse and decrypt the stored configuration into a new snapshot
+     */
+    private ConfigurationSnapshot loadSnapshot() {
+        long version = versionCounter.incrementAndGet();
         try {
             PluginSettings settings = pluginSettingsFactory.createGlobalSettings();
             String configJson = (String) settings.get(STORAGE_KEY);
 
             if (configJson == null || configJson.isEmpty()) {
                 log.debug("No configuration found, returning empty config");
-                return new GitHubConfig();
+                return new ConfigurationSnapshot(version, new GitHubConfig(), false);
             }
 
             GitHubConfig config = objectMapper.readValue(configJson, GitHubConfig.class);
+            boolean legacyEncryption = false;
 
             // Decrypt sensitive fields
             if (config.getGithubToken() != null && !config.getGithubToken().isEmpty()) {
                 try {
-                    String decryptedToken = tokenEncryption.decrypt(config.getGithubToken());
-                    config.setGithubToken(decryptedToken);
+                    String storedToken = config.getGithubToken();
+                    config.setGithubToken(tokenEncryption.decrypt(storedToken));
+                    legacyEncryption = tokenEncryption.isLegacyFormat(storedToken);
                 } catch (Exception e) {
                     log.error("Failed to decrypt GitHub token", e);
                     // Leave encrypted, will fail validation
@@ -58,22 +133,76 @@ public class PluginConfigurationManager {
 
             if (config.getWebhookSecret() != null && !config.getWebhookSecret().isEmpty()) {
                 try {
-                    String decryptedSecret = tokenEncryption.decrypt(config.getWebhookSecret());
-                    config.setWebhookSecret(decryptedSecret);
+                    String storedSecret = config.getWebhookSecret();
+                    config.setWebhookSecret(tokenEncryption.decrypt(storedSecret));
+                    legacyEncryption |= tokenEncryption.isLegacyFormat(storedSecret);
                 } catch (Exception e) {
                     log.error("Failed to decrypt webhook secret", e);
                 }
             }
 
-            log.debug("Loaded configuration for {} repositories", config.getRepositories().size());
-            return config;
+            if (legacyEncryption) {
+                migrateEncryption(settings, configJson);
+            }
+
+            log.debug("Loaded configuration version {} for {} repositories", version, config.getRepositories().size());
+            return new ConfigurationSnapshot(version, config, true);
 
         } catch (Exception e) {
             log.error("Failed to load configuration", e);
-            return new GitHubConfig();
+            return new ConfigurationSnapshot(version, new GitHubConfig(), false);
+        }
+    }
+
+    /**
+     * Re-encrypt secrets stored in the legacy format; the stored JSON is otherwise kept as is
+     * Values that cannot be decrypted are left untouched. The migration is skipped if the
+     * stored JSON changed since it was read, so a concurrent save is never overwritten.
+     */
+    private void migrateEncryption(PluginSettings settings, String configJson) {
+        try {
+            GitHubConfig stored = objectMapper.readValue(configJson, GitHubConfig.class);
+            stored.setGithubToken(reencrypt(stored.getGithubToken()));
+            stored.setWebhookSecret(reencrypt(stored.getWebhookSecret()));
+            String migratedJson = objectMapper.writeValueAsString(stored);
+            synchronized (storageLock) {
+                if (!configJson.equals(settings.get(STORAGE_KEY))) {
+                    log.debug("Configuration changed while loading, leaving credential migration to the next load");
+                    return;
+                }
+                settings.put(STORAGE_KEY, migratedJson);
+            }
+            log.info("Re-encrypted stored GitHub credentials in the current format");
+        } catch (Exception e) {
+            log.warn("Failed to re-encrypt stored GitHub credentials, will retry on next load", e);
         }
     }
 
+    private String reencrypt(String value) throws Exception {
+        if (!tokenEncryption.isLegacyFormat(value)) {
+            return value;
+        }
+        String plainText;
+        try {
+            plainText = tokenEncryption.decrypt(value);
+        } catch (Exception e) {
+            return value;
+        }
+        return tokenEncryption.encrypt(plainText);
+    }
+
+    /**
+     * Rebuild the snapshot from plugin settings and notify listeners
+     */
+    public void reload() {
+        ConfigurationSnapshot reloaded;
+        synchronized (reloadLock) {
+            reloaded = loadSnapshot();
+            snapshot = reloaded;
+        }
+        notifyListeners(reloaded.getConfig());
+    }
+
     /**
      * Save configuration to plugin settings
      */
@@ -104,7 +233,9 @@ public class PluginConfigurationManager {
             String configJson = objectMapper.writeValueAsString(configToSave);
 
             PluginSettings settings = pluginSettingsFactory.createGlobalSettings();
-            settings.put(STORAGE_KEY, configJson);
+            synchronized (storageLock) {
+                settings.put(STORAGE_KEY, configJson);
+            }
 
             log.info("Configuration saved successfully for {} repositories", config.getRepositories().size());
 
@@ -112,6 +243,9 @@ public class PluginConfigurationManager {
             log.error("Failed to save configuration", e);
             throw new Exception("Failed to save configuration: " + e.getMessage(), e);
         }
+
+        reload();
+        broadcastInvalidation();
     }
 
     /**
@@ -120,24 +254,66 @@ public class PluginConfigurationManager {
     public void deleteConfiguration() {
         try {
             PluginSettings settings = pluginSettingsFactory.createGlobalSettings();
-            settings.remove(STORAGE_KEY);
+            synchronized (storageLock) {
+                settings.remove(STORAGE_KEY);
+            }
             log.info("Configuration deleted");
         } catch (Exception e) {
             log.error("Failed to delete configuration", e);
+            return;
         }
+
+        reload();
+        broadcastInvalidation();
     }
 
     /**
      * Check if configuration exists
      */
     public boolean hasConfiguration() {
+        return getSnapshot().isStored();
+    }
+
+    /**
+     * Register a listener to be notified when the configuration changes
+     */
+    public void addConfigurationListener(ConfigurationListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Unregister a previously added configuration listener
+     */
+    public void removeConfigurationListener(ConfigurationListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Notify listeners of the configuration now in effect
+     */
+    private void notifyListeners(GitHubConfig config) {
+        for (ConfigurationListener listener : listeners) {
+            try {
+                listener.onConfigurationChanged(config);
+            } catch (Exception e) {
+                log.error("Configuration listener {} failed", listener.getClass().getSimpleName(), e);
+            }
+        }
+    }
+
+    /**
+     * Tell other Data Center nodes to drop their snapshot
+     */
+    private void broadcastInvalidation() {
         try {
-            PluginSettings settings = pluginSettingsFactory.createGlobalSettings();
-            String configJson = (String) settings.get(STORAGE_KEY);
-            return configJson != null && !configJson.isEmpty();
+            clusterMessagingService.sendRemote(CLUSTER_CHANNEL, String.valueOf(snapshot.getVersion()));
         } catch (Exception e) {
-            log.error("Failed to check configuration existence", e);
-            return false;
+            log.warn("Failed to broadcast configuration change to cluster: {}", e.getMessage());
         }
     }
+
+    @Override
+    public void destroy() {
+        clusterMessagingService.unregisterListener(CLUSTER_CHANNEL, clusterConsumer);
+    }
 }
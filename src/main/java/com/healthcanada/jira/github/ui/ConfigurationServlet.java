@@ -102,10 +102,13 @@ public class ConfigurationServlet extends HttpServlet {
             displayConfig.setGithubEnterpriseUrl(config.getGithubEnterpriseUrl());
             displayConfig.setGithubApiUrl(config.getGithubApiUrl());
             displayConfig.setTrustCustomCertificates(config.isTrustCustomCertificates());
+            displayConfig.setMaxConnections(config.getMaxConnections());
+            displayConfig.setMaxConnectionsPerRoute(config.getMaxConnectionsPerRoute());
             displayConfig.setWebhookUrl(config.getWebhookUrl());
             displayConfig.setBranchNaming(config.getBranchNaming());
             displayConfig.setRepositories(config.getRepositories());
             displayConfig.setTransitionMappings(config.getTransitionMappings());
+            displayConfig.setIntegrationUser(config.getIntegrationUser());
 
             // Mask tokens
             displayConfig.setGithubToken(config.getGithubToken() != null ? "********" : null);
@@ -129,6 +132,8 @@ public class ConfigurationServlet extends HttpServlet {
         // Default values for new configuration
         context.put("defaultBaseBranch", "main");
         context.put("defaultBranchNaming", "feature/{issueKey}-{summary}");
+        context.put("defaultMaxConnections", GitHubConfig.DEFAULT_MAX_CONNECTIONS);
+        context.put("defaultMaxConnectionsPerRoute", GitHubConfig.DEFAULT_MAX_CONNECTIONS_PER_ROUTE);
         context.put("defaultTransitionMappings", getDefaultTransitionMappings());
 
         // Help text and documentation links
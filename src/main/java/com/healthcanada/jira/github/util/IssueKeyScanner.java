@@ -0,0 +1,203 @@
+package com.healthcanada.jira.github.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Finds Jira issue keys (PROJ-123) for a fixed set of project keys
+ *
+ * Project keys are compiled into a trie over A-Z, 0-9 and underscore. Text is
+ * scanned once: at every word start the trie is walked, and a key is reported
+ * only when a known project key is followed by '-', digits and a word boundary.
+ * Strings like "UTF-8" or "SHA-256" are therefore ignored unless UTF or SHA is
+ * a configured project. No regex or Matcher objects are created; the only
+ * allocations are the returned key strings.
+ */
+public final class IssueKeyScanner {
+
+    private static final int ALPHABET = 37;
+    private static final int NO_NODE = -1;
+
+    // next[node * ALPHABET + symbol] is the child node, or NO_NODE
+    private final int[] next;
+    private final boolean[] terminal;
+
+    public IssueKeyScanner(Collection<String> projectKeys) {
+        List<int[]> rows = new ArrayList<>();
+        List<Boolean> ends = new ArrayList<>();
+        rows.add(newRow());
+        ends.add(Boolean.FALSE);
+
+        for (String projectKey : projectKeys) {
+            if (projectKey == null) {
+                continue;
+            }
+            String key = projectKey.trim().toUpperCase(Locale.ROOT);
+            if (!isValidProjectKey(key)) {
+                continue;
+            }
+
+            int node = 0;
+            for (int i = 0; i < key.length(); i++) {
+                int symbol = symbol(key.charAt(i));
+                int child = rows.get(node)[symbol];
+                if (child == NO_NODE) {
+                    child = rows.size();
+                    rows.get(node)[symbol] = child;
+                    rows.add(newRow());
+                    ends.add(Boolean.FALSE);
+                }
+                node = child;
+            }
+            ends.set(node, Boolean.TRUE);
+        }
+
+        this.next = new int[rows.size() * ALPHABET];
+        this.terminal = new boolean[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            System.arraycopy(rows.get(i), 0, next, i * ALPHABET, ALPHABET);
+            terminal[i] = ends.get(i);
+        }
+    }
+
+    /**
+     * Find the first issue key in the text
+     *
+     * @return the issue key, or null if none is present
+     */
+    public String findFirst(CharSequence text) {
+        if (text == null) {
+            return null;
+        }
+        for (int start = 0; start < text.length(); start++) {
+            int end = matchAt(text, start);
+            if (end > 0) {
+                return text.subSequence(start, end).toString();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Find all distinct issue keys in the text, in order of appearance
+     */
+    public List<String> findAll(CharSequence text) {
+        Set<String> keys = new LinkedHashSet<>();
+        findAll(text, keys);
+        return new ArrayList<>(keys);
+    }
+
+    /**
+     * Add all issue keys in the text to the set
+     */
+    public void findAll(CharSequence text, Set<String> keys) {
+        if (text == null) {
+            return;
+        }
+        int start = 0;
+        while (start < text.length()) {
+            int end = matchAt(text, start);
+            if (end > 0) {
+                keys.add(text.subSequence(start, end).toString());
+                start = end;
+            } else {
+                start++;
+            }
+        }
+    }
+
+    /**
+     * Check whether the scanner knows any project keys
+     */
+    public boolean isEmpty() {
+        return terminal.length == 1;
+    }
+
+    /**
+     * Match an issue key starting at the given position
+     *
+     * @return the end index of the key, or -1 if no key starts here
+     */
+    private int matchAt(CharSequence text, int start) {
+        if (start > 0 && isWordChar(text.charAt(start - 1))) {
+            return -1;
+        }
+
+        int length = text.length();
+        int node = 0;
+        for (int i = start; i < length; i++) {
+            char c = text.charAt(i);
+            if (c == '-' && terminal[node]) {
+                return matchNumber(text, i + 1);
+            }
+            int symbol = symbol(c);
+            if (symbol < 0) {
+                return -1;
+            }
+            node = next[node * ALPHABET + symbol];
+            if (node == NO_NODE) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Match the issue number and the boundary after it
+     */
+    private static int matchNumber(CharSequence text, int from) {
+        int i = from;
+        while (i < text.length() && isDigit(text.charAt(i))) {
+            i++;
+        }
+        if (i == from || (i < text.length() && isWordChar(text.charAt(i)))) {
+            return -1;
+        }
+        return i;
+    }
+
+    private static boolean isValidProjectKey(String key) {
+        if (key.isEmpty() || !isLetter(key.charAt(0))) {
+            return false;
+        }
+        for (int i = 1; i < key.length(); i++) {
+            if (symbol(key.charAt(i)) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int[] newRow() {
+        int[] row = new int[ALPHABET];
+        Arrays.fill(row, NO_NODE);
+        return row;
+    }
+
+    private static int symbol(char c) {
+        if (isLetter(c)) {
+            return c - 'A';
+        }
+        if (isDigit(c)) {
+            return 26 + (c - '0');
+        }
+        return c == '_' ? 36 : -1;
+    }
+
+    private static boolean isLetter(char c) {
+        return c >= 'A' && c <= 'Z';
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isWordChar(char c) {
+        return isLetter(c) || isDigit(c) || (c >= 'a' && c <= 'z');
+    }
+}
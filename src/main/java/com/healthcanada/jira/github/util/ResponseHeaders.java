@@ -0,0 +1,55 @@
+package com.healthcanada.jira.github.util;
+
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.utils.DateUtils;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of the numeric and date headers GitHub uses for rate limiting
+ */
+public final class ResponseHeaders {
+
+    private ResponseHeaders() {
+        // Utility class, prevent instantiation
+    }
+
+    /**
+     * Get a header as a number
+     *
+     * @return the value, or -1 if the header is missing or not a number
+     */
+    public static long getLong(HttpResponse response, String name) {
+        Header header = response.getFirstHeader(name);
+        if (header == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(header.getValue().trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Get the wait requested by a Retry-After header, given either in seconds or as an HTTP-date
+     *
+     * @return milliseconds from {@code nowMillis}, or -1 if the header is missing or malformed
+     */
+    public static long getRetryAfterMillis(HttpResponse response, long nowMillis) {
+        Header header = response.getFirstHeader("Retry-After");
+        if (header == null) {
+            return -1;
+        }
+        String value = header.getValue().trim();
+        try {
+            long seconds = Long.parseLong(value);
+            return seconds >= 0 ? TimeUnit.SECONDS.toMillis(seconds) : -1;
+        } catch (NumberFormatException e) {
+            Date date = DateUtils.parseDate(value);
+            return date != null ? Math.max(0, date.getTime() - nowMillis) : -1;
+        }
+    }
+}
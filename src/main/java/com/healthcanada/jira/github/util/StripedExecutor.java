@@ -0,0 +1,207 @@
+package com.healthcanada.jira.github.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Executor that runs tasks with the same key strictly in submission order
+ * while tasks with different keys run in parallel
+ *
+ * Keys are hashed onto a fixed number of lanes, each drained by one thread.
+ * execute() never blocks, so a producer feeding many lanes is not held up by one
+ * slow lane. Producers slow down with awaitCapacity() instead, which waits until
+ * a lane's backlog is below its capacity.
+ */
+public class StripedExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(StripedExecutor.class);
+    private static final long POLL_INTERVAL_MS = 100;
+
+    private final Lane[] lanes;
+    private final long startedAtNanos = System.nanoTime();
+    private volatile boolean shutdown;
+
+    public StripedExecutor(String name, int laneCount, int laneCapacity) {
+        this.lanes = new Lane[Math.max(1, laneCount)];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new Lane(name + "-" + (i + 1), Math.max(1, laneCapacity));
+            lanes[i].thread.start();
+        }
+    }
+
+    /**
+     * Queue a task on the lane for the key without waiting, even if the lane is over capacity
+     *
+     * @throws RejectedExecutionException if the executor is shut down
+     */
+    public void execute(String key, Runnable task) {
+        if (shutdown) {
+            throw new RejectedExecutionException("Executor is shut down");
+        }
+        laneFor(key).queue.add(task);
+    }
+
+    /**
+     * Wait until the backlog of the lane for the key is below its capacity, or the executor is shut down
+     */
+    public void awaitCapacity(String key) throws InterruptedException {
+        laneFor(key).awaitCapacity();
+    }
+
+    private Lane laneFor(String key) {
+        int hash = key != null ? key.hashCode() : 0;
+        hash ^= hash >>> 16;
+        return lanes[Math.floorMod(hash, lanes.length)];
+    }
+
+    public int getLaneCount() {
+        return lanes.length;
+    }
+
+    /**
+     * Get per-lane backlog and utilisation for monitoring
+     */
+    public Map<String, Object> getStatistics() {
+        long elapsed = Math.max(1, System.nanoTime() - startedAtNanos);
+        List<Map<String, Object>> laneStats = new ArrayList<>();
+        int backlog = 0;
+        long busyTotal = 0;
+
+        for (Lane lane : lanes) {
+            long busy = lane.busyNanos();
+            backlog += lane.queue.size();
+            busyTotal += busy;
+
+            Map<String, Object> stats = new HashMap<>();
+            stats.put("name", lane.thread.getName());
+            stats.put("backlog", lane.queue.size());
+            stats.put("completed", lane.completed.get());
+            stats.put("failed", lane.failed.get());
+            stats.put("utilisationPercent", Math.round(busy * 100.0 / elapsed));
+            laneStats.add(stats);
+        }
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("lanes", lanes.length);
+        stats.put("backlog", backlog);
+        stats.put("utilisationPercent", Math.round(busyTotal * 100.0 / elapsed / lanes.length));
+        stats.put("laneDetails", laneStats);
+        return stats;
+    }
+
+    /**
+     * Stop accepting tasks and wait for queued tasks to finish
+     *
+     * @return false if some lanes were still busy when the timeout expired
+     */
+    public boolean shutdown(long timeout, TimeUnit unit) {
+        shutdown = true;
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        boolean terminated = true;
+
+        for (Lane lane : lanes) {
+            try {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining > 0) {
+                    lane.thread.join(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (lane.thread.isAlive()) {
+                terminated = false;
+                lane.thread.interrupt();
+            }
+        }
+        return terminated;
+    }
+
+    /**
+     * A queue drained in order by a single thread
+     */
+    private final class Lane implements Runnable {
+        private final BlockingQueue<Runnable> queue = new LinkedBlockingQueue<>();
+        private final int capacity;
+        private final Thread thread;
+        private final AtomicLong completed = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong finishedBusyNanos = new AtomicLong();
+        private volatile long taskStartedNanos;
+        // Producers in awaitCapacity, guarded by the lane's monitor
+        private volatile int waiting;
+
+        Lane(String name, int capacity) {
+            this.capacity = capacity;
+            this.thread = new Thread(this, name);
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (!shutdown || !queue.isEmpty()) {
+                Runnable task;
+                try {
+                    task = queue.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    break;
+                }
+                if (task == null) {
+                    continue;
+                }
+                if (waiting > 0) {
+                    synchronized (this) {
+                        notifyAll();
+                    }
+                }
+
+                long started = System.nanoTime();
+                taskStartedNanos = started;
+                try {
+                    task.run();
+                    completed.incrementAndGet();
+                } catch (RuntimeException e) {
+                    failed.incrementAndGet();
+                    log.error("Task failed on {}", thread.getName(), e);
+                } finally {
+                    taskStartedNanos = 0;
+                    finishedBusyNanos.addAndGet(System.nanoTime() - started);
+                }
+            }
+        }
+
+        void awaitCapacity() throws InterruptedException {
+            if (queue.size() < capacity) {
+                return;
+            }
+            synchronized (this) {
+                waiting++;
+                try {
+                    while (queue.size() >= capacity && !shutdown) {
+                        wait(POLL_INTERVAL_MS);
+                    }
+                } finally {
+                    waiting--;
+                }
+            }
+        }
+
+        /**
+         * Busy time including the task currently running
+         */
+        long busyNanos() {
+            long started = taskStartedNanos;
+            long busy = finishedBusyNanos.get();
+            return started != 0 ? busy + (System.nanoTime() - started) : busy;
+        }
+    }
+}
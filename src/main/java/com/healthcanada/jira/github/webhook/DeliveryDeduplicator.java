@@ -0,0 +1,342 @@
+package com.healthcanada.jira.github.webhook;
+
+import com.atlassian.jira.config.util.JiraHome;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Detects GitHub redeliveries by their X-GitHub-Delivery GUID
+ *
+ * Recent delivery IDs live in a bounded LRU map; IDs evicted from it move into a
+ * pair of rotating Bloom filters so the rest of the time window is still covered
+ * in a few hundred kilobytes. A Bloom filter match is treated as a duplicate, so
+ * each filter is sized to stay below 0.1% false positives up to about 145k IDs.
+ *
+ * State is written to a snapshot file under the Jira local home every few minutes
+ * and on shutdown, and reloaded on startup.
+ *
+ * Tuned with system properties github.integration.webhook.dedupEntries (default 10000)
+ * and github.integration.webhook.dedupWindowHours (default 24).
+ */
+@Component
+public class DeliveryDeduplicator implements InitializingBean, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(DeliveryDeduplicator.class);
+
+    private static final String SNAPSHOT_FILE = "data/github-integration/delivery-dedup.bin";
+    private static final int SNAPSHOT_MAGIC = 0x47484444; // "GHDD"
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final long SNAPSHOT_INTERVAL_MINUTES = 5;
+
+    private static final int DEFAULT_MAX_ENTRIES = 10000;
+    private static final int DEFAULT_WINDOW_HOURS = 24;
+
+    // Bloom filter sizing per generation: 2^21 bits (256 KB) and 10 hashes give (1 - e^(-10n/2^21))^10,
+    // about 0.006% false positives at n = 100k IDs and 0.1% at about 145k; both generations are checked
+    private static final int BLOOM_BITS = 1 << 21;
+    private static final int BLOOM_HASHES = 10;
+
+    private final File snapshotFile;
+    private final int maxEntries;
+    private final long windowMillis;
+    private final ScheduledExecutorService snapshotWriter;
+
+    private final LinkedHashMap<String, Long> recent;
+    private BloomFilter currentGeneration;
+    private BloomFilter previousGeneration;
+
+    // Statistics
+    private final AtomicLong lruHits = new AtomicLong();
+    private final AtomicLong bloomHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @Autowired
+    public DeliveryDeduplicator(JiraHome jiraHome) {
+        this(new File(jiraHome.getLocalHome(), SNAPSHOT_FILE),
+                Integer.getInteger("github.integration.webhook.dedupEntries", DEFAULT_MAX_ENTRIES),
+                TimeUnit.HOURS.toMillis(Integer.getInteger("github.integration.webhook.dedupWindowHours",
+                        DEFAULT_WINDOW_HOURS)));
+    }
+
+    DeliveryDeduplicator(File snapshotFile, int maxEntries, long windowMillis) {
+        this.snapshotFile = snapshotFile;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.windowMillis = windowMillis;
+        this.recent = new LinkedHashMap<>(16, 0.75f, true);
+        this.currentGeneration = new BloomFilter(System.currentTimeMillis());
+        this.previousGeneration = new BloomFilter(0);
+
+        this.snapshotWriter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "github-webhook-dedup-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        loadSnapshot();
+        snapshotWriter.scheduleWithFixedDelay(this::saveSnapshot,
+                SNAPSHOT_INTERVAL_MINUTES, SNAPSHOT_INTERVAL_MINUTES, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Record a delivery ID if it has not been seen within the window
+     *
+     * @return true if the delivery is new, false if it is a redelivery
+     */
+    public boolean markIfNew(String deliveryId) {
+        if (deliveryId == null || deliveryId.isEmpty()) {
+            return true;
+        }
+
+        long now = System.currentTimeMillis();
+        long hash = hash(deliveryId);
+
+        synchronized (this) {
+            rotateIfExpired(now);
+
+            Long seenAt = recent.get(deliveryId);
+            if (seenAt != null && now - seenAt < windowMillis) {
+                lruHits.incrementAndGet();
+                return false;
+            }
+
+            if (seenAt == null && (currentGeneration.mightContain(hash) || previousGeneration.mightContain(hash))) {
+                bloomHits.incrementAndGet();
+                return false;
+            }
+
+            recent.put(deliveryId, now);
+            evictOverflow();
+        }
+
+        misses.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Forget a delivery that was recorded but could not be accepted,
+     * so a redelivery of it is processed
+     */
+    public synchronized void forget(String deliveryId) {
+        if (deliveryId != null) {
+            recent.remove(deliveryId);
+        }
+    }
+
+    /**
+     * Move the oldest IDs out of the LRU map into the Bloom filter
+     */
+    private void evictOverflow() {
+        Iterator<Map.Entry<String, Long>> iterator = recent.entrySet().iterator();
+        while (recent.size() > maxEntries && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            currentGeneration.add(hash(eldest.getKey()));
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Drop the older Bloom generation once the current one spans a full window
+     */
+    private void rotateIfExpired(long now) {
+        if (now - currentGeneration.startedAt >= windowMillis) {
+            previousGeneration = currentGeneration;
+            currentGeneration = new BloomFilter(now);
+        }
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the delivery ID
+     */
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        // Final avalanche so both 32-bit halves are well mixed
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * Get deduplication statistics for monitoring
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        synchronized (this) {
+            stats.put("recentEntries", recent.size());
+        }
+        stats.put("maxEntries", maxEntries);
+        stats.put("windowHours", TimeUnit.MILLISECONDS.toHours(windowMillis));
+        stats.put("lruHits", lruHits.get());
+        stats.put("bloomHits", bloomHits.get());
+        stats.put("hits", lruHits.get() + bloomHits.get());
+        stats.put("misses", misses.get());
+        return stats;
+    }
+
+    /**
+     * Write the LRU entries and Bloom filters to the snapshot file
+     */
+    void saveSnapshot() {
+        File parent = snapshotFile.getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            log.warn("Cannot create directory for delivery dedup snapshot {}", parent);
+            return;
+        }
+
+        File temp = new File(snapshotFile.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            synchronized (this) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(SNAPSHOT_VERSION);
+                currentGeneration.writeTo(out);
+                previousGeneration.writeTo(out);
+                out.writeInt(recent.size());
+                for (Map.Entry<String, Long> entry : recent.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeLong(entry.getValue());
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed to write delivery dedup snapshot: {}", e.getMessage());
+            return;
+        }
+
+        if (!temp.renameTo(snapshotFile)) {
+            // Windows cannot rename over an existing file
+            if (!snapshotFile.delete() || !temp.renameTo(snapshotFile)) {
+                log.warn("Failed to replace delivery dedup snapshot {}", snapshotFile);
+            }
+        }
+    }
+
+    /**
+     * Restore state from the snapshot file, if present
+     */
+    private void loadSnapshot() {
+        if (!snapshotFile.isFile()) {
+            return;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(snapshotFile)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                log.warn("Ignoring delivery dedup snapshot with unknown format");
+                return;
+            }
+
+            BloomFilter current = BloomFilter.readFrom(in);
+            BloomFilter previous = BloomFilter.readFrom(in);
+            int count = in.readInt();
+            long now = System.currentTimeMillis();
+
+            synchronized (this) {
+                currentGeneration = current;
+                previousGeneration = previous;
+                for (int i = 0; i < count; i++) {
+                    String deliveryId = in.readUTF();
+                    long seenAt = in.readLong();
+                    if (now - seenAt < windowMillis) {
+                        recent.put(deliveryId, seenAt);
+                    }
+                }
+                rotateIfExpired(now);
+                evictOverflow();
+            }
+            log.info("Restored {} recent webhook delivery IDs from snapshot", count);
+        } catch (IOException e) {
+            log.warn("Failed to read delivery dedup snapshot: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        snapshotWriter.shutdown();
+        saveSnapshot();
+    }
+
+    /**
+     * Fixed-size Bloom filter using double hashing over a 64-bit hash
+     */
+    private static final class BloomFilter {
+        private final long startedAt;
+        private final long[] bits;
+
+        BloomFilter(long startedAt) {
+            this(startedAt, new long[BLOOM_BITS / 64]);
+        }
+
+        private BloomFilter(long startedAt, long[] bits) {
+            this.startedAt = startedAt;
+            this.bits = bits;
+        }
+
+        void add(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < BLOOM_HASHES; i++) {
+                int bit = ((h1 + i * h2) & Integer.MAX_VALUE) % BLOOM_BITS;
+                bits[bit >>> 6] |= 1L << bit;
+            }
+        }
+
+        boolean mightContain(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < BLOOM_HASHES; i++) {
+                int bit = ((h1 + i * h2) & Integer.MAX_VALUE) % BLOOM_BITS;
+                if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            out.writeLong(startedAt);
+            out.writeInt(bits.length);
+            for (long word : bits) {
+                out.writeLong(word);
+            }
+        }
+
+        static BloomFilter readFrom(DataInputStream in) throws IOException {
+            long startedAt = in.readLong();
+            int length = in.readInt();
+            if (length != BLOOM_BITS / 64) {
+                throw new IOException("Unexpected Bloom filter size " + length);
+            }
+            long[] bits = new long[length];
+            for (int i = 0; i < length; i++) {
+                bits[i] = in.readLong();
+            }
+            return new BloomFilter(startedAt, bits);
+        }
+    }
+}
@@ -1,12 +1,8 @@
 package com.healthcanada.jira.github.webhook;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.healthcanada.jira.github.model.GitHubConfig;
-import com.healthcanada.jira.github.model.WebhookPayload;
 import com.healthcanada.jira.github.security.WebhookValidator;
-import com.healthcanada.jira.github.service.SyncService;
 import com.healthcanada.jira.github.storage.PluginConfigurationManager;
-import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,25 +12,33 @@ import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 
 /**
  * Servlet that receives GitHub Enterprise webhook events
+ * Verifies the signature, queues the event and answers 202 Accepted;
+ * Jira updates happen on the webhook worker pool
  * Compatible with Jira 9.12+ and 10.3+
  */
 public class GitHubWebhookListener extends HttpServlet {
 
     private static final Logger log = LoggerFactory.getLogger(GitHubWebhookListener.class);
-    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    // GitHub caps webhook payloads at 25 MB
+    private static final int MAX_PAYLOAD_BYTES =
+            Integer.getInteger("github.integration.webhook.maxPayloadMb", 25) * 1024 * 1024;
 
     private final PluginConfigurationManager configManager;
-    private final SyncService syncService;
+    private final WebhookEventQueue eventQueue;
+    private final DeliveryDeduplicator deduplicator;
 
     // Constructor injection for Spring components
     @Autowired
-    public GitHubWebhookListener(PluginConfigurationManager configManager, SyncService syncService) {
+    public GitHubWebhookListener(PluginConfigurationManager configManager,
+                                 WebhookEventQueue eventQueue,
+                                 DeliveryDeduplicator deduplicator) {
         this.configManager = configManager;
-        this.syncService = syncService;
+        this.eventQueue = eventQueue;
+        this.deduplicator = deduplicator;
         log.info("GitHubWebhookListener initialized");
     }
 
@@ -48,16 +52,6 @@ public class GitHubWebhookListener extends HttpServlet {
         log.info("Received GitHub webhook: event={}, remoteAddr={}", eventType, request.getRemoteAddr());
 
         try {
-            // Read request body
-            String payload = IOUtils.toString(request.getInputStream(), StandardCharsets.UTF_8);
-
-            if (payload == null || payload.isEmpty()) {
-                log.warn("Received empty webhook payload");
-                response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
-                response.getWriter().write("{\"error\": \"Empty payload\"}");
-                return;
-            }
-
             // Load configuration
             GitHubConfig config = configManager.getConfiguration();
             if (!config.isValid() || config.getWebhookSecret() == null || config.getWebhookSecret().isEmpty()) {
@@ -76,41 +70,89 @@ public class GitHubWebhookListener extends HttpServlet {
                 return;
             }
 
-            boolean isValid = WebhookValidator.verifySignature(payload, signature, config.getWebhookSecret());
-            if (!isValid) {
+            if (request.getContentLength() > MAX_PAYLOAD_BYTES) {
+                log.warn("Webhook payload of {} bytes exceeds limit", request.getContentLength());
+                response.setStatus(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+                response.getWriter().write("{\"error\": \"Payload too large\"}");
+                return;
+            }
+
+            // Read the body and verify its HMAC in a single pass
+            byte[] payload;
+            try {
+                payload = WebhookValidator.readAndVerify(request.getInputStream(), signature,
+                        config.getWebhookSecret(), MAX_PAYLOAD_BYTES);
+            } catch (WebhookValidator.PayloadTooLargeException e) {
+                // Chunked bodies carry no Content-Length, so the limit is only hit while reading
+                log.warn("Webhook payload exceeds {} bytes", MAX_PAYLOAD_BYTES);
+                response.setStatus(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+                response.getWriter().write("{\"error\": \"Payload too large\"}");
+                return;
+            }
+            if (payload == null) {
                 log.error("Webhook signature verification failed");
                 response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                 response.getWriter().write("{\"error\": \"Invalid signature\"}");
                 return;
             }
 
-            log.debug("Webhook signature verified successfully");
-
-            // Handle different event types
-            switch (eventType != null ? eventType : "") {
-                case "pull_request":
-                    handlePullRequestEvent(payload);
-                    break;
+            if (payload.length == 0) {
+                log.warn("Received empty webhook payload");
+                response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+                response.getWriter().write("{\"error\": \"Empty payload\"}");
+                return;
+            }
 
-                case "push":
-                    handlePushEvent(payload);
-                    break;
+            log.debug("Webhook signature verified successfully");
 
-                case "ping":
+            // Hand supported events to the worker pool and acknowledge immediately
+            String eventName = eventType != null ? eventType : "";
+            if ("pull_request".equals(eventName) || "push".equals(eventName)) {
+                String deliveryId = request.getHeader("X-GitHub-Delivery");
+
+                // Redeliveries of an event we already accepted are acknowledged without reprocessing
+                if (!deduplicator.markIfNew(deliveryId)) {
+                    log.info("Ignoring duplicate webhook delivery {}", deliveryId);
+                    response.setStatus(HttpServletResponse.SC_OK);
+                    response.setContentType("application/json");
+                    response.getWriter().write("{\"status\": \"duplicate\"}");
+                    return;
+                }
+
+                // Unless the event is queued, a redelivery must not be taken for a duplicate
+                WebhookEvent event = new WebhookEvent(eventName, deliveryId, payload);
+                boolean accepted = false;
+                try {
+                    accepted = eventQueue.submit(event);
+                } finally {
+                    if (!accepted) {
+                        deduplicator.forget(deliveryId);
+                    }
+                }
+                if (!accepted) {
+                    response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                    response.setContentType("application/json");
+                    response.getWriter().write("{\"error\": \"Webhook queue full\"}");
+                    return;
+                }
+
+                response.setStatus(HttpServletResponse.SC_ACCEPTED);
+                response.setContentType("application/json");
+                response.getWriter().write("{\"status\": \"accepted\"}");
+            } else {
+                if ("ping".equals(eventName)) {
                     log.info("Received ping event from GitHub");
-                    break;
-
-                default:
+                } else {
                     log.debug("Ignoring unsupported event type: {}", eventType);
-            }
+                }
 
-            // Success response
-            response.setStatus(HttpServletResponse.SC_OK);
-            response.setContentType("application/json");
-            response.getWriter().write("{\"status\": \"ok\"}");
+                response.setStatus(HttpServletResponse.SC_OK);
+                response.setContentType("application/json");
+                response.getWriter().write("{\"status\": \"ok\"}");
+            }
 
             long duration = System.currentTimeMillis() - startTime;
-            log.info("Webhook processed successfully in {}ms", duration);
+            log.info("Webhook acknowledged in {}ms", duration);
 
         } catch (Exception e) {
             log.error("Error processing webhook", e);
@@ -119,100 +161,6 @@ public class GitHubWebhookListener extends HttpServlet {
         }
     }
 
-    /**
-     * Handle pull_request webhook events
-     */
-    private void handlePullRequestEvent(String payload) {
-        try {
-            WebhookPayload webhookPayload = objectMapper.readValue(payload, WebhookPayload.class);
-            String action = webhookPayload.getAction();
-            WebhookPayload.PullRequest pr = webhookPayload.getPullRequest();
-
-            if (pr == null) {
-                log.warn("Pull request event received but PR data is null");
-                return;
-            }
-
-            log.info("Processing pull_request event: action={}, pr=#{}, title={}",
-                    action, pr.getNumber(), pr.getTitle());
-
-            // Extract issue key from branch name or PR title
-            String issueKey = extractIssueKey(pr);
-            if (issueKey == null) {
-                log.debug("No Jira issue key found in PR #{} - skipping", pr.getNumber());
-                return;
-            }
-
-            log.info("Found issue key {} in PR #{}", issueKey, pr.getNumber());
-
-            // Handle based on action
-            switch (action != null ? action : "") {
-                case "opened":
-                    syncService.handlePROpened(issueKey, pr);
-                    break;
-
-                case "closed":
-                    if (pr.isMerged()) {
-                        syncService.handlePRMerged(issueKey, pr);
-                    } else {
-                        syncService.handlePRClosed(issueKey, pr);
-                    }
-                    break;
-
-                case "reopened":
-                    syncService.handlePRReopened(issueKey, pr);
-                    break;
-
-                case "synchronize":
-                    // PR updated with new commits - could add handling here
-                    log.debug("PR #{} synchronized (new commits pushed)", pr.getNumber());
-                    break;
-
-                default:
-                    log.debug("Ignoring pull_request action: {}", action);
-            }
-
-        } catch (Exception e) {
-            log.error("Error handling pull_request event", e);
-        }
-    }
-
-    /**
-     * Handle push webhook events (future enhancement)
-     */
-    private void handlePushEvent(String payload) {
-        try {
-            log.debug("Push event received (not yet implemented)");
-            // Future: Parse commits, extract issue keys, add comments to Jira
-        } catch (Exception e) {
-            log.error("Error handling push event", e);
-        }
-    }
-
-    /**
-     * Extract Jira issue key from PR
-     * Tries branch name first, then PR title
-     */
-    private String extractIssueKey(WebhookPayload.PullRequest pr) {
-        // Try branch name first (e.g., "feature/PROJ-123-description")
-        if (pr.getHead() != null && pr.getHead().getRef() != null) {
-            String issueKey = syncService.extractIssueKey(pr.getHead().getRef());
-            if (issueKey != null) {
-                return issueKey;
-            }
-        }
-
-        // Try PR title (e.g., "[PROJ-123] Feature description")
-        if (pr.getTitle() != null) {
-            String issueKey = syncService.extractIssueKey(pr.getTitle());
-            if (issueKey != null) {
-                return issueKey;
-            }
-        }
-
-        return null;
-    }
-
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response)
             throws ServletException, IOException {
@@ -0,0 +1,28 @@
+package com.healthcanada.jira.github.webhook;
+
+/**
+ * Location of a record in the webhook journal
+ */
+public final class JournalPosition {
+
+    private final long segmentId;
+    private final int offset;
+
+    JournalPosition(long segmentId, int offset) {
+        this.segmentId = segmentId;
+        this.offset = offset;
+    }
+
+    public long getSegmentId() {
+        return segmentId;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    @Override
+    public String toString() {
+        return segmentId + ":" + offset;
+    }
+}
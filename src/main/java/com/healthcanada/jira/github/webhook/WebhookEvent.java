@@ -0,0 +1,67 @@
+package com.healthcanada.jira.github.webhook;
+
+/**
+ * A verified GitHub webhook delivery waiting to be processed
+ */
+public final class WebhookEvent {
+
+    private final String eventType;
+    private final String deliveryId;
+    private final byte[] payload;
+    private final long receivedAtNanos;
+    private volatile JournalPosition journalPosition;
+
+    public WebhookEvent(String eventType, String deliveryId, byte[] payload) {
+        this.eventType = eventType;
+        this.deliveryId = deliveryId;
+        this.payload = payload;
+        this.receivedAtNanos = System.nanoTime();
+    }
+
+    /**
+     * Value of the X-GitHub-Event header
+     */
+    public String getEventType() {
+        return eventType;
+    }
+
+    /**
+     * Value of the X-GitHub-Delivery header (may be null)
+     */
+    public String getDeliveryId() {
+        return deliveryId;
+    }
+
+    /**
+     * Raw JSON body bytes, already signature-verified
+     */
+    public byte[] getPayload() {
+        return payload;
+    }
+
+    /**
+     * System.nanoTime() when the delivery was accepted
+     */
+    public long getReceivedAtNanos() {
+        return receivedAtNanos;
+    }
+
+    /**
+     * Position in the webhook journal, or null if the event was not journaled
+     */
+    public JournalPosition getJournalPosition() {
+        return journalPosition;
+    }
+
+    void setJournalPosition(JournalPosition journalPosition) {
+        this.journalPosition = journalPosition;
+    }
+
+    @Override
+    public String toString() {
+        return "WebhookEvent{" +
+                "eventType='" + eventType + '\'' +
+                ", deliveryId='" + deliveryId + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,384 @@
+package com.healthcanada.jira.github.webhook;
+
+import com.healthcanada.jira.github.model.PushPayload;
+import com.healthcanada.jira.github.model.WebhookPayload;
+import com.healthcanada.jira.github.service.BranchShaCache;
+import com.healthcanada.jira.github.service.SyncService;
+import com.healthcanada.jira.github.util.StripedExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Dispatches verified GitHub webhook events to SyncService
+ *
+ * Payloads are parsed on the webhook worker threads, never on the servlet thread.
+ * The resulting Jira updates run on issue lanes: updates for one issue are applied
+ * strictly in delivery order, updates for different issues in parallel.
+ *
+ * Workers parse in parallel, so each event reserves a sequence number when it is
+ * accepted and its updates are handed to the lanes in sequence order: an event
+ * parsed early waits for the events accepted before it.
+ *
+ * Handing updates to the lanes never blocks, so a slow issue cannot hold up the
+ * dispatch of updates for other issues. Instead, after its event is dispatched a
+ * worker waits while the lanes of its issues are over capacity. That slows down
+ * the webhook workers, and the webhook queue then answers 503 once it is full.
+ *
+ * Lanes are tuned with system properties github.integration.webhook.issueLanes
+ * (default: number of processors) and github.integration.webhook.laneCapacity (default 100).
+ */
+@Component
+public class WebhookEventProcessor implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(WebhookEventProcessor.class);
+
+    private static final int DEFAULT_LANE_CAPACITY = 100;
+    private static final int SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+    private final SyncService syncService;
+    private final BranchShaCache branchShaCache;
+    private final StripedExecutor issueLanes;
+
+    // Parsed events waiting for their turn to be handed to the lanes, by sequence
+    private final Map<Long, ParsedEvent> parsed = new HashMap<>();
+    private long nextSequence;
+    private long nextDispatch;
+    private boolean dispatching;
+
+    @Autowired
+    public WebhookEventProcessor(SyncService syncService, BranchShaCache branchShaCache) {
+        this(syncService, branchShaCache,
+                Integer.getInteger("github.integration.webhook.issueLanes", Runtime.getRuntime().availableProcessors()),
+                Integer.getInteger("github.integration.webhook.laneCapacity", DEFAULT_LANE_CAPACITY));
+    }
+
+    WebhookEventProcessor(SyncService syncService, BranchShaCache branchShaCache, int laneCount, int laneCapacity) {
+        this.syncService = syncService;
+        this.branchShaCache = branchShaCache;
+        this.issueLanes = new StripedExecutor("github-issue-lane", laneCount, laneCapacity);
+        log.info("Webhook issue lanes started: {}", issueLanes.getLaneCount());
+    }
+
+    /**
+     * Reserve the place of an accepted event in delivery order
+     * Every sequence must be passed on to {@link #process} or {@link #skip}
+     */
+    public synchronized long reserve() {
+        return nextSequence++;
+    }
+
+    /**
+     * Process a single webhook event
+     *
+     * @param sequence   reserved when the event was accepted
+     * @param onComplete run once every Jira update for the event has finished;
+     *                   not run if the event is abandoned during shutdown
+     */
+    public void process(WebhookEvent event, long sequence, Runnable onComplete) {
+        List<IssueUpdate> updates = new ArrayList<>();
+        String eventType = event.getEventType();
+
+        try {
+            // Handle different event types
+            switch (eventType != null ? eventType : "") {
+                case "pull_request":
+                    handlePullRequestEvent(event.getPayload(), updates);
+                    break;
+
+                case "push":
+                    handlePushEvent(event.getPayload(), updates);
+                    break;
+
+                default:
+                    log.debug("Ignoring unsupported event type: {}", eventType);
+            }
+        } finally {
+            ready(sequence, new ParsedEvent(updates, new Completion(onComplete)));
+        }
+        awaitLaneCapacity(updates);
+    }
+
+    /**
+     * Apply backpressure to the calling worker while the lanes of the issues it updated are full
+     */
+    private void awaitLaneCapacity(List<IssueUpdate> updates) {
+        try {
+            for (IssueUpdate update : updates) {
+                issueLanes.awaitCapacity(update.issueKey);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Give up a reserved sequence for an event that will not be processed
+     */
+    public void skip(long sequence) {
+        ready(sequence, new ParsedEvent(new ArrayList<>(), null));
+    }
+
+    /**
+     * Queue a parsed event and hand every event whose turn has come to the lanes
+     * Only one thread dispatches at a time; the others return immediately
+     */
+    private void ready(long sequence, ParsedEvent event) {
+        synchronized (this) {
+            parsed.put(sequence, event);
+            if (dispatching) {
+                return;
+            }
+            dispatching = true;
+        }
+
+        while (true) {
+            ParsedEvent next;
+            synchronized (this) {
+                next = parsed.remove(nextDispatch);
+                if (next == null) {
+                    dispatching = false;
+                    return;
+                }
+                nextDispatch++;
+            }
+
+            try {
+                for (IssueUpdate update : next.updates) {
+                    dispatch(update, next.completion);
+                }
+            } catch (RuntimeException e) {
+                log.error("Error dispatching webhook updates", e);
+            } finally {
+                if (next.completion != null) {
+                    next.completion.release();
+                }
+            }
+        }
+    }
+
+    /**
+     * Run a Jira update on the lane for its issue
+     */
+    private void dispatch(IssueUpdate issueUpdate, Completion completion) {
+        String issueKey = issueUpdate.issueKey;
+        Runnable update = issueUpdate.update;
+        completion.fork();
+        try {
+            issueLanes.execute(issueKey, () -> {
+                try {
+                    update.run();
+                } finally {
+                    completion.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Shutting down: leave the event in the journal so it is replayed on restart
+            completion.abandon();
+            log.warn("Issue lanes shut down, update for {} deferred to replay", issueKey);
+        }
+    }
+
+    /**
+     * Handle pull_request webhook events
+     */
+    private void handlePullRequestEvent(byte[] payload, List<IssueUpdate> updates) {
+        try {
+            WebhookPayload webhookPayload = WebhookPayloadReader.readPullRequestEvent(payload);
+            String action = webhookPayload.getAction();
+            WebhookPayload.PullRequest pr = webhookPayload.getPullRequest();
+
+            if (pr == null) {
+                log.warn("Pull request event received but PR data is null");
+                return;
+            }
+
+            log.info("Processing pull_request event: action={}, pr=#{}, title={}",
+                    action, pr.getNumber(), pr.getTitle());
+
+            // Extract issue key from branch name or PR title
+            WebhookPayload.Repository repository = webhookPayload.getRepository();
+            String repositoryName = repository != null ? repository.getFullName() : null;
+            String issueKey = extractIssueKey(pr, repositoryName);
+            if (issueKey == null) {
+                log.debug("No Jira issue key found in PR #{} - skipping", pr.getNumber());
+                return;
+            }
+
+            log.info("Found issue key {} in PR #{}", issueKey, pr.getNumber());
+
+            // Handle based on action
+            switch (action != null ? action : "") {
+                case "opened":
+                    updates.add(new IssueUpdate(issueKey, () -> syncService.handlePROpened(issueKey, pr)));
+                    break;
+
+                case "closed":
+                    if (pr.isMerged()) {
+                        updates.add(new IssueUpdate(issueKey, () -> syncService.handlePRMerged(issueKey, pr)));
+                    } else {
+                        updates.add(new IssueUpdate(issueKey, () -> syncService.handlePRClosed(issueKey, pr)));
+                    }
+                    break;
+
+                case "reopened":
+                    updates.add(new IssueUpdate(issueKey, () -> syncService.handlePRReopened(issueKey, pr)));
+                    break;
+
+                case "synchronize":
+                    // PR updated with new commits - could add handling here
+                    log.debug("PR #{} synchronized (new commits pushed)", pr.getNumber());
+                    break;
+
+                default:
+                    log.debug("Ignoring pull_request action: {}", action);
+            }
+
+        } catch (Exception e) {
+            log.error("Error handling pull_request event", e);
+        }
+    }
+
+    /**
+     * Handle push webhook events
+     * Commits are grouped by the issue keys in their messages so each issue
+     * gets one update per push
+     */
+    private void handlePushEvent(byte[] payload, List<IssueUpdate> updates) {
+        try {
+            PushPayload push = WebhookPayloadReader.readPushEvent(payload);
+            WebhookPayload.Repository repository = push.getRepository();
+            String repositoryName = repository != null ? repository.getFullName() : null;
+
+            // Every branch push moves the head, including creations and deletions without commits
+            branchShaCache.onPush(repositoryName, push.getBranchName(), push.getBefore(), push.getAfter(),
+                    push.isDeleted());
+
+            if (push.isDeleted() || push.getCommits() == null || push.getCommits().isEmpty()) {
+                log.debug("Push to {} has no commits - skipping", push.getRef());
+                return;
+            }
+
+            Map<String, List<PushPayload.Commit>> commitsByIssue = new LinkedHashMap<>();
+            for (PushPayload.Commit commit : push.getCommits()) {
+                for (String issueKey : syncService.extractIssueKeys(commit.getMessage())) {
+                    commitsByIssue.computeIfAbsent(issueKey, k -> new ArrayList<>()).add(commit);
+                }
+            }
+
+            log.info("Processing push event: ref={}, commits={}, issues={}",
+                    push.getRef(), push.getCommits().size(), commitsByIssue.size());
+
+            for (Map.Entry<String, List<PushPayload.Commit>> entry : commitsByIssue.entrySet()) {
+                String issueKey = entry.getKey();
+                List<PushPayload.Commit> commits = entry.getValue();
+                updates.add(new IssueUpdate(issueKey, () -> syncService.handlePush(issueKey, push, commits)));
+            }
+        } catch (Exception e) {
+            log.error("Error handling push event", e);
+        }
+    }
+
+    /**
+     * Extract Jira issue key from PR
+     * Tries branch name first, then PR title, preferring projects the repository is mapped to
+     */
+    private String extractIssueKey(WebhookPayload.PullRequest pr, String repositoryName) {
+        // Try branch name first (e.g., "feature/PROJ-123-description")
+        if (pr.getHead() != null && pr.getHead().getRef() != null) {
+            String issueKey = syncService.extractIssueKey(pr.getHead().getRef(), repositoryName);
+            if (issueKey != null) {
+                return issueKey;
+            }
+        }
+
+        // Try PR title (e.g., "[PROJ-123] Feature description")
+        if (pr.getTitle() != null) {
+            String issueKey = syncService.extractIssueKey(pr.getTitle(), repositoryName);
+            if (issueKey != null) {
+                return issueKey;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Get issue lane statistics for monitoring
+     */
+    public Map<String, Object> getStatistics() {
+        return issueLanes.getStatistics();
+    }
+
+    @Override
+    public void destroy() {
+        if (!issueLanes.shutdown(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            log.warn("Issue lanes did not finish in {}s", SHUTDOWN_TIMEOUT_SECONDS);
+        }
+    }
+
+    /**
+     * A Jira update for one issue, run on that issue's lane
+     */
+    private static final class IssueUpdate {
+        private final String issueKey;
+        private final Runnable update;
+
+        IssueUpdate(String issueKey, Runnable update) {
+            this.issueKey = issueKey;
+            this.update = update;
+        }
+    }
+
+    /**
+     * The updates of one parsed event and its completion, null for a skipped event
+     */
+    private static final class ParsedEvent {
+        private final List<IssueUpdate> updates;
+        private final Completion completion;
+
+        ParsedEvent(List<IssueUpdate> updates, Completion completion) {
+            this.updates = updates;
+            this.completion = completion;
+        }
+    }
+
+    /**
+     * Tracks the outstanding lane tasks of one event and signals when all are done
+     */
+    private static final class Completion {
+        private final Runnable onComplete;
+        private final AtomicInteger pending = new AtomicInteger(1);
+        private volatile boolean abandoned;
+
+        Completion(Runnable onComplete) {
+            this.onComplete = onComplete;
+        }
+
+        void fork() {
+            pending.incrementAndGet();
+        }
+
+        void abandon() {
+            abandoned = true;
+            release();
+        }
+
+        void release() {
+            if (pending.decrementAndGet() == 0 && !abandoned) {
+                onComplete.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.healthcanada.jira.github.webhook;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded in-process queue of verified webhook events drained by a worker pool
+ * Lets the webhook servlet acknowledge GitHub immediately instead of doing
+ * Jira writes on the request thread. Each event reserves its place in delivery
+ * order on submit; workers parse events and the processor hands the Jira updates
+ * to its issue lanes in that order. Events are written to the WebhookJournal
+ * before they are queued and committed once their updates complete; events left
+ * in the journal by a previous run are replayed on startup.
+ *
+ * Sizing is controlled with system properties:
+ * github.integration.webhook.workers (default 4) and
+ * github.integration.webhook.queueCapacity (default 1000)
+ */
+@Component
+public class WebhookEventQueue implements InitializingBean, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(WebhookEventQueue.class);
+
+    private static final int DEFAULT_WORKERS = 4;
+    private static final int DEFAULT_QUEUE_CAPACITY = 1000;
+    private static final int SHUTDOWN_TIMEOUT_SECONDS = 10;
+    private static final long REPLAY_RETRY_DELAY_MS = 100;
+
+    private final WebhookEventProcessor processor;
+    private final WebhookJournal journal;
+    private final BlockingQueue<Runnable> queue;
+    private final ThreadPoolExecutor executor;
+    private final int capacity;
+
+    // Statistics
+    private final AtomicLong enqueuedCount = new AtomicLong();
+    private final AtomicLong processedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong replayedCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    @Autowired
+    public WebhookEventQueue(WebhookEventProcessor processor, WebhookJournal journal) {
+        this(processor, journal,
+                Integer.getInteger("github.integration.webhook.workers", DEFAULT_WORKERS),
+                Integer.getInteger("github.integration.webhook.queueCapacity", DEFAULT_QUEUE_CAPACITY));
+    }
+
+    WebhookEventQueue(WebhookEventProcessor processor, WebhookJournal journal, int workers, int capacity) {
+        this.processor = processor;
+        this.journal = journal;
+        this.capacity = Math.max(1, capacity);
+        this.queue = new ArrayBlockingQueue<>(this.capacity);
+
+        int poolSize = Math.max(1, workers);
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+                queue, new WorkerThreadFactory(), new ThreadPoolExecutor.AbortPolicy());
+
+        log.info("Webhook event queue started with {} workers and capacity {}", poolSize, this.capacity);
+    }
+
+    /**
+     * Replay events left unprocessed in the journal by a previous run
+     */
+    @Override
+    public void afterPropertiesSet() {
+        List<WebhookEvent> recovered = journal.recover();
+        if (recovered.isEmpty()) {
+            return;
+        }
+
+        // Replay off the startup thread, waiting for queue space rather than dropping
+        Thread replay = new Thread(() -> {
+            for (WebhookEvent event : recovered) {
+                long sequence = processor.reserve();
+                boolean queued = false;
+                while (!queued && !executor.isShutdown()) {
+                    try {
+                        executor.execute(() -> run(event, sequence));
+                        replayedCount.incrementAndGet();
+                        queued = true;
+                    } catch (RejectedExecutionException e) {
+                        try {
+                            Thread.sleep(REPLAY_RETRY_DELAY_MS);
+                        } catch (InterruptedException ie) {
+                            Thread.currentThread().interrupt();
+                            processor.skip(sequence);
+                            return;
+                        }
+                    }
+                }
+                if (!queued) {
+                    processor.skip(sequence);
+                }
+            }
+            log.info("Replayed {} journaled webhook events", replayedCount.get());
+        }, "github-webhook-journal-replay");
+        replay.setDaemon(true);
+        replay.start();
+    }
+
+    /**
+     * Journal an event and enqueue it for asynchronous processing
+     *
+     * @return false if the queue is full or shut down and the event was dropped
+     */
+    public boolean submit(WebhookEvent event) {
+        journal.append(event);
+        long sequence = processor.reserve();
+        try {
+            executor.execute(() -> run(event, sequence));
+            enqueuedCount.incrementAndGet();
+            return true;
+        } catch (RejectedExecutionException e) {
+            processor.skip(sequence);
+            // GitHub is told the delivery failed, so it must not be replayed from the journal
+            journal.commit(event);
+            droppedCount.incrementAndGet();
+            log.warn("Webhook queue full ({} events), dropping {}", queue.size(), event);
+            return false;
+        }
+    }
+
+    /**
+     * Parse an event on a worker thread and route its updates to the issue lanes
+     */
+    private void run(WebhookEvent event, long sequence) {
+        long waitNanos = System.nanoTime() - event.getReceivedAtNanos();
+        totalWaitNanos.addAndGet(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+
+        try {
+            processor.process(event, sequence, () -> journal.commit(event));
+            processedCount.incrementAndGet();
+        } catch (Exception e) {
+            failedCount.incrementAndGet();
+            log.error("Error processing webhook {}", event, e);
+            journal.commit(event);
+        }
+    }
+
+    /**
+     * Get queue statistics for monitoring
+     */
+    public Map<String, Object> getStatistics() {
+        long started = processedCount.get() + failedCount.get();
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("depth", queue.size());
+        stats.put("capacity", capacity);
+        stats.put("activeWorkers", executor.getActiveCount());
+        stats.put("workers", executor.getMaximumPoolSize());
+        stats.put("enqueued", enqueuedCount.get());
+        stats.put("processed", processedCount.get());
+        stats.put("failed", failedCount.get());
+        stats.put("dropped", droppedCount.get());
+        stats.put("replayed", replayedCount.get());
+        stats.put("averageWaitMs", started > 0 ? TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.get() / started) : 0);
+        stats.put("maxWaitMs", TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get()));
+        return stats;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                log.warn("Webhook workers did not finish in {}s, {} events abandoned",
+                        SHUTDOWN_TIMEOUT_SECONDS, executor.shutdownNow().size());
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Names worker threads so they are recognisable in thread dumps
+     */
+    private static final class WorkerThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "github-webhook-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
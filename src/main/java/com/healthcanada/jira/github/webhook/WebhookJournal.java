@@ -0,0 +1,601 @@
+package com.healthcanada.jira.github.webhook;
+
+import com.atlassian.jira.config.util.JiraHome;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only, segment-based journal of verified webhook deliveries
+ *
+ * Each segment is a fixed-size memory-mapped file under the Jira local home with a
+ * companion checkpoint file holding the offset below which every record has been
+ * processed. Events are appended before GitHub is acknowledged and committed once
+ * SyncService work completes, so deliveries accepted before a restart are replayed
+ * on startup. Events complete out of order, so every record is also flagged as
+ * committed in its own header; records past the checkpoint that carry the flag are
+ * not replayed. Fully committed segments are unmapped and deleted; a file that cannot
+ * be deleted yet is retried on every roll.
+ *
+ * Mapped pages survive a JVM crash immediately; they are forced to disk by a
+ * background flusher every github.integration.webhook.journalFlushMs (default 1000).
+ * Segment size is github.integration.webhook.journalSegmentMb (default 64).
+ *
+ * Record layout: [int bodyLength][int crc32(body)][body], padded to a multiple of 4 bytes;
+ * a zero length marks the end and the high bit of the length is set once committed.
+ * Body layout: [int len][eventType][int len or -1][deliveryId][int len][payload].
+ */
+@Component
+public class WebhookJournal implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(WebhookJournal.class);
+
+    private static final String JOURNAL_DIRECTORY = "data/github-integration/webhook-journal";
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String LOG_SUFFIX = ".log";
+    private static final String CHECKPOINT_SUFFIX = ".ckpt";
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int CHECKPOINT_SIZE = 8;
+    private static final int COMMITTED_FLAG = 0x80000000;
+
+    private static final Consumer<ByteBuffer> UNMAPPER = findUnmapper();
+
+    private static final int DEFAULT_SEGMENT_MB = 64;
+    private static final long DEFAULT_FLUSH_INTERVAL_MS = 1000;
+
+    private final File directory;
+    private final int segmentSize;
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    private final CRC32 writeCrc = new CRC32();
+    private final ScheduledExecutorService flusher;
+    // Checkpoint and log files of consumed segments whose delete failed, retried on every roll
+    private final List<File[]> undeletedSegments = new ArrayList<>();
+
+    private Segment active;
+    private long nextSegmentId = 1;
+    private boolean enabled;
+
+    // Statistics
+    private final AtomicLong appendedCount = new AtomicLong();
+    private final AtomicLong appendedBytes = new AtomicLong();
+    private final AtomicLong committedCount = new AtomicLong();
+    private final AtomicLong deletedSegments = new AtomicLong();
+    private final AtomicLong recoveredCount = new AtomicLong();
+
+    @Autowired
+    public WebhookJournal(JiraHome jiraHome) {
+        this(new File(jiraHome.getLocalHome(), JOURNAL_DIRECTORY),
+                Integer.getInteger("github.integration.webhook.journalSegmentMb", DEFAULT_SEGMENT_MB) * 1024 * 1024,
+                Long.getLong("github.integration.webhook.journalFlushMs", DEFAULT_FLUSH_INTERVAL_MS));
+    }
+
+    WebhookJournal(File directory, int segmentSize, long flushIntervalMs) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.enabled = directory.isDirectory() || directory.mkdirs();
+        if (!enabled) {
+            log.error("Cannot create webhook journal directory {}, deliveries will not survive a restart", directory);
+        }
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "github-webhook-journal-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.flusher.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Whether appends are being persisted
+     */
+    public synchronized boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Open existing segments and return every event past its segment checkpoint
+     * Must be called once, before the first append
+     */
+    public synchronized List<WebhookEvent> recover() {
+        List<WebhookEvent> recovered = new ArrayList<>();
+        if (!enabled) {
+            return recovered;
+        }
+
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(SEGMENT_PREFIX)
+                && (name.endsWith(LOG_SUFFIX) || name.endsWith(CHECKPOINT_SUFFIX)));
+        if (files == null) {
+            return recovered;
+        }
+
+        for (File file : files) {
+            String name = file.getName();
+            boolean isLog = name.endsWith(LOG_SUFFIX);
+            String suffix = isLog ? LOG_SUFFIX : CHECKPOINT_SUFFIX;
+            try {
+                long id = Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - suffix.length()));
+                // New segments never reuse the ID of any leftover file
+                nextSegmentId = Math.max(nextSegmentId, id + 1);
+                if (isLog) {
+                    Segment segment = Segment.open(directory, id, segmentSize);
+                    segment.sealed = true;
+                    segments.put(id, segment);
+                }
+            } catch (NumberFormatException | IOException e) {
+                log.error("Skipping unreadable journal segment {}", file, e);
+            }
+        }
+
+        CRC32 crc = new CRC32();
+        for (Segment segment : new ArrayList<>(segments.values())) {
+            int offset = (int) segment.checkpoint.getLong(0);
+            while (true) {
+                WebhookEvent event = segment.read(offset, crc);
+                if (event == null) {
+                    break;
+                }
+                if (!segment.isCommitted(offset)) {
+                    event.setJournalPosition(new JournalPosition(segment.id, offset));
+                    segment.pending.add(offset);
+                    recovered.add(event);
+                }
+                offset += segment.recordLength(offset);
+            }
+            segment.writeOffset = offset;
+            deleteIfConsumed(segment);
+        }
+
+        recoveredCount.addAndGet(recovered.size());
+        if (!recovered.isEmpty()) {
+            log.info("Recovered {} unprocessed webhook events from journal", recovered.size());
+        }
+        return recovered;
+    }
+
+    /**
+     * Append an event and record its position on the event
+     *
+     * @return false if the event could not be journaled (it is still processed, without durability)
+     */
+    public synchronized boolean append(WebhookEvent event) {
+        if (!enabled) {
+            return false;
+        }
+
+        byte[] eventType = bytes(event.getEventType());
+        byte[] deliveryId = event.getDeliveryId() != null ? bytes(event.getDeliveryId()) : null;
+        byte[] payload = event.getPayload();
+        int bodyLength = 12 + eventType.length + (deliveryId != null ? deliveryId.length : 0) + payload.length;
+        int recordLength = align(RECORD_HEADER_SIZE + bodyLength);
+
+        // Keep room for the terminating zero length
+        if (recordLength + 4 > segmentSize) {
+            log.warn("Webhook {} of {} bytes exceeds journal segment size, not journaled", event, recordLength);
+            return false;
+        }
+
+        try {
+            if (active == null || active.writeOffset + recordLength + 4 > segmentSize) {
+                roll();
+            }
+
+            int offset = active.writeOffset;
+            ByteBuffer buffer = active.buffer;
+            buffer.position(offset + RECORD_HEADER_SIZE);
+            putBytes(buffer, eventType);
+            putBytes(buffer, deliveryId);
+            putBytes(buffer, payload);
+
+            ByteBuffer body = buffer.duplicate();
+            body.position(offset + RECORD_HEADER_SIZE);
+            body.limit(offset + RECORD_HEADER_SIZE + bodyLength);
+            writeCrc.reset();
+            writeCrc.update(body);
+
+            // Terminate the segment after this record, then write the length last
+            // so a torn record is never read as complete
+            buffer.putInt(offset + recordLength, 0);
+            buffer.putInt(offset + 4, (int) writeCrc.getValue());
+            buffer.putInt(offset, bodyLength);
+
+            active.writeOffset = offset + recordLength;
+            active.pending.add(offset);
+            active.dirty = true;
+            event.setJournalPosition(new JournalPosition(active.id, offset));
+
+            appendedCount.incrementAndGet();
+            appendedBytes.addAndGet(recordLength);
+            return true;
+        } catch (IOException e) {
+            log.error("Failed to append to webhook journal, disabling journaling", e);
+            enabled = false;
+            return false;
+        }
+    }
+
+    /**
+     * Mark an event as fully processed and advance its segment checkpoint
+     */
+    public synchronized void commit(WebhookEvent event) {
+        JournalPosition position = event.getJournalPosition();
+        if (position == null) {
+            return;
+        }
+
+        Segment segment = segments.get(position.getSegmentId());
+        if (segment == null || !segment.pending.remove(position.getOffset())) {
+            return;
+        }
+
+        committedCount.incrementAndGet();
+        segment.markCommitted(position.getOffset());
+        long checkpoint = segment.pending.isEmpty() ? segment.writeOffset : segment.pending.first();
+        segment.checkpoint.putLong(0, checkpoint);
+        segment.dirty = true;
+        deleteIfConsumed(segment);
+    }
+
+    /**
+     * Seal the active segment and start a new one
+     */
+    private void roll() throws IOException {
+        long nextId = nextSegmentId++;
+        Segment previous = active;
+
+        active = Segment.open(directory, nextId, segmentSize);
+        segments.put(nextId, active);
+
+        if (previous != null) {
+            previous.sealed = true;
+            previous.force();
+            deleteIfConsumed(previous);
+        }
+        retryDeletes();
+        log.debug("Rolled webhook journal to segment {}", nextId);
+    }
+
+    /**
+     * Compaction: remove a sealed segment once every record in it is committed
+     */
+    private void deleteIfConsumed(Segment segment) {
+        if (!segment.sealed || !segment.pending.isEmpty() || segment == active) {
+            return;
+        }
+
+        segments.remove(segment.id);
+        segment.close();
+        File[] files = {segment.checkpointFile, segment.logFile};
+        if (deleteSegmentFiles(files)) {
+            deletedSegments.incrementAndGet();
+        } else {
+            undeletedSegments.add(files);
+            log.warn("Failed to delete consumed journal segment {}, will retry", segment.logFile);
+        }
+    }
+
+    /**
+     * Delete the files of consumed segments left over by earlier failed deletes
+     */
+    private void retryDeletes() {
+        Iterator<File[]> pending = undeletedSegments.iterator();
+        while (pending.hasNext()) {
+            if (deleteSegmentFiles(pending.next())) {
+                pending.remove();
+                deletedSegments.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Delete the checkpoint, then the log of a segment
+     * Checkpoint first: a log left without one is rescanned, and its records are all flagged committed
+     *
+     * @return true if both files are gone
+     */
+    private boolean deleteSegmentFiles(File[] files) {
+        for (File file : files) {
+            if (!deleteFile(file) && file.exists()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Delete one journal file; overridden in tests
+     */
+    boolean deleteFile(File file) {
+        return file.delete();
+    }
+
+    /**
+     * Force dirty mapped pages to disk
+     */
+    private void flush() {
+        List<Segment> dirty = new ArrayList<>();
+        synchronized (this) {
+            for (Segment segment : segments.values()) {
+                if (segment.dirty) {
+                    segment.dirty = false;
+                    dirty.add(segment);
+                }
+            }
+        }
+
+        for (Segment segment : dirty) {
+            try {
+                segment.force();
+            } catch (Exception e) {
+                log.warn("Failed to flush journal segment {}: {}", segment.id, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Get journal statistics for monitoring
+     */
+    public synchronized Map<String, Object> getStatistics() {
+        int pending = 0;
+        for (Segment segment : segments.values()) {
+            pending += segment.pending.size();
+        }
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("segments", segments.size());
+        stats.put("activeSegmentBytes", active != null ? active.writeOffset : 0);
+        stats.put("segmentSize", segmentSize);
+        stats.put("pending", pending);
+        stats.put("appended", appendedCount.get());
+        stats.put("appendedBytes", appendedBytes.get());
+        stats.put("committed", committedCount.get());
+        stats.put("recovered", recoveredCount.get());
+        stats.put("deletedSegments", deletedSegments.get());
+        stats.put("undeletedSegments", undeletedSegments.size());
+        return stats;
+    }
+
+    @Override
+    public void destroy() {
+        flusher.shutdown();
+        synchronized (this) {
+            for (Segment segment : segments.values()) {
+                segment.force();
+                segment.close();
+            }
+            segments.clear();
+            active = null;
+            enabled = false;
+        }
+    }
+
+    /**
+     * Round a record length up to a multiple of 4, so headers never straddle a page
+     */
+    private static int align(int length) {
+        return (length + 3) & ~3;
+    }
+
+    private static byte[] bytes(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
+    }
+
+    private static void putBytes(ByteBuffer buffer, byte[] value) {
+        if (value == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(value.length);
+            buffer.put(value);
+        }
+    }
+
+    /**
+     * Release a mapping now instead of when the buffer is garbage collected
+     * The buffer must not be used afterwards.
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        if (buffer == null || UNMAPPER == null) {
+            return;
+        }
+        try {
+            UNMAPPER.accept(buffer);
+        } catch (RuntimeException e) {
+            log.debug("Failed to unmap journal segment buffer", e);
+        }
+    }
+
+    /**
+     * Find the JDK's internal unmapper: Unsafe.invokeCleaner on Java 9+, the buffer's Cleaner on Java 8
+     *
+     * @return null if neither is accessible; mappings are then released by garbage collection
+     */
+    private static Consumer<ByteBuffer> findUnmapper() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            Object unsafe = theUnsafe.get(null);
+            return buffer -> invoke(invokeCleaner, unsafe, buffer);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Java 8
+        }
+        try {
+            Method cleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+            Method clean = Class.forName("sun.misc.Cleaner").getMethod("clean");
+            return buffer -> invoke(clean, invoke(cleaner, buffer));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.info("Cannot unmap journal segments explicitly, deleted segments are released by GC");
+            return null;
+        }
+    }
+
+    private static Object invoke(Method method, Object target, Object... args) {
+        try {
+            return method.invoke(target, args);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        buffer.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * One memory-mapped segment file and its checkpoint
+     */
+    private static final class Segment {
+        private final long id;
+        private final File logFile;
+        private final File checkpointFile;
+        private final RandomAccessFile logRaf;
+        private final RandomAccessFile checkpointRaf;
+        private final MappedByteBuffer buffer;
+        private final MappedByteBuffer checkpoint;
+        private final TreeSet<Integer> pending = new TreeSet<>();
+
+        private int writeOffset;
+        private boolean sealed;
+        private boolean dirty;
+        private boolean closed;
+
+        private Segment(long id, File logFile, File checkpointFile, int size) throws IOException {
+            this.id = id;
+            this.logFile = logFile;
+            this.checkpointFile = checkpointFile;
+            this.logRaf = new RandomAccessFile(logFile, "rw");
+            this.checkpointRaf = new RandomAccessFile(checkpointFile, "rw");
+            try {
+                logRaf.setLength(size);
+                checkpointRaf.setLength(CHECKPOINT_SIZE);
+                this.buffer = logRaf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+                this.checkpoint = checkpointRaf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, CHECKPOINT_SIZE);
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+        }
+
+        static Segment open(File directory, long id, int size) throws IOException {
+            String base = String.format("%s%020d", SEGMENT_PREFIX, id);
+            return new Segment(id, new File(directory, base + LOG_SUFFIX),
+                    new File(directory, base + CHECKPOINT_SUFFIX), size);
+        }
+
+        /**
+         * Decode the record at offset, or null at the end of valid data
+         */
+        WebhookEvent read(int offset, CRC32 crc) {
+            if (offset < 0 || offset + RECORD_HEADER_SIZE > buffer.capacity()) {
+                return null;
+            }
+
+            int bodyLength = buffer.getInt(offset) & ~COMMITTED_FLAG;
+            if (bodyLength == 0 || offset + RECORD_HEADER_SIZE + bodyLength > buffer.capacity()) {
+                return null;
+            }
+
+            ByteBuffer body = buffer.duplicate();
+            body.position(offset + RECORD_HEADER_SIZE);
+            body.limit(offset + RECORD_HEADER_SIZE + bodyLength);
+            crc.reset();
+            crc.update(body.duplicate());
+            if ((int) crc.getValue() != buffer.getInt(offset + 4)) {
+                log.warn("Journal segment {} has a corrupt record at offset {}, stopping replay", id, offset);
+                return null;
+            }
+
+            try {
+                String eventType = getString(body);
+                String deliveryId = getString(body);
+                byte[] payload = new byte[body.getInt()];
+                body.get(payload);
+                return new WebhookEvent(eventType, deliveryId, payload);
+            } catch (RuntimeException e) {
+                log.warn("Journal segment {} has an undecodable record at offset {}", id, offset);
+                return null;
+            }
+        }
+
+        /**
+         * Length of the record at offset including header and padding
+         */
+        int recordLength(int offset) {
+            return align(RECORD_HEADER_SIZE + (buffer.getInt(offset) & ~COMMITTED_FLAG));
+        }
+
+        boolean isCommitted(int offset) {
+            return (buffer.getInt(offset) & COMMITTED_FLAG) != 0;
+        }
+
+        void markCommitted(int offset) {
+            buffer.putInt(offset, buffer.getInt(offset) | COMMITTED_FLAG);
+        }
+
+        /**
+         * Force mapped pages to disk; a no-op once closed, as the flusher may race with compaction
+         */
+        synchronized void force() {
+            if (closed) {
+                return;
+            }
+            buffer.force();
+            checkpoint.force();
+        }
+
+        /**
+         * Close the files and unmap the buffers, so the files can be deleted on Windows
+         * and their space is freed without waiting for garbage collection
+         */
+        synchronized void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            unmap(buffer);
+            unmap(checkpoint);
+            try {
+                logRaf.close();
+            } catch (IOException e) {
+                log.debug("Failed to close {}", logFile, e);
+            }
+            try {
+                checkpointRaf.close();
+            } catch (IOException e) {
+                log.debug("Failed to close {}", checkpointFile, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,361 @@
+package com.healthcanada.jira.github.webhook;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.healthcanada.jira.github.model.PushPayload;
+import com.healthcanada.jira.github.model.WebhookPayload;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads pull_request and push webhook payloads with the Jackson streaming parser
+ *
+ * Only the fields SyncService uses are extracted: action, the PR number, title,
+ * html_url, state, merged flag, head/base refs, user/merged_by/closed_by logins,
+ * merged_at/closed_at and the repository name; for pushes the ref, SHAs and the
+ * id, message, url and author of each commit. Every other sub-object (links,
+ * labels, file lists, the nested repo and user objects) is skipped without
+ * building a tree. Handlers needing anything else use bind() for the full object model.
+ */
+public final class WebhookPayloadReader {
+
+    private static final Logger log = LoggerFactory.getLogger(WebhookPayloadReader.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final JsonFactory jsonFactory = objectMapper.getFactory();
+
+    private WebhookPayloadReader() {
+    }
+
+    /**
+     * Extract the fields needed for pull_request handling
+     * Falls back to full binding if the payload does not have the expected shape
+     */
+    public static WebhookPayload readPullRequestEvent(byte[] payload) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Webhook payload is not a JSON object");
+            }
+
+            WebhookPayload result = new WebhookPayload();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+
+                switch (field) {
+                    case "action":
+                        result.setAction(parser.getValueAsString());
+                        break;
+                    case "pull_request":
+                        result.setPullRequest(readPullRequest(parser));
+                        break;
+                    case "repository":
+                        result.setRepository(readRepository(parser));
+                        break;
+                    case "sender":
+                        result.setSender(readUser(parser));
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+            return result;
+        } catch (UnexpectedShapeException e) {
+            log.debug("Streaming parse of webhook payload failed ({}), using full binding", e.getMessage());
+            return bind(payload);
+        }
+    }
+
+    /**
+     * Extract the ref and commits of a push event
+     * Falls back to full binding if the payload does not have the expected shape
+     */
+    public static PushPayload readPushEvent(byte[] payload) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Webhook payload is not a JSON object");
+            }
+
+            PushPayload result = new PushPayload();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+
+                switch (field) {
+                    case "ref":
+                        result.setRef(parser.getValueAsString());
+                        break;
+                    case "before":
+                        result.setBefore(parser.getValueAsString());
+                        break;
+                    case "after":
+                        result.setAfter(parser.getValueAsString());
+                        break;
+                    case "created":
+                        result.setCreated(parser.getValueAsBoolean());
+                        break;
+                    case "deleted":
+                        result.setDeleted(parser.getValueAsBoolean());
+                        break;
+                    case "compare":
+                        result.setCompare(parser.getValueAsString());
+                        break;
+                    case "commits":
+                        result.setCommits(readCommits(parser));
+                        break;
+                    case "repository":
+                        result.setRepository(readRepository(parser));
+                        break;
+                    case "sender":
+                        result.setSender(readUser(parser));
+                        break;
+                    default:
+                        // head_commit repeats the last commit
+                        parser.skipChildren();
+                }
+            }
+            return result;
+        } catch (UnexpectedShapeException e) {
+            log.debug("Streaming parse of push payload failed ({}), using full binding", e.getMessage());
+            return objectMapper.readValue(payload, PushPayload.class);
+        }
+    }
+
+    /**
+     * Bind the complete payload into the WebhookPayload model
+     */
+    public static WebhookPayload bind(byte[] payload) throws IOException {
+        return objectMapper.readValue(payload, WebhookPayload.class);
+    }
+
+    private static WebhookPayload.PullRequest readPullRequest(JsonParser parser) throws IOException {
+        if (!startObject(parser)) {
+            return null;
+        }
+
+        WebhookPayload.PullRequest pr = new WebhookPayload.PullRequest();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+
+            switch (field) {
+                case "number":
+                    pr.setNumber(parser.getValueAsInt());
+                    break;
+                case "title":
+                    pr.setTitle(parser.getValueAsString());
+                    break;
+                case "html_url":
+                    pr.setHtmlUrl(parser.getValueAsString());
+                    break;
+                case "state":
+                    pr.setState(parser.getValueAsString());
+                    break;
+                case "merged":
+                    pr.setMerged(parser.getValueAsBoolean());
+                    break;
+                case "merged_at":
+                    pr.setMergedAt(parser.getValueAsString());
+                    break;
+                case "closed_at":
+                    pr.setClosedAt(parser.getValueAsString());
+                    break;
+                case "head":
+                    pr.setHead(readBranch(parser));
+                    break;
+                case "base":
+                    pr.setBase(readBranch(parser));
+                    break;
+                case "user":
+                    pr.setUser(readUser(parser));
+                    break;
+                case "merged_by":
+                    pr.setMergedBy(readUser(parser));
+                    break;
+                case "closed_by":
+                    pr.setClosedBy(readUser(parser));
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return pr;
+    }
+
+    private static List<PushPayload.Commit> readCommits(JsonParser parser) throws IOException {
+        List<PushPayload.Commit> commits = new ArrayList<>();
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return commits;
+        }
+        if (token != JsonToken.START_ARRAY) {
+            throw new UnexpectedShapeException("expected array but found " + token);
+        }
+
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (!startObject(parser)) {
+                continue;
+            }
+
+            PushPayload.Commit commit = new PushPayload.Commit();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+
+                switch (field) {
+                    case "id":
+                        commit.setId(parser.getValueAsString());
+                        break;
+                    case "message":
+                        commit.setMessage(parser.getValueAsString());
+                        break;
+                    case "url":
+                        commit.setUrl(parser.getValueAsString());
+                        break;
+                    case "timestamp":
+                        commit.setTimestamp(parser.getValueAsString());
+                        break;
+                    case "author":
+                        commit.setAuthor(readCommitAuthor(parser));
+                        break;
+                    default:
+                        // added/removed/modified file lists can be large
+                        parser.skipChildren();
+                }
+            }
+            commits.add(commit);
+        }
+        return commits;
+    }
+
+    private static PushPayload.CommitAuthor readCommitAuthor(JsonParser parser) throws IOException {
+        if (!startObject(parser)) {
+            return null;
+        }
+
+        PushPayload.CommitAuthor author = new PushPayload.CommitAuthor();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+
+            switch (field) {
+                case "name":
+                    author.setName(parser.getValueAsString());
+                    break;
+                case "username":
+                    author.setUsername(parser.getValueAsString());
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return author;
+    }
+
+    private static WebhookPayload.Branch readBranch(JsonParser parser) throws IOException {
+        if (!startObject(parser)) {
+            return null;
+        }
+
+        WebhookPayload.Branch branch = new WebhookPayload.Branch();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+
+            switch (field) {
+                case "ref":
+                    branch.setRef(parser.getValueAsString());
+                    break;
+                case "sha":
+                    branch.setSha(parser.getValueAsString());
+                    break;
+                default:
+                    // The nested repo object is large and unused
+                    parser.skipChildren();
+            }
+        }
+        return branch;
+    }
+
+    private static WebhookPayload.Repository readRepository(JsonParser parser) throws IOException {
+        if (!startObject(parser)) {
+            return null;
+        }
+
+        WebhookPayload.Repository repository = new WebhookPayload.Repository();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+
+            switch (field) {
+                case "name":
+                    repository.setName(parser.getValueAsString());
+                    break;
+                case "full_name":
+                    repository.setFullName(parser.getValueAsString());
+                    break;
+                case "html_url":
+                    repository.setHtmlUrl(parser.getValueAsString());
+                    break;
+                case "owner":
+                    repository.setOwner(readUser(parser));
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return repository;
+    }
+
+    private static WebhookPayload.User readUser(JsonParser parser) throws IOException {
+        if (!startObject(parser)) {
+            return null;
+        }
+
+        WebhookPayload.User user = new WebhookPayload.User();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+
+            switch (field) {
+                case "login":
+                    user.setLogin(parser.getValueAsString());
+                    break;
+                case "html_url":
+                    user.setHtmlUrl(parser.getValueAsString());
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return user;
+    }
+
+    /**
+     * Check the current token opens an object; null values yield no object
+     */
+    private static boolean startObject(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return false;
+        }
+        if (token != JsonToken.START_OBJECT) {
+            throw new UnexpectedShapeException("expected object but found " + token);
+        }
+        return true;
+    }
+
+    /**
+     * Payload structure differs from what the streaming reader expects
+     */
+    private static final class UnexpectedShapeException extends IOException {
+        UnexpectedShapeException(String message) {
+            super(message);
+        }
+    }
+}
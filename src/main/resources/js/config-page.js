@@ -52,9 +52,12 @@
             githubApiUrl: $('#githubApiUrl').val().trim(),
             githubToken: $('#githubToken').val().trim(),
             trustCustomCertificates: $('#trustCustomCertificates').is(':checked'),
+            maxConnections: parseInt($('#maxConnections').val(), 10),
+            maxConnectionsPerRoute: parseInt($('#maxConnectionsPerRoute').val(), 10),
             webhookUrl: $('#webhookUrl').val().trim(),
             webhookSecret: $('#webhookSecret').val().trim(),
             branchNaming: $('#branchNaming').val().trim(),
+            integrationUser: $('#integrationUser').val().trim(),
             repositories: collectRepositoryMappings(),
             transitionMappings: collectTransitionMappings()
         };
@@ -0,0 +1,116 @@
+package com.healthcanada.jira.github.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class GitHubConfigTest {
+
+    @Test
+    public void frozenSnapshotIsIsolatedFromSourceMappings() {
+        RepositoryMapping mapping = new RepositoryMapping("ABC", "org", "repo");
+        GitHubConfig config = config(mapping);
+
+        config.freeze();
+        mapping.setDefaultBranch("develop");
+        mapping.setGithubRepo("other");
+
+        RepositoryMapping frozen = config.getRepositoryMapping("ABC");
+        assertEquals("main", frozen.getDefaultBranch());
+        assertEquals("org/repo", frozen.getFullRepoName());
+    }
+
+    @Test
+    public void frozenMappingsAndConfigAreReadOnly() {
+        GitHubConfig config = config(new RepositoryMapping("ABC", "org", "repo")).freeze();
+
+        try {
+            config.getRepositoryMapping("ABC").setDefaultBranch("develop");
+            fail("Expected read-only mapping");
+        } catch (IllegalStateException expected) {
+            // Shared between threads
+        }
+        try {
+            config.getRepositories().add(new RepositoryMapping("XYZ", "org", "xyz"));
+            fail("Expected read-only list");
+        } catch (UnsupportedOperationException expected) {
+            // Shared between threads
+        }
+        try {
+            config.setBranchNaming("{issueKey}");
+            fail("Expected read-only config");
+        } catch (IllegalStateException expected) {
+            // Shared between threads
+        }
+    }
+
+    @Test
+    public void freezeIsIdempotent() {
+        GitHubConfig config = config(new RepositoryMapping("ABC", "org", "repo"));
+
+        assertSame(config.freeze(), config.freeze());
+        assertTrue(config.isFrozen());
+    }
+
+    @Test
+    public void projectLookupIsCaseInsensitiveBeforeAndAfterFreeze() {
+        GitHubConfig config = config(new RepositoryMapping("ABC", "org", "one"),
+                new RepositoryMapping("abc", "org", "two"), new RepositoryMapping("XYZ", "org", "three"));
+
+        assertEquals(2, config.getRepositoryMappings("Abc").size());
+        config.freeze();
+        assertEquals(2, config.getRepositoryMappings("Abc").size());
+        assertEquals("org/one", config.getRepositoryMapping("abc").getFullRepoName());
+        assertNull(config.getRepositoryMapping("NOPE"));
+    }
+
+    @Test
+    public void repositoryLookupIsCaseInsensitiveBeforeAndAfterFreeze() {
+        GitHubConfig config = config(new RepositoryMapping("ABC", "Org", "Repo"),
+                new RepositoryMapping("XYZ", "org", "repo"), new RepositoryMapping("ABC", "org", "other"));
+
+        assertEquals(2, config.getRepositoryMappingsByFullName("ORG/repo").size());
+        config.freeze();
+        List<RepositoryMapping> mappings = config.getRepositoryMappingsByFullName(" org/REPO ");
+        assertEquals(2, mappings.size());
+        assertEquals("ABC", mappings.get(0).getJiraProject());
+        assertEquals("XYZ", mappings.get(1).getJiraProject());
+        assertTrue(config.getRepositoryMappingsByFullName("org/unmapped").isEmpty());
+        assertTrue(config.getRepositoryMappingsByFullName(null).isEmpty());
+    }
+
+    @Test
+    public void editableCopyOfSnapshotCanBeChanged() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        GitHubConfig frozen = config(new RepositoryMapping("ABC", "org", "repo")).freeze();
+
+        GitHubConfig copy = objectMapper.readValue(objectMapper.writeValueAsString(frozen), GitHubConfig.class);
+        copy.getRepositoryMapping("ABC").setDefaultBranch("develop");
+        copy.getRepositories().add(new RepositoryMapping("XYZ", "org", "xyz"));
+
+        assertFalse(copy.isFrozen());
+        assertEquals("develop", copy.getRepositoryMapping("ABC").getDefaultBranch());
+        assertEquals("main", frozen.getRepositoryMapping("ABC").getDefaultBranch());
+    }
+
+    private static GitHubConfig config(RepositoryMapping... mappings) {
+        List<RepositoryMapping> repositories = new ArrayList<>();
+        for (RepositoryMapping mapping : mappings) {
+            repositories.add(mapping);
+        }
+        GitHubConfig config = new GitHubConfig();
+        config.setGithubEnterpriseUrl("https://github.example.com");
+        config.setGithubToken("token");
+        config.setRepositories(repositories);
+        return config;
+    }
+}
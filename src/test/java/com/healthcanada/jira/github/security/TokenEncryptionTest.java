@@ -0,0 +1,212 @@
+package com.healthcanada.jira.github.security;
+
+import com.atlassian.jira.cluster.ClusterMessagingService;
+import com.atlassian.sal.api.pluginsettings.PluginSettings;
+import com.atlassian.sal.api.pluginsettings.PluginSettingsFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.healthcanada.jira.github.model.GitHubConfig;
+import com.healthcanada.jira.github.storage.PluginConfigurationManager;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TokenEncryptionTest {
+
+    private static final String STORAGE_KEY = "com.healthcanada.jira.github.config";
+
+    // AES/ECB under the default key, as written by versions before the v2 format
+    private static final String LEGACY_TOKEN = "kI6TIJCyhHuvVrSSGZIm7OPjOzccEQZnR5ohBqZilmI=";
+    private static final String LEGACY_SECRET = "jePRxq6UFVahSW0inEik3VQyzV3X+8IVzXHQTyvrud0=";
+    // AES/ECB under the key "site-specific-key" set through the system property
+    private static final String LEGACY_SITE_TOKEN = "NVVZEoSOTSCCm10ZpdvR4b9cCV2+N/LOgh1+zAKXhBU=";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private TokenEncryption encryption;
+
+    @Before
+    public void setUp() {
+        System.clearProperty("github.integration.encryption.key");
+        encryption = new TokenEncryption();
+    }
+
+    @Test
+    public void decryptsLegacyCiphertext() throws Exception {
+        assertTrue(encryption.isLegacyFormat(LEGACY_TOKEN));
+        assertEquals("ghp_legacyToken123", encryption.decrypt(LEGACY_TOKEN));
+        assertEquals("legacy-webhook-secret", encryption.decrypt(LEGACY_SECRET));
+    }
+
+    @Test
+    public void decryptsLegacyCiphertextUnderConfiguredKey() throws Exception {
+        System.setProperty("github.integration.encryption.key", "site-specific-key");
+        try {
+            assertEquals("ghp_siteToken456", new TokenEncryption().decrypt(LEGACY_SITE_TOKEN));
+        } finally {
+            System.clearProperty("github.integration.encryption.key");
+        }
+    }
+
+    @Test
+    public void benchmarkAgainstPerCallLegacyCipher() throws Exception {
+        String token = "ghp_" + "0123456789abcdefghijklmnopqrstuvwxyz";
+        String encrypted = encryption.encrypt(token);
+        String legacy = legacyEncrypt(token);
+        assertEquals(token, encryption.decrypt(legacy));
+
+        long encrypting = nanosPerCall(() -> encryption.encrypt(token));
+        long decrypting = nanosPerCall(() -> encryption.decrypt(encrypted));
+        long legacyEncrypting = nanosPerCall(() -> legacyEncrypt(token));
+        long legacyDecrypting = nanosPerCall(() -> legacyDecrypt(legacy));
+
+        System.out.printf("%d char token: GCM encrypt %d ns, decrypt %d ns; "
+                        + "per-call ECB encrypt %d ns, decrypt %d ns%n",
+                token.length(), encrypting, decrypting, legacyEncrypting, legacyDecrypting);
+        assertEquals(token, legacyDecrypt(legacy));
+    }
+
+    @Test
+    public void roundTripsInCurrentFormat() throws Exception {
+        String encrypted = encryption.encrypt("ghp_currentToken");
+
+        assertTrue(encrypted.startsWith("v2:"));
+        assertTrue(encryption.isEncrypted(encrypted));
+        assertFalse(encryption.isLegacyFormat(encrypted));
+        assertEquals("ghp_currentToken", encryption.decrypt(encrypted));
+        // A fresh IV per value
+        assertNotEquals(encrypted, encryption.encrypt("ghp_currentToken"));
+    }
+
+    @Test(expected = Exception.class)
+    public void rejectsTamperedCiphertext() throws Exception {
+        String encrypted = encryption.encrypt("ghp_currentToken");
+        char last = encrypted.charAt(encrypted.length() - 3);
+        encryption.decrypt(encrypted.substring(0, encrypted.length() - 3) + (last == 'A' ? 'B' : 'A')
+                + encrypted.substring(encrypted.length() - 2));
+    }
+
+    @Test
+    public void loadMigratesLegacySecrets() throws Exception {
+        MapPluginSettings settings = new MapPluginSettings();
+        settings.put(STORAGE_KEY, legacyConfigJson());
+
+        GitHubConfig loaded = manager(settings).getConfiguration();
+
+        assertEquals("ghp_legacyToken123", loaded.getGithubToken());
+        assertEquals("legacy-webhook-secret", loaded.getWebhookSecret());
+        GitHubConfig stored = objectMapper.readValue((String) settings.get(STORAGE_KEY), GitHubConfig.class);
+        assertTrue(encryption.isEncrypted(stored.getGithubToken()));
+        assertTrue(encryption.isEncrypted(stored.getWebhookSecret()));
+        assertEquals("ghp_legacyToken123", encryption.decrypt(stored.getGithubToken()));
+        assertEquals("https://github.example.com", stored.getGithubEnterpriseUrl());
+    }
+
+    @Test
+    public void migrationNeverOverwritesConcurrentSave() throws Exception {
+        String newerJson = "{\"githubEnterpriseUrl\":\"https://other.example.com\"}";
+        MapPluginSettings settings = new MapPluginSettings() {
+            private boolean saved;
+
+            @Override
+            public Object get(String key) {
+                Object value = super.get(key);
+                if (!saved) {
+                    // A save lands right after the load read the legacy JSON
+                    saved = true;
+                    put(STORAGE_KEY, newerJson);
+                }
+                return value;
+            }
+        };
+        settings.put(STORAGE_KEY, legacyConfigJson());
+
+        manager(settings).getConfiguration();
+
+        assertEquals(newerJson, settings.get(STORAGE_KEY));
+    }
+
+    private static long nanosPerCall(Crypt crypt) throws Exception {
+        int rounds = 5000;
+        // Warm up, then keep the best of several runs to ride out GC and JIT noise
+        long best = Long.MAX_VALUE;
+        for (int run = 0; run < 5; run++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < rounds; i++) {
+                crypt.run();
+            }
+            best = Math.min(best, (System.nanoTime() - start) / rounds);
+        }
+        return best;
+    }
+
+    private static String legacyEncrypt(String plainText) throws Exception {
+        // How TokenEncryption worked before the v2 format: derive the key and create a cipher per call
+        Cipher cipher = Cipher.getInstance("AES");
+        cipher.init(Cipher.ENCRYPT_MODE, legacyKey());
+        return Base64.getEncoder().encodeToString(cipher.doFinal(plainText.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String legacyDecrypt(String encryptedText) throws Exception {
+        Cipher cipher = Cipher.getInstance("AES");
+        cipher.init(Cipher.DECRYPT_MODE, legacyKey());
+        return new String(cipher.doFinal(Base64.getDecoder().decode(encryptedText)), StandardCharsets.UTF_8);
+    }
+
+    private static SecretKeySpec legacyKey() throws Exception {
+        byte[] digest = MessageDigest.getInstance("SHA-256")
+                .digest("github-integration-key-change-me".getBytes(StandardCharsets.UTF_8));
+        return new SecretKeySpec(Arrays.copyOf(digest, 16), "AES");
+    }
+
+    @FunctionalInterface
+    private interface Crypt {
+        String run() throws Exception;
+    }
+
+    private PluginConfigurationManager manager(PluginSettings settings) {
+        PluginSettingsFactory factory = mock(PluginSettingsFactory.class);
+        when(factory.createGlobalSettings()).thenReturn(settings);
+        return new PluginConfigurationManager(factory, encryption, mock(ClusterMessagingService.class));
+    }
+
+    private String legacyConfigJson() throws Exception {
+        GitHubConfig config = new GitHubConfig();
+        config.setGithubEnterpriseUrl("https://github.example.com");
+        config.setGithubToken(LEGACY_TOKEN);
+        config.setWebhookSecret(LEGACY_SECRET);
+        return objectMapper.writeValueAsString(config);
+    }
+
+    private static class MapPluginSettings implements PluginSettings {
+        private final Map<String, Object> values = new HashMap<>();
+
+        @Override
+        public Object get(String key) {
+            return values.get(key);
+        }
+
+        @Override
+        public Object put(String key, Object value) {
+            return values.put(key, value);
+        }
+
+        @Override
+        public Object remove(String key) {
+            return values.remove(key);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.healthcanada.jira.github.security;
+
+import org.junit.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNull;
+
+public class WebhookValidatorTest {
+
+    private static final String SECRET = "webhook-secret";
+
+    @Test
+    public void returnsBodyWhenSignatureMatches() throws Exception {
+        byte[] body = "{\"action\":\"opened\"}".getBytes(StandardCharsets.UTF_8);
+
+        assertArrayEquals(body, WebhookValidator.readAndVerify(new ByteArrayInputStream(body),
+                sign(body, SECRET), SECRET, 1024));
+    }
+
+    @Test
+    public void acceptsBodiesLargerThanInitialBuffer() throws Exception {
+        byte[] body = new byte[200 * 1024];
+        Arrays.fill(body, (byte) 'a');
+
+        assertArrayEquals(body, WebhookValidator.readAndVerify(new ByteArrayInputStream(body),
+                sign(body, SECRET), SECRET, body.length));
+    }
+
+    @Test
+    public void rejectsSignatureWithOtherSecret() throws Exception {
+        byte[] body = "{\"action\":\"opened\"}".getBytes(StandardCharsets.UTF_8);
+
+        assertNull(WebhookValidator.readAndVerify(new ByteArrayInputStream(body),
+                sign(body, "other-secret"), SECRET, 1024));
+    }
+
+    @Test
+    public void rejectsMalformedSignature() throws Exception {
+        byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+
+        assertNull(WebhookValidator.readAndVerify(new ByteArrayInputStream(body), "sha1=abc", SECRET, 1024));
+        String signature = sign(body, SECRET);
+        assertNull(WebhookValidator.readAndVerify(new ByteArrayInputStream(body),
+                signature.substring(0, signature.length() - 1) + "g", SECRET, 1024));
+    }
+
+    @Test(expected = WebhookValidator.PayloadTooLargeException.class)
+    public void rejectsBodyAboveLimit() throws Exception {
+        byte[] body = new byte[128 * 1024 + 1];
+
+        WebhookValidator.readAndVerify(new ByteArrayInputStream(body), sign(body, SECRET), SECRET, 128 * 1024);
+    }
+
+    @Test(expected = WebhookValidator.PayloadTooLargeException.class)
+    public void limitAppliesWhenThreadBufferIsLarger() throws Exception {
+        byte[] large = new byte[256 * 1024];
+        WebhookValidator.readAndVerify(new ByteArrayInputStream(large), sign(large, SECRET), SECRET, large.length);
+
+        byte[] body = new byte[1025];
+        WebhookValidator.readAndVerify(new ByteArrayInputStream(body), sign(body, SECRET), SECRET, 1024);
+    }
+
+    private static String sign(byte[] body, String secret) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        StringBuilder hex = new StringBuilder("sha256=");
+        for (byte b : mac.doFinal(body)) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
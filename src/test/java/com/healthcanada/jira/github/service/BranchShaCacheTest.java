@@ -0,0 +1,54 @@
+package com.healthcanada.jira.github.service;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class BranchShaCacheTest {
+
+    private final BranchShaCache cache = new BranchShaCache(60000, 100);
+
+    @Test
+    public void pushMovesHeadAndRepositoryNameIsCaseInsensitive() {
+        cache.put("Owner", "Repo", "main", "aaa");
+        cache.onPush("owner/repo", "main", "aaa", "bbb", false);
+
+        assertEquals("bbb", cache.get("OWNER", "REPO", "main"));
+        assertNull(cache.get("owner", "repo", "MAIN"));
+    }
+
+    @Test
+    public void pushNotFollowingCachedHeadDropsEntry() {
+        cache.put("owner", "repo", "main", "aaa");
+        cache.onPush("owner/repo", "main", "zzz", "bbb", false);
+
+        assertNull(cache.get("owner", "repo", "main"));
+    }
+
+    @Test
+    public void deletedBranchIsForgotten() {
+        cache.put("owner", "repo", "feature", "aaa");
+        cache.onPush("owner/repo", "feature", "aaa", "0000000000000000000000000000000000000000", true);
+
+        assertNull(cache.get("owner", "repo", "feature"));
+    }
+
+    @Test
+    public void invalidateForgetsRejectedHead() {
+        cache.put("owner", "repo", "main", "aaa");
+        cache.invalidate("owner", "repo", "main");
+
+        assertNull(cache.get("owner", "repo", "main"));
+    }
+
+    @Test
+    public void expiredEntryIsIgnored() throws Exception {
+        BranchShaCache shortLived = new BranchShaCache(1, 100);
+        shortLived.put("owner", "repo", "main", "aaa");
+        Thread.sleep(10);
+
+        assertNull(shortLived.get("owner", "repo", "main"));
+        assertEquals(1L, shortLived.getStatistics().get("staleHits"));
+    }
+}
@@ -0,0 +1,111 @@
+package com.healthcanada.jira.github.service;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ConcurrencyLimiterTest {
+
+    private static final long LATENCY = TimeUnit.MILLISECONDS.toNanos(20);
+
+    @Test
+    public void startsAtHalfThePoolAndQueuesInArrivalOrder() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("test", 4);
+        List<Integer> granted = new ArrayList<>();
+
+        assertTrue(limiter.tryAcquire(() -> granted.add(0)));
+        assertTrue(limiter.tryAcquire(() -> granted.add(0)));
+        for (int i = 1; i <= 3; i++) {
+            int id = i;
+            assertFalse(limiter.tryAcquire(() -> granted.add(id)));
+        }
+        assertEquals(3, limiter.getStatistics().get("queued"));
+
+        limiter.onIgnore();
+        limiter.onIgnore();
+        limiter.onIgnore();
+
+        assertEquals(java.util.Arrays.asList(1, 2, 3), granted);
+        assertEquals(2, limiter.getStatistics().get("inFlight"));
+    }
+
+    @Test
+    public void backsOffAfterDroppedRequests() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("test", 16);
+        assertEquals(8, limiter.getStatistics().get("limit"));
+
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire(null);
+            if (i == 0) {
+                limiter.onDropped(LATENCY);
+            } else {
+                limiter.onSuccess(LATENCY);
+            }
+        }
+
+        assertEquals(6, limiter.getStatistics().get("limit"));
+        assertEquals(1L, limiter.getStatistics().get("decreases"));
+    }
+
+    @Test
+    public void growsOnlyWhenTheLimitIsUsedAndStaysBelowTheMaximum() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("test", 4);
+
+        runWindow(limiter, 1);
+        assertEquals(2, limiter.getStatistics().get("limit"));
+
+        runWindow(limiter, 2);
+        assertEquals(3, limiter.getStatistics().get("limit"));
+        assertEquals(1L, limiter.getStatistics().get("increases"));
+
+        limiter.setMaxLimit(2);
+        assertEquals(2, limiter.getStatistics().get("limit"));
+    }
+
+    @Test(timeout = 5000)
+    public void blockingCallerIsWokenWhenASlotFrees() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("test", 2);
+        limiter.acquire();
+        CountDownLatch acquired = new CountDownLatch(1);
+
+        Thread waiter = new Thread(() -> {
+            try {
+                limiter.acquire();
+                acquired.countDown();
+            } catch (Exception e) {
+                // the latch stays closed and the test fails
+            }
+        });
+        waiter.start();
+        while (!Integer.valueOf(1).equals(limiter.getStatistics().get("queued"))) {
+            Thread.sleep(5);
+        }
+
+        limiter.onSuccess(LATENCY);
+
+        assertTrue(acquired.await(2, TimeUnit.SECONDS));
+        waiter.join();
+        assertEquals(1, limiter.getStatistics().get("inFlight"));
+    }
+
+    /**
+     * Complete one window of ten requests in batches of the given size
+     */
+    private static void runWindow(ConcurrencyLimiter limiter, int concurrency) {
+        for (int batch = 0; batch < 10 / concurrency; batch++) {
+            for (int i = 0; i < concurrency; i++) {
+                assertTrue(limiter.tryAcquire(null));
+            }
+            for (int i = 0; i < concurrency; i++) {
+                limiter.onSuccess(LATENCY);
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.healthcanada.jira.github.service;
+
+import com.healthcanada.jira.github.model.GitHubException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class GitHubAsyncClientTest {
+
+    private ScheduledExecutorService scheduler;
+    private CircuitBreaker circuitBreaker;
+    private ConcurrencyLimiter concurrencyLimiter;
+    private GitHubAsyncClient client;
+
+    @Before
+    public void setUp() {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        circuitBreaker = new CircuitBreaker("github.example.com", 50, 10000, 30000);
+        concurrencyLimiter = new ConcurrencyLimiter("github.example.com", 4);
+        client = new GitHubAsyncClient("https://github.example.com", "token", false, 4, 4,
+                new GitHubResponseCache(10), new RateLimitScheduler(), circuitBreaker, concurrencyLimiter,
+                new RetryPolicy(), scheduler);
+    }
+
+    @After
+    public void tearDown() {
+        client.close();
+        scheduler.shutdownNow();
+    }
+
+    @Test(timeout = 5000)
+    public void requestThatCannotBeBuiltFailsFutureAndFreesSlot() throws Exception {
+        // A space is not allowed in a request URI, so building the request throws
+        CompletableFuture<String> sha = client.getBranchSha("owner", "repo", "bad branch");
+
+        try {
+            sha.get(5, TimeUnit.SECONDS);
+            fail("Expected failure");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof GitHubException);
+            assertTrue(e.getCause().getCause() instanceof IllegalArgumentException);
+        }
+        assertEquals(0, concurrencyLimiter.getStatistics().get("inFlight"));
+        assertEquals(0, client.getInFlightRequests());
+    }
+}
@@ -0,0 +1,112 @@
+package com.healthcanada.jira.github.service;
+
+import com.atlassian.jira.cluster.ClusterMessagingService;
+import com.atlassian.sal.api.pluginsettings.PluginSettingsFactory;
+import com.healthcanada.jira.github.model.GitHubConfig;
+import com.healthcanada.jira.github.security.TokenEncryption;
+import com.healthcanada.jira.github.storage.PluginConfigurationManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+
+public class GitHubClientRegistryTest {
+
+    private GitHubClientRegistry registry;
+
+    @Before
+    public void setUp() {
+        PluginConfigurationManager configManager = new PluginConfigurationManager(
+                mock(PluginSettingsFactory.class), new TokenEncryption(), mock(ClusterMessagingService.class));
+        registry = new GitHubClientRegistry(configManager);
+    }
+
+    @After
+    public void tearDown() {
+        registry.destroy();
+    }
+
+    @Test
+    public void leaseHeldAcrossRetirementKeepsClientOpen() throws Exception {
+        GitHubConfig config = config("https://github.example.com", "token-1");
+        GitHubClientRegistry.Lease<GitHubEnterpriseClient> lease = registry.leaseClient(config);
+        GitHubEnterpriseClient client = lease.getClient();
+        assertEquals(1, client.getInFlightRequests());
+
+        registry.onConfigurationChanged(config("https://github.example.com", "token-2"));
+
+        // Still referenced by the lease, so it is not closed and not handed out again
+        assertEquals(1, client.getInFlightRequests());
+        assertFalse(client.retain());
+
+        lease.close();
+        lease.close();
+        assertEquals(0, client.getInFlightRequests());
+    }
+
+    @Test
+    public void retiredClientIsNeverLeasedAgain() throws Exception {
+        GitHubConfig first = config("https://github.example.com", "token-1");
+        GitHubEnterpriseClient retired;
+        try (GitHubClientRegistry.Lease<GitHubEnterpriseClient> lease = registry.leaseClient(first)) {
+            retired = lease.getClient();
+        }
+
+        GitHubConfig second = config("https://github.example.com", "token-2");
+        registry.onConfigurationChanged(second);
+
+        try (GitHubClientRegistry.Lease<GitHubEnterpriseClient> lease = registry.leaseClient(second)) {
+            assertNotSame(retired, lease.getClient());
+        }
+    }
+
+    @Test
+    public void unchangedSettingsShareOneClient() throws Exception {
+        GitHubConfig config = config("https://github.example.com", "token-1");
+        try (GitHubClientRegistry.Lease<GitHubEnterpriseClient> a = registry.leaseClient(config);
+             GitHubClientRegistry.Lease<GitHubEnterpriseClient> b = registry.leaseClient(config)) {
+            assertSame(a.getClient(), b.getClient());
+            assertEquals(2, a.getClient().getInFlightRequests());
+        }
+    }
+
+    @Test
+    public void asyncLeaseAfterRetirementGetsNewClient() throws Exception {
+        GitHubConfig first = config("https://github.example.com", "token-1");
+        GitHubAsyncClient retired;
+        try (GitHubClientRegistry.Lease<GitHubAsyncClient> lease = registry.leaseAsyncClient(first)) {
+            retired = lease.getClient();
+        }
+
+        GitHubConfig second = config("https://github.example.com", "token-2");
+        registry.onConfigurationChanged(second);
+
+        try (GitHubClientRegistry.Lease<GitHubAsyncClient> lease = registry.leaseAsyncClient(second)) {
+            assertNotSame(retired, lease.getClient());
+        }
+        assertFalse(retired.retain());
+    }
+
+    @Test
+    public void blockingAndAsyncClientsShareTheHostLimiter() throws Exception {
+        GitHubConfig config = config("https://github.example.com", "token-1");
+        try (GitHubClientRegistry.Lease<GitHubAsyncClient> async = registry.leaseAsyncClient(config);
+             GitHubClientRegistry.Lease<GitHubEnterpriseClient> blocking = registry.leaseClient(config)) {
+            assertNotNull(async.getClient().getConcurrencyLimiter());
+            assertSame(blocking.getClient().getConcurrencyLimiter(), async.getClient().getConcurrencyLimiter());
+        }
+    }
+
+    private static GitHubConfig config(String url, String token) {
+        GitHubConfig config = new GitHubConfig();
+        config.setGithubEnterpriseUrl(url);
+        config.setGithubToken(token);
+        return config;
+    }
+}
@@ -0,0 +1,144 @@
+package com.healthcanada.jira.github.service;
+
+import com.healthcanada.jira.github.model.BranchInfo;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Client calls against a local HTTP server standing in for GitHub Enterprise
+ */
+public class GitHubEnterpriseClientTest {
+
+    private final Map<String, Response> responses = new ConcurrentHashMap<>();
+    private final Map<String, String> requests = new ConcurrentHashMap<>();
+    private final List<String> requested = new CopyOnWriteArrayList<>();
+    private final GitHubResponseCache responseCache = new GitHubResponseCache(10);
+    private HttpServer server;
+    private String baseUrl;
+    private GitHubEnterpriseClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::respond);
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        client = new GitHubEnterpriseClient(baseUrl, "token", false,
+                4, 4, responseCache, new RateLimitScheduler(), null, null,
+                new RequestCoalescer(), new RetryPolicy());
+    }
+
+    @After
+    public void tearDown() {
+        client.close();
+        server.stop(0);
+    }
+
+    @Test
+    public void findBranchesMatchesByPrefix() throws Exception {
+        serve("/api/graphql", "{\"data\":{\"r0\":{\"nameWithOwner\":\"acme/app\","
+                + "\"url\":\"https://github.example.com/acme/app\",\"refs\":{\"nodes\":["
+                + "{\"name\":\"feature/XABC-1-login\",\"target\":{\"oid\":\"a1\"}},"
+                + "{\"name\":\"ABC-1-login\",\"target\":{\"oid\":\"b2\"}},"
+                + "{\"name\":\"ABC-1-logout\",\"target\":{\"oid\":\"c3\"}}]}}}}", null);
+
+        List<BranchInfo> branches = client.findBranches(Collections.singletonList("acme/app"), "ABC-1", 1);
+
+        // The substring match feature/XABC-1-login neither comes back nor uses up the limit of one
+        assertEquals(1, branches.size());
+        assertEquals("ABC-1-login", branches.get(0).getName());
+        assertEquals("b2", branches.get(0).getSha());
+        assertEquals("https://github.example.com/acme/app/tree/ABC-1-login", branches.get(0).getUrl());
+        assertTrue(requests.get("/api/graphql").contains("\"first\":100"));
+    }
+
+    @Test
+    public void forEachBranchStopsFetchingOnceTheVisitorDeclines() throws Exception {
+        servePagedBranches();
+        List<String> visited = new ArrayList<>();
+
+        client.forEachBranch("acme", "app", name -> visited.add(name) && visited.size() < 2);
+
+        assertEquals(Arrays.asList("main", "develop"), visited);
+        assertEquals(Collections.singletonList("/api/v3/repos/acme/app/branches?per_page=100"), requested);
+    }
+
+    @Test
+    public void onlyTheFirstBranchPageIsCached() throws Exception {
+        servePagedBranches();
+
+        assertEquals(Arrays.asList("main", "develop", "feature/ABC-1"), client.listBranches("acme", "app"));
+
+        assertEquals(2, requested.size());
+        assertEquals(1, responseCache.getStatistics().get("entries"));
+    }
+
+    private void servePagedBranches() {
+        String branches = "/api/v3/repos/acme/app/branches";
+        serve(branches + "?per_page=100", "[{\"name\":\"main\"},{\"name\":\"develop\"}]",
+                "<" + baseUrl + branches + "?per_page=100&page=2>; rel=\"next\"");
+        serve(branches + "?per_page=100&page=2", "[{\"name\":\"feature/ABC-1\"}]", null);
+    }
+
+    private void serve(String uri, String body, String link) {
+        responses.put(uri, new Response(body, link));
+    }
+
+    private void respond(HttpExchange exchange) throws IOException {
+        String uri = exchange.getRequestURI().toString();
+        requested.add(uri);
+        requests.put(exchange.getRequestURI().getPath(), read(exchange.getRequestBody()));
+        Response response = responses.get(uri);
+        byte[] bytes = (response == null ? "{\"message\":\"Not Found\"}" : response.body)
+                .getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.getResponseHeaders().set("ETag", "\"" + uri.hashCode() + "\"");
+        if (response != null && response.link != null) {
+            exchange.getResponseHeaders().set("Link", response.link);
+        }
+        exchange.sendResponseHeaders(response == null ? 404 : 200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        for (int n; (n = in.read(buffer)) > 0; ) {
+            out.write(buffer, 0, n);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static final class Response {
+        private final String body;
+        private final String link;
+
+        private Response(String body, String link) {
+            this.body = body;
+            this.link = link;
+        }
+    }
+}
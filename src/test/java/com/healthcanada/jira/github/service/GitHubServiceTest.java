@@ -0,0 +1,23 @@
+package com.healthcanada.jira.github.service;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class GitHubServiceTest {
+
+    @Test
+    public void branchPrefixStopsAtTheIssueKey() {
+        assertEquals("feature/ABC-1", GitHubService.branchPrefix("feature/{issueKey}-{summary}", "ABC", "ABC-1"));
+        assertEquals("abc/ABC-1", GitHubService.branchPrefix("abc/{issueKey}", "ABC", "ABC-1"));
+        assertEquals("ABC/ABC-1", GitHubService.branchPrefix("{project}/{issueKey}", "ABC", "ABC-1"));
+    }
+
+    @Test
+    public void branchPrefixNeedsALiteralHead() {
+        assertNull(GitHubService.branchPrefix("{issueType}/{issueKey}", "ABC", "ABC-1"));
+        assertNull(GitHubService.branchPrefix("feature/{summary}", "ABC", "ABC-1"));
+        assertNull(GitHubService.branchPrefix(null, "ABC", "ABC-1"));
+    }
+}
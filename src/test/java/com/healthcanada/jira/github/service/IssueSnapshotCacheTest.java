@@ -0,0 +1,105 @@
+package com.healthcanada.jira.github.service;
+
+import com.atlassian.event.api.EventPublisher;
+import com.atlassian.jira.issue.Issue;
+import com.atlassian.jira.user.ApplicationUser;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class IssueSnapshotCacheTest {
+
+    private static final Map<String, String> DETAILS = Collections.singletonMap("summary", "Fix login");
+
+    private IssueSnapshotCache cache;
+    private ApplicationUser user;
+
+    @Before
+    public void setUp() {
+        cache = new IssueSnapshotCache(mock(EventPublisher.class));
+        user = mock(ApplicationUser.class);
+        when(user.getKey()).thenReturn("alice");
+    }
+
+    @Test
+    public void loadOverlappingEventForOtherIssueIsCached() {
+        long stamp = cache.startLoad();
+        cache.invalidate(2L, "ABC-2");
+        cache.putDetails(issue(1L, "ABC-1"), DETAILS, stamp);
+
+        assertEquals(DETAILS, cache.getDetails("abc-1"));
+    }
+
+    @Test
+    public void loadOverlappingEventForSameIssueIsDiscarded() {
+        long stamp = cache.startLoad();
+        cache.invalidate(1L, "ABC-1");
+        cache.putDetails(issue(1L, "ABC-1"), DETAILS, stamp);
+        cache.putPermission(user, "ABC-1", 1L, true, stamp);
+
+        assertNull(cache.getDetails("ABC-1"));
+        assertNull(cache.getPermission(user, "ABC-1"));
+    }
+
+    @Test
+    public void eventForMovedIssueDropsEntriesUnderOldKey() {
+        long stamp = cache.startLoad();
+        cache.putDetails(issue(1L, "OLD-1"), DETAILS, stamp);
+        cache.putPermission(user, "OLD-1", 1L, true, stamp);
+        assertNotNull(cache.getPermission(user, "OLD-1"));
+
+        // Event raised for the issue under its new key
+        cache.invalidate(1L, "NEW-7");
+
+        assertNull(cache.getDetails("OLD-1"));
+        assertNull(cache.getPermission(user, "OLD-1"));
+    }
+
+    @Test
+    public void keyReusedByAnotherIssueDropsOldEntries() {
+        long stamp = cache.startLoad();
+        cache.putDetails(issue(1L, "ABC-1"), DETAILS, stamp);
+        cache.putPermission(user, "ABC-1", 2L, false, stamp);
+
+        assertNull(cache.getDetails("ABC-1"));
+        assertEquals(Boolean.FALSE, cache.getPermission(user, "ABC-1"));
+    }
+
+    @Test
+    public void clearDiscardsLoadsStartedBefore() {
+        long stamp = cache.startLoad();
+        cache.clear();
+        cache.putDetails(issue(1L, "ABC-1"), DETAILS, stamp);
+
+        assertNull(cache.getDetails("ABC-1"));
+        cache.putDetails(issue(1L, "ABC-1"), DETAILS, cache.startLoad());
+        assertEquals(DETAILS, cache.getDetails("ABC-1"));
+    }
+
+    @Test
+    public void deniedPermissionWithoutIssueIdIsDroppedByKey() {
+        cache.putPermission(user, "ABC-1", null, false, cache.startLoad());
+        assertEquals(Boolean.FALSE, cache.getPermission(user, "ABC-1"));
+
+        cache.invalidate(1L, "ABC-1");
+
+        assertNull(cache.getPermission(user, "ABC-1"));
+        assertTrue(((Long) cache.getStatistics().get("invalidations")) > 0);
+    }
+
+    private static Issue issue(Long id, String key) {
+        Issue issue = mock(Issue.class);
+        when(issue.getId()).thenReturn(id);
+        when(issue.getKey()).thenReturn(key);
+        return issue;
+    }
+}
@@ -0,0 +1,108 @@
+package com.healthcanada.jira.github.service;
+
+import com.atlassian.jira.bc.issue.IssueService;
+import com.atlassian.jira.bc.issue.comment.CommentService;
+import com.atlassian.jira.cluster.ClusterMessagingService;
+import com.atlassian.jira.issue.IssueManager;
+import com.atlassian.jira.issue.MutableIssue;
+import com.atlassian.jira.security.JiraAuthenticationContext;
+import com.atlassian.jira.user.ApplicationUser;
+import com.atlassian.jira.user.util.UserManager;
+import com.atlassian.sal.api.ApplicationProperties;
+import com.atlassian.sal.api.pluginsettings.PluginSettingsFactory;
+import com.healthcanada.jira.github.model.GitHubConfig;
+import com.healthcanada.jira.github.security.TokenEncryption;
+import com.healthcanada.jira.github.storage.PluginConfigurationManager;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class JiraServiceTest {
+
+    private final IssueManager issueManager = mock(IssueManager.class);
+    private final CommentService commentService = mock(CommentService.class);
+    private final JiraAuthenticationContext authenticationContext = mock(JiraAuthenticationContext.class);
+    private final UserManager userManager = mock(UserManager.class);
+    private final MutableIssue issue = mock(MutableIssue.class);
+    private final ApplicationUser integrationUser = mock(ApplicationUser.class);
+    private final CommentService.CommentCreateValidationResult validation =
+            mock(CommentService.CommentCreateValidationResult.class);
+    private final GitHubConfig config = new GitHubConfig();
+
+    private JiraService jiraService;
+
+    @Before
+    public void setUp() {
+        PluginConfigurationManager configManager = new PluginConfigurationManager(
+                mock(PluginSettingsFactory.class), new TokenEncryption(), mock(ClusterMessagingService.class)) {
+            @Override
+            public GitHubConfig getConfiguration() {
+                return config;
+            }
+        };
+        jiraService = new JiraService(issueManager, mock(IssueService.class), commentService, authenticationContext,
+                mock(ApplicationProperties.class), null, null, configManager, userManager);
+
+        config.setIntegrationUser("github-bot");
+        when(userManager.getUserByName("github-bot")).thenReturn(integrationUser);
+        when(issueManager.getIssueByCurrentKey("ABC-1")).thenReturn(issue);
+        when(validation.isValid()).thenReturn(true);
+    }
+
+    @Test
+    public void webhookCommentIsWrittenByTheIntegrationUser() {
+        when(commentService.validateCommentCreate(same(integrationUser), any())).thenReturn(validation);
+
+        jiraService.addComment("ABC-1", "2 commits pushed to feature/ABC-1");
+
+        ArgumentCaptor<CommentService.CommentParameters> parameters =
+                ArgumentCaptor.forClass(CommentService.CommentParameters.class);
+        verify(commentService).validateCommentCreate(same(integrationUser), parameters.capture());
+        assertSame(issue, parameters.getValue().getIssue());
+        assertEquals("2 commits pushed to feature/ABC-1", parameters.getValue().getBody());
+        verify(commentService).create(integrationUser, validation, true);
+        verify(authenticationContext).setLoggedInUser(integrationUser);
+        verify(authenticationContext).setLoggedInUser(null);
+    }
+
+    @Test
+    public void loggedInUserWritesTheCommentWhenPresent() {
+        ApplicationUser loggedInUser = mock(ApplicationUser.class);
+        when(authenticationContext.getLoggedInUser()).thenReturn(loggedInUser);
+        when(commentService.validateCommentCreate(same(loggedInUser), any())).thenReturn(validation);
+
+        jiraService.addComment("ABC-1", "Pull request opened");
+
+        verify(commentService).create(loggedInUser, validation, true);
+        verify(authenticationContext, never()).setLoggedInUser(any());
+    }
+
+    @Test
+    public void commentIsSkippedWithoutAnyUser() {
+        config.setIntegrationUser(null);
+
+        jiraService.addComment("ABC-1", "Pull request opened");
+
+        verify(commentService, never()).validateCommentCreate(any(), any());
+    }
+
+    @Test
+    public void invalidCommentIsNotCreated() {
+        when(validation.isValid()).thenReturn(false);
+        when(commentService.validateCommentCreate(same(integrationUser), any())).thenReturn(validation);
+
+        jiraService.addComment("ABC-1", "Pull request opened");
+
+        verify(commentService, never()).create(any(), any(), anyBoolean());
+    }
+}
@@ -0,0 +1,116 @@
+package com.healthcanada.jira.github.service;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RequestCoalescerTest {
+
+    @Test(timeout = 5000)
+    public void concurrentCallersShareOneExecution() throws Exception {
+        RequestCoalescer coalescer = new RequestCoalescer();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        AtomicInteger executions = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> leader = executor.submit(() -> coalescer.execute("GET /repos", "token", () -> {
+                executions.incrementAndGet();
+                started.countDown();
+                await(finish);
+                return "result";
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<String> waiter = executor.submit(() -> coalescer.execute("GET /repos", "token", () -> {
+                executions.incrementAndGet();
+                return "other";
+            }));
+            awaitCoalesced(coalescer);
+            finish.countDown();
+
+            assertEquals("result", leader.get());
+            assertEquals("result", waiter.get());
+            assertEquals(1, executions.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void errorReachesWaitersAndClearsEntry() throws Exception {
+        RequestCoalescer coalescer = new RequestCoalescer();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> leader = executor.submit(() -> coalescer.execute("GET /repos", "token", () -> {
+                started.countDown();
+                await(finish);
+                throw new AssertionError("simulated");
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<String> waiter = executor.submit(() -> coalescer.execute("GET /repos", "token", () -> "other"));
+            awaitCoalesced(coalescer);
+            finish.countDown();
+
+            assertFailedWith(leader, "simulated");
+            assertFailedWith(waiter, "simulated");
+            assertEquals(0, coalescer.getStatistics().get("inFlight"));
+            assertEquals("fresh", coalescer.execute("GET /repos", "token", () -> "fresh"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void runtimeExceptionIsRethrown() throws Exception {
+        RequestCoalescer coalescer = new RequestCoalescer();
+        try {
+            coalescer.execute("GET /repos", "token", () -> {
+                throw new IllegalStateException("boom");
+            });
+            fail("Expected exception");
+        } catch (IllegalStateException e) {
+            assertEquals("boom", e.getMessage());
+        }
+        assertEquals(0, coalescer.getStatistics().get("inFlight"));
+    }
+
+    private static void assertFailedWith(Future<?> future, String message) throws InterruptedException {
+        try {
+            future.get();
+            fail("Expected failure");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof AssertionError);
+            assertEquals(message, e.getCause().getMessage());
+        }
+    }
+
+    private static void awaitCoalesced(RequestCoalescer coalescer) throws InterruptedException {
+        while (((Long) coalescer.getStatistics().get("coalesced")) == 0) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static void await(CountDownLatch latch) throws IOException {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+    }
+}
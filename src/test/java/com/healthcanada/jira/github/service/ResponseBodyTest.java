@@ -0,0 +1,210 @@
+package com.healthcanada.jira.github.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.util.EntityUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Streaming parse, size cap and error body truncation of GitHub responses,
+ * plus the allocation comparison for a 5 MB list response
+ */
+public class ResponseBodyTest {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void parsesBodyFromStream() throws Exception {
+        HttpResponse response = response(new ByteArrayEntity("[{\"name\":\"main\"}]".getBytes(StandardCharsets.UTF_8)));
+
+        try (InputStream body = GitHubEnterpriseClient.openBody(response)) {
+            assertEquals("main", objectMapper.readTree(body).get(0).get("name").asText());
+        }
+    }
+
+    @Test
+    public void decodesGzipBody() throws Exception {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write("{\"sha\":\"abc\"}".getBytes(StandardCharsets.UTF_8));
+        }
+        ByteArrayEntity entity = new ByteArrayEntity(compressed.toByteArray());
+        entity.setContentEncoding("gzip");
+
+        try (InputStream body = GitHubEnterpriseClient.openBody(response(entity))) {
+            assertEquals("abc", objectMapper.readTree(body).get("sha").asText());
+        }
+    }
+
+    @Test(expected = GitHubEnterpriseClient.ResponseTooLargeException.class)
+    public void rejectsDeclaredLengthAboveCap() throws Exception {
+        BasicHttpEntity entity = new BasicHttpEntity();
+        entity.setContent(new ByteArrayInputStream(new byte[0]));
+        entity.setContentLength(64L * 1024 * 1024);
+
+        GitHubEnterpriseClient.openBody(response(entity));
+    }
+
+    @Test
+    public void failsChunkedBodyOnceCapIsCrossed() throws Exception {
+        BasicHttpEntity entity = new BasicHttpEntity();
+        entity.setContent(new EndlessArray());
+        entity.setContentLength(-1);
+
+        try (InputStream body = GitHubEnterpriseClient.openBody(response(entity))) {
+            objectMapper.readTree(body);
+            fail("Expected the size cap to stop parsing");
+        } catch (GitHubEnterpriseClient.ResponseTooLargeException expected) {
+            // Stopped at the cap instead of buffering the whole body
+        }
+    }
+
+    @Test
+    public void truncatesLongErrorBody() throws Exception {
+        StringBuilder message = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            message.append('x');
+        }
+        HttpResponse response = response(new ByteArrayEntity(message.toString().getBytes(StandardCharsets.UTF_8)));
+
+        String body = GitHubEnterpriseClient.readErrorBody(null, response);
+
+        assertEquals(4096 + "... (truncated)".length(), body.length());
+        assertTrue(body.endsWith("... (truncated)"));
+    }
+
+    @Test
+    public void abortsInsteadOfDrainingLongErrorBody() throws Exception {
+        AtomicBoolean closed = new AtomicBoolean();
+        BasicHttpEntity entity = new BasicHttpEntity();
+        entity.setContent(new FilterInputStream(new EndlessArray()) {
+            @Override
+            public void close() {
+                // Closing an HttpClient stream reads the body to its end
+                closed.set(true);
+            }
+        });
+        entity.setContentLength(-1);
+        HttpGet request = new HttpGet("https://github.example.com/api/v3/user");
+
+        String body = GitHubEnterpriseClient.readErrorBody(request, response(entity));
+
+        assertTrue(body.endsWith("... (truncated)"));
+        assertTrue(request.isAborted());
+        assertFalse(closed.get());
+    }
+
+    @Test
+    public void closesShortErrorBody() throws Exception {
+        HttpGet request = new HttpGet("https://github.example.com/api/v3/user");
+        HttpResponse response = response(new ByteArrayEntity("{\"message\":\"Not Found\"}".getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals("{\"message\":\"Not Found\"}", GitHubEnterpriseClient.readErrorBody(request, response));
+        assertFalse(request.isAborted());
+    }
+
+    @Test
+    public void streamingAllocatesLessThanBufferingFiveMegabyteList() throws Exception {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)
+                || !((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()) {
+            return;
+        }
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        allocations.setThreadAllocatedMemoryEnabled(true);
+        byte[] payload = branchList(5 * 1024 * 1024);
+
+        // Warm up both paths before measuring
+        for (int i = 0; i < 3; i++) {
+            parseStreaming(payload);
+            parseBuffered(payload);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long before = allocations.getThreadAllocatedBytes(threadId);
+        JsonNode streamed = parseStreaming(payload);
+        long streaming = allocations.getThreadAllocatedBytes(threadId) - before;
+
+        before = allocations.getThreadAllocatedBytes(threadId);
+        JsonNode buffered = parseBuffered(payload);
+        long buffering = allocations.getThreadAllocatedBytes(threadId) - before;
+
+        System.out.printf("5 MB list response: streaming %d KB, toString + readTree %d KB allocated%n",
+                streaming / 1024, buffering / 1024);
+        assertEquals(buffered.size(), streamed.size());
+        assertTrue(streaming < buffering);
+    }
+
+    private static JsonNode parseStreaming(byte[] payload) throws Exception {
+        try (InputStream body = GitHubEnterpriseClient.openBody(response(new ByteArrayEntity(payload)))) {
+            return objectMapper.readTree(body);
+        }
+    }
+
+    private static JsonNode parseBuffered(byte[] payload) throws Exception {
+        // How handleResponse read bodies before streaming
+        return objectMapper.readTree(EntityUtils.toString(new ByteArrayEntity(payload), StandardCharsets.UTF_8));
+    }
+
+    private static byte[] branchList(int size) {
+        StringBuilder json = new StringBuilder(size + 256).append('[');
+        for (int i = 0; json.length() < size; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"name\":\"feature/PROJ-").append(i)
+                    .append("-branch\",\"commit\":{\"sha\":\"")
+                    .append(String.format("%040x", i))
+                    .append("\",\"url\":\"https://github.example.com/api/v3/repos/owner/repo/commits/")
+                    .append(i).append("\"},\"protected\":false}");
+        }
+        return json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static HttpResponse response(HttpEntity entity) {
+        HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+        response.setEntity(entity);
+        return response;
+    }
+
+    /**
+     * A JSON array that never ends, as an oversized chunked body would look
+     */
+    private static final class EndlessArray extends InputStream {
+        private final byte[] element = "{\"name\":\"branch\"},".getBytes(StandardCharsets.UTF_8);
+        private boolean started;
+        private int position;
+
+        @Override
+        public int read() {
+            if (!started) {
+                started = true;
+                return '[';
+            }
+            int b = element[position];
+            position = (position + 1) % element.length;
+            return b;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.healthcanada.jira.github.service;
+
+import com.healthcanada.jira.github.model.GitHubException;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.utils.DateUtils;
+import org.apache.http.message.BasicHttpResponse;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RetryPolicyTest {
+
+    @Test
+    public void idleBudgetAllowsOnlySmallBurst() {
+        RetryPolicy policy = new RetryPolicy(1000, 0);
+
+        int allowed = 0;
+        for (int i = 0; i < 50; i++) {
+            if (policy.start("getBranchSha", true).nextDelay(new IOException("reset")) >= 0) {
+                allowed++;
+            }
+        }
+
+        // The idle trickle tops up to ten retries at most
+        assertTrue("allowed " + allowed, allowed >= 10 && allowed <= 11);
+    }
+
+    @Test
+    public void trafficBuildsBudgetBeyondTrickle() {
+        RetryPolicy policy = new RetryPolicy(1000, 20);
+        for (int i = 0; i < 500; i++) {
+            policy.start("getBranchSha", true);
+        }
+
+        int allowed = 0;
+        RetryPolicy.Request request = policy.start("getBranchSha", true);
+        while (request.nextDelay(new IOException("reset")) >= 0) {
+            allowed++;
+        }
+
+        assertTrue("allowed " + allowed, allowed >= 100 && allowed <= 101);
+    }
+
+    @Test
+    public void postIsRetriedOnlyWhenNotSent() {
+        RetryPolicy policy = new RetryPolicy(3, 20);
+
+        assertEquals(-1, policy.start("createBranch", false).nextDelay(new IOException("reset")));
+        assertTrue(policy.start("createBranch", false).nextDelay(new ConnectException("refused")) >= 0);
+        assertTrue(policy.start("createBranch", false).nextDelay(
+                new GitHubResponseException("rate limited", 429, null, true, -1)) >= 0);
+        assertEquals(-1, policy.start("createBranch", false).nextDelay(
+                new GitHubResponseException("server error", 502, null, false, -1)));
+        assertEquals(-1, policy.start("getBranchSha", true).nextDelay(new GitHubException("circuit open")));
+    }
+
+    @Test
+    public void delayHonoursServerRequestedWait() {
+        RetryPolicy policy = new RetryPolicy(3, 20);
+
+        long delay = policy.start("getBranchSha", true).nextDelay(
+                new GitHubResponseException("rate limited", 429, null, true, 30000));
+        assertTrue("delay " + delay, delay >= 30000);
+        assertEquals(-1, policy.start("getBranchSha", true).nextDelay(
+                new GitHubResponseException("rate limited", 429, null, true, 120000)));
+    }
+
+    @Test
+    public void retryAfterInSeconds() {
+        HttpResponse response = response();
+        response.setHeader("Retry-After", "7");
+
+        assertEquals(7000, RetryPolicy.serverDelayMillis(response));
+    }
+
+    @Test
+    public void retryAfterAsHttpDate() {
+        HttpResponse response = response();
+        response.setHeader("Retry-After", DateUtils.formatDate(new Date(System.currentTimeMillis() + 20000)));
+
+        long delay = RetryPolicy.serverDelayMillis(response);
+        // HTTP-dates have whole-second precision
+        assertTrue("delay " + delay, delay > 17000 && delay <= 20000);
+    }
+
+    @Test
+    public void exhaustedRateLimitWaitsForReset() {
+        HttpResponse response = response();
+        response.setHeader("X-RateLimit-Remaining", "0");
+        response.setHeader("X-RateLimit-Reset", String.valueOf(System.currentTimeMillis() / 1000 + 10));
+
+        long delay = RetryPolicy.serverDelayMillis(response);
+        assertTrue("delay " + delay, delay > 8000 && delay <= 10000);
+    }
+
+    @Test
+    public void malformedRetryAfterIsIgnored() {
+        HttpResponse response = response();
+        response.setHeader("Retry-After", "soon");
+
+        assertEquals(-1, RetryPolicy.serverDelayMillis(response));
+    }
+
+    private static HttpResponse response() {
+        return new BasicHttpResponse(HttpVersion.HTTP_1_1, 429, "Too Many Requests");
+    }
+}
@@ -0,0 +1,55 @@
+package com.healthcanada.jira.github.service;
+
+import com.atlassian.jira.cluster.ClusterMessagingService;
+import com.atlassian.sal.api.pluginsettings.PluginSettingsFactory;
+import com.healthcanada.jira.github.model.GitHubConfig;
+import com.healthcanada.jira.github.model.RepositoryMapping;
+import com.healthcanada.jira.github.security.TokenEncryption;
+import com.healthcanada.jira.github.storage.PluginConfigurationManager;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+
+public class SyncServiceTest {
+
+    private SyncService syncService;
+
+    @Before
+    public void setUp() {
+        List<RepositoryMapping> repositories = new ArrayList<>();
+        repositories.add(new RepositoryMapping("ABC", "org", "web"));
+        repositories.add(new RepositoryMapping("XYZ", "org", "api"));
+        GitHubConfig config = new GitHubConfig();
+        config.setRepositories(repositories);
+        config.freeze();
+
+        PluginConfigurationManager configManager = new PluginConfigurationManager(
+                mock(PluginSettingsFactory.class), new TokenEncryption(), mock(ClusterMessagingService.class)) {
+            @Override
+            public GitHubConfig getConfiguration() {
+                return config;
+            }
+        };
+        syncService = new SyncService(null, configManager);
+    }
+
+    @Test
+    public void prefersKeysOfTheProjectMappedToTheRepository() {
+        assertEquals("XYZ-2", syncService.extractIssueKey("ABC-1 needs XYZ-2", "Org/API"));
+        assertEquals("ABC-1", syncService.extractIssueKey("ABC-1 needs XYZ-2", "org/web"));
+    }
+
+    @Test
+    public void unmappedRepositoryStillYieldsTheFirstKnownKey() {
+        assertEquals("ABC-1", syncService.extractIssueKey("ABC-1 needs XYZ-2", "org/unmapped"));
+        assertEquals("ABC-1", syncService.extractIssueKey("ABC-1 needs XYZ-2", null));
+        assertEquals("ABC-1", syncService.extractIssueKey("NOPE-9 ABC-1", "org/api"));
+        assertNull(syncService.extractIssueKey("NOPE-9", "org/api"));
+    }
+}
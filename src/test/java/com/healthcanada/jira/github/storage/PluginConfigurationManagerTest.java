@@ -0,0 +1,126 @@
+package com.healthcanada.jira.github.storage;
+
+import com.atlassian.jira.cluster.ClusterMessagingService;
+import com.atlassian.sal.api.pluginsettings.PluginSettings;
+import com.atlassian.sal.api.pluginsettings.PluginSettingsFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.healthcanada.jira.github.model.GitHubConfig;
+import com.healthcanada.jira.github.model.RepositoryMapping;
+import com.healthcanada.jira.github.security.TokenEncryption;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Configuration snapshot reads, plus the comparison against reading storage on every lookup
+ */
+public class PluginConfigurationManagerTest {
+
+    private static final String STORAGE_KEY = "com.healthcanada.jira.github.config";
+
+    private final Map<String, Object> stored = new HashMap<>();
+    private final TokenEncryption tokenEncryption = new TokenEncryption();
+    private PluginConfigurationManager configManager;
+
+    @Before
+    public void setUp() throws Exception {
+        PluginSettingsFactory settingsFactory = mock(PluginSettingsFactory.class);
+        when(settingsFactory.createGlobalSettings()).thenReturn(new MapSettings());
+        configManager = new PluginConfigurationManager(settingsFactory, tokenEncryption,
+                mock(ClusterMessagingService.class));
+        configManager.saveConfiguration(config(200));
+    }
+
+    @Test
+    public void lookupsShareOneDecryptedSnapshot() {
+        GitHubConfig config = configManager.getConfiguration();
+
+        assertSame(config, configManager.getConfiguration());
+        assertEquals("ghp_token", config.getGithubToken());
+        assertFalse(((String) stored.get(STORAGE_KEY)).contains("ghp_token"));
+        assertEquals(1, config.getRepositoryMappings("P7").size());
+    }
+
+    @Test
+    public void snapshotLookupIsFasterThanReadingStorage() throws Exception {
+        int lookups = 500;
+
+        // Warm up both paths before measuring
+        for (int i = 0; i < 100; i++) {
+            lookupFromSnapshot(i);
+            lookupFromStorage(i);
+        }
+
+        long start = System.nanoTime();
+        int found = 0;
+        for (int i = 0; i < lookups; i++) {
+            found += lookupFromSnapshot(i);
+        }
+        long snapshotNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        int foundStored = 0;
+        for (int i = 0; i < lookups; i++) {
+            foundStored += lookupFromStorage(i);
+        }
+        long storageNanos = System.nanoTime() - start;
+
+        System.out.printf("%d mapping lookups, 200 repositories: snapshot %d us, parse + decrypt per call %d us%n",
+                lookups, snapshotNanos / 1000, storageNanos / 1000);
+        assertEquals(foundStored, found);
+        assertTrue(snapshotNanos < storageNanos);
+    }
+
+    private int lookupFromSnapshot(int i) {
+        return configManager.getConfiguration().getRepositoryMappings("P" + (i % 200)).size();
+    }
+
+    private int lookupFromStorage(int i) throws Exception {
+        // How getConfiguration read the configuration before the snapshot
+        GitHubConfig config = new ObjectMapper().readValue((String) stored.get(STORAGE_KEY), GitHubConfig.class);
+        config.setGithubToken(tokenEncryption.decrypt(config.getGithubToken()));
+        config.setWebhookSecret(tokenEncryption.decrypt(config.getWebhookSecret()));
+        return config.getRepositoryMappings("P" + (i % 200)).size();
+    }
+
+    private static GitHubConfig config(int repositories) {
+        GitHubConfig config = new GitHubConfig();
+        config.setGithubEnterpriseUrl("https://github.example.com");
+        config.setGithubToken("ghp_token");
+        config.setWebhookSecret("secret");
+        List<RepositoryMapping> mappings = new ArrayList<>();
+        for (int i = 0; i < repositories; i++) {
+            mappings.add(new RepositoryMapping("P" + i, "acme", "repo-" + i));
+        }
+        config.setRepositories(mappings);
+        return config;
+    }
+
+    private final class MapSettings implements PluginSettings {
+        @Override
+        public Object get(String key) {
+            return stored.get(key);
+        }
+
+        @Override
+        public Object put(String key, Object value) {
+            return stored.put(key, value);
+        }
+
+        @Override
+        public Object remove(String key) {
+            return stored.remove(key);
+        }
+    }
+}
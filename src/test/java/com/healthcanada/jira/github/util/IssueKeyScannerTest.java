@@ -0,0 +1,98 @@
+package com.healthcanada.jira.github.util;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.function.IntSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class IssueKeyScannerTest {
+
+    private final IssueKeyScanner scanner = new IssueKeyScanner(Arrays.asList("ABC", "AB", "HC_2", " web "));
+
+    @Test
+    public void findsKeysOfConfiguredProjects() {
+        assertEquals("ABC-12", scanner.findFirst("feature/ABC-12-login"));
+        assertEquals("AB-7", scanner.findFirst("Fix AB-7."));
+        assertEquals("HC_2-1", scanner.findFirst("(HC_2-1)"));
+        assertEquals("WEB-3", scanner.findFirst("WEB-3"));
+    }
+
+    @Test
+    public void ignoresUnknownProjectsAndPartialWords() {
+        assertNull(scanner.findFirst("UTF-8 and SHA-256"));
+        assertNull(scanner.findFirst("XABC-12"));
+        assertNull(scanner.findFirst("abc-12"));
+        assertNull(scanner.findFirst("ABC-12a"));
+        assertNull(scanner.findFirst("ABC-"));
+        assertNull(scanner.findFirst("ABC 12"));
+        assertNull(scanner.findFirst(null));
+    }
+
+    @Test
+    public void findsAllDistinctKeysInOrder() {
+        assertEquals(Arrays.asList("AB-2", "ABC-1", "WEB-9"),
+                scanner.findAll("AB-2 ABC-1, ab-3 XYZ-4 AB-2 [WEB-9]"));
+    }
+
+    @Test
+    public void emptyScannerFindsNothing() {
+        IssueKeyScanner empty = new IssueKeyScanner(Arrays.asList(null, "", "1AB", "A-B"));
+
+        assertTrue(empty.isEmpty());
+        assertFalse(scanner.isEmpty());
+        assertEquals(Collections.emptyList(), empty.findAll("AB-1 1AB-2"));
+    }
+
+    @Test
+    public void scansFasterThanRegex() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            text.append("Merge branch 'feature/ABC-").append(i).append("' uses UTF-8 and SHA-256 ");
+        }
+        String message = text.toString();
+        // The configured projects as an alternation, and the generic pattern SyncService used before
+        Pattern projects = Pattern.compile("\\b(ABC|AB|HC_2|WEB)-\\d+\\b");
+        Pattern generic = Pattern.compile("([A-Z][A-Z0-9]+-\\d+)");
+
+        long scanning = nanosPerMessage(() -> scanner.findAll(message).size());
+        long alternation = nanosPerMessage(() -> regexFindAll(projects, message));
+        long anyKey = nanosPerMessage(() -> regexFindAll(generic, message));
+
+        System.out.printf("%d char message: scanner %d us, project regex %d us, generic regex %d us per message%n",
+                message.length(), scanning / 1000, alternation / 1000, anyKey / 1000);
+        assertEquals(regexFindAll(projects, message), scanner.findAll(message).size());
+        // The generic pattern also matches UTF-8 and SHA-256, which then need a project lookup each
+        assertTrue(regexFindAll(generic, message) > scanner.findAll(message).size());
+    }
+
+    private static long nanosPerMessage(IntSupplier scan) {
+        int rounds = 500;
+        // Warm up, then keep the best of several runs to ride out GC and JIT noise
+        long best = Long.MAX_VALUE;
+        for (int run = 0; run < 5; run++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < rounds; i++) {
+                scan.getAsInt();
+            }
+            best = Math.min(best, (System.nanoTime() - start) / rounds);
+        }
+        return best;
+    }
+
+    private static int regexFindAll(Pattern pattern, String text) {
+        java.util.Set<String> keys = new java.util.LinkedHashSet<>();
+        Matcher matcher = pattern.matcher(text);
+        while (matcher.find()) {
+            keys.add(matcher.group());
+        }
+        return keys.size();
+    }
+}
@@ -0,0 +1,124 @@
+package com.healthcanada.jira.github.util;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class StripedExecutorTest {
+
+    private StripedExecutor executor;
+
+    @After
+    public void tearDown() {
+        if (executor != null) {
+            executor.shutdown(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void runsTasksForTheSameKeyInSubmissionOrder() throws Exception {
+        executor = new StripedExecutor("test-lane", 4, 10);
+        String[] keys = {"ABC-1", "ABC-2", "XYZ-7", "XYZ-8", "DEF-3"};
+        int tasksPerKey = 200;
+        Map<String, List<Integer>> seen = new ConcurrentHashMap<>();
+        CountDownLatch done = new CountDownLatch(keys.length * tasksPerKey);
+
+        for (int i = 0; i < tasksPerKey; i++) {
+            for (String key : keys) {
+                int value = i;
+                executor.execute(key, () -> {
+                    seen.computeIfAbsent(key, k -> Collections.synchronizedList(new ArrayList<>())).add(value);
+                    done.countDown();
+                });
+            }
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        for (String key : keys) {
+            List<Integer> values = seen.get(key);
+            assertEquals(tasksPerKey, values.size());
+            for (int i = 0; i < tasksPerKey; i++) {
+                assertEquals("order of " + key, i, (int) values.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void failingTaskDoesNotStopItsLane() throws Exception {
+        executor = new StripedExecutor("test-lane", 1, 10);
+        CountDownLatch done = new CountDownLatch(1);
+
+        executor.execute("ABC-1", () -> {
+            throw new IllegalStateException("boom");
+        });
+        executor.execute("ABC-1", done::countDown);
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shutdownFinishesQueuedTasks() throws Exception {
+        executor = new StripedExecutor("test-lane", 2, 100);
+        CountDownLatch done = new CountDownLatch(50);
+        for (int i = 0; i < 50; i++) {
+            executor.execute("KEY-" + i, done::countDown);
+        }
+
+        assertTrue(executor.shutdown(5, TimeUnit.SECONDS));
+        assertEquals(0, done.getCount());
+    }
+
+    @Test(timeout = 5000)
+    public void executeDoesNotBlockOnAFullLaneButAwaitCapacityDoes() throws Exception {
+        executor = new StripedExecutor("test-lane", 1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(3);
+        executor.execute("ABC-1", () -> {
+            await(release);
+            done.countDown();
+        });
+        executor.execute("ABC-1", done::countDown);
+        executor.execute("ABC-1", done::countDown);
+
+        Thread waiter = new Thread(() -> {
+            try {
+                executor.awaitCapacity("ABC-1");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiter.start();
+        waiter.join(200);
+        assertTrue("lane is over capacity", waiter.isAlive());
+
+        release.countDown();
+        waiter.join();
+        assertTrue(done.await(2, TimeUnit.SECONDS));
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void rejectsTasksAfterShutdown() throws Exception {
+        executor = new StripedExecutor("test-lane", 1, 10);
+        executor.shutdown(1, TimeUnit.SECONDS);
+        executor.execute("ABC-1", () -> { });
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
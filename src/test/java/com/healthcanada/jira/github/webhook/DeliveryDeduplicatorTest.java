@@ -0,0 +1,94 @@
+package com.healthcanada.jira.github.webhook;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DeliveryDeduplicatorTest {
+
+    private static final long WINDOW = TimeUnit.HOURS.toMillis(24);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void detectsRedeliveryFromRecentEntries() {
+        DeliveryDeduplicator deduplicator = deduplicator(100);
+
+        assertTrue(deduplicator.markIfNew("delivery-1"));
+        assertFalse(deduplicator.markIfNew("delivery-1"));
+        assertTrue(deduplicator.markIfNew("delivery-2"));
+    }
+
+    @Test
+    public void detectsRedeliveryAfterEvictionToBloomFilter() {
+        DeliveryDeduplicator deduplicator = deduplicator(10);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(deduplicator.markIfNew("delivery-" + i));
+        }
+
+        for (int i = 0; i < 100; i++) {
+            assertFalse("delivery-" + i, deduplicator.markIfNew("delivery-" + i));
+        }
+    }
+
+    @Test
+    public void forgottenDeliveryIsAcceptedAgain() {
+        DeliveryDeduplicator deduplicator = deduplicator(100);
+        deduplicator.markIfNew("delivery-1");
+        deduplicator.forget("delivery-1");
+
+        assertTrue(deduplicator.markIfNew("delivery-1"));
+    }
+
+    @Test
+    public void deliveriesSurviveRestart() throws Exception {
+        File snapshot = new File(folder.getRoot(), "dedup.bin");
+        DeliveryDeduplicator before = new DeliveryDeduplicator(snapshot, 10, WINDOW);
+        for (int i = 0; i < 50; i++) {
+            before.markIfNew("delivery-" + i);
+        }
+        before.saveSnapshot();
+
+        DeliveryDeduplicator after = new DeliveryDeduplicator(snapshot, 10, WINDOW);
+        after.afterPropertiesSet();
+        try {
+            for (int i = 0; i < 50; i++) {
+                assertFalse("delivery-" + i, after.markIfNew("delivery-" + i));
+            }
+            assertTrue(after.markIfNew("delivery-new"));
+        } finally {
+            after.destroy();
+        }
+    }
+
+    @Test
+    public void falsePositiveRateStaysBelowOneInAThousandAtHundredThousandIds() {
+        DeliveryDeduplicator deduplicator = deduplicator(1);
+        for (int i = 0; i < 100000; i++) {
+            deduplicator.markIfNew(UUID.randomUUID().toString());
+        }
+
+        int falsePositives = 0;
+        int probes = 10000;
+        for (int i = 0; i < probes; i++) {
+            if (!deduplicator.markIfNew(UUID.randomUUID().toString())) {
+                falsePositives++;
+            }
+        }
+
+        // About 0.006% expected at 100k IDs, 0.013% once the probes are recorded too
+        assertTrue("false positives: " + falsePositives, falsePositives < probes / 1000);
+    }
+
+    private DeliveryDeduplicator deduplicator(int maxEntries) {
+        return new DeliveryDeduplicator(new File(folder.getRoot(), "dedup.bin"), maxEntries, WINDOW);
+    }
+}
@@ -0,0 +1,197 @@
+package com.healthcanada.jira.github.webhook;
+
+import com.atlassian.jira.cluster.ClusterMessagingService;
+import com.atlassian.sal.api.pluginsettings.PluginSettingsFactory;
+import com.healthcanada.jira.github.model.GitHubConfig;
+import com.healthcanada.jira.github.model.RepositoryMapping;
+import com.healthcanada.jira.github.security.TokenEncryption;
+import com.healthcanada.jira.github.storage.PluginConfigurationManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class GitHubWebhookListenerTest {
+
+    private static final String SECRET = "webhook-secret";
+    private static final byte[] BODY = "{\"ref\":\"refs/heads/main\"}".getBytes(StandardCharsets.UTF_8);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private DeliveryDeduplicator deduplicator;
+    private StubQueue queue;
+    private GitHubWebhookListener listener;
+
+    @Before
+    public void setUp() {
+        GitHubConfig config = new GitHubConfig();
+        config.setGithubEnterpriseUrl("https://github.example.com");
+        config.setGithubToken("token");
+        config.setWebhookSecret(SECRET);
+        List<RepositoryMapping> repositories = new ArrayList<>();
+        repositories.add(new RepositoryMapping("ABC", "org", "repo"));
+        config.setRepositories(repositories);
+
+        PluginConfigurationManager configManager = new PluginConfigurationManager(
+                mock(PluginSettingsFactory.class), new TokenEncryption(), mock(ClusterMessagingService.class)) {
+            @Override
+            public GitHubConfig getConfiguration() {
+                return config;
+            }
+        };
+        deduplicator = new DeliveryDeduplicator(new File(folder.getRoot(), "dedup.bin"), 100,
+                TimeUnit.HOURS.toMillis(24));
+        queue = new StubQueue();
+        listener = new GitHubWebhookListener(configManager, queue, deduplicator);
+    }
+
+    @After
+    public void tearDown() {
+        queue.destroy();
+    }
+
+    @Test
+    public void acceptedDeliveryIsAcknowledgedAndMarked() throws Exception {
+        HttpServletResponse response = post("delivery-1");
+
+        verify(response).setStatus(HttpServletResponse.SC_ACCEPTED);
+        assertFalse(deduplicator.markIfNew("delivery-1"));
+    }
+
+    @Test
+    public void deliveryRejectedByFullQueueCanBeRedelivered() throws Exception {
+        queue.accept = false;
+
+        HttpServletResponse response = post("delivery-1");
+
+        verify(response).setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        assertTrue(deduplicator.markIfNew("delivery-1"));
+    }
+
+    @Test
+    public void deliveryIsForgottenWhenQueueingFails() throws Exception {
+        queue.failure = new IllegalStateException("journal write failed");
+
+        HttpServletResponse response = post("delivery-1");
+
+        verify(response).setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        assertTrue(deduplicator.markIfNew("delivery-1"));
+    }
+
+    @Test
+    public void redeliveryAfterFailureIsQueued() throws Exception {
+        queue.failure = new IllegalStateException("journal write failed");
+        post("delivery-1");
+        queue.failure = null;
+
+        HttpServletResponse response = post("delivery-1");
+
+        verify(response).setStatus(HttpServletResponse.SC_ACCEPTED);
+        assertEquals(1, queue.submitted);
+    }
+
+    private HttpServletResponse post(String deliveryId) throws Exception {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getHeader("X-GitHub-Event")).thenReturn("push");
+        when(request.getHeader("X-GitHub-Delivery")).thenReturn(deliveryId);
+        when(request.getHeader("X-Hub-Signature-256")).thenReturn(sign(BODY));
+        when(request.getContentLength()).thenReturn(BODY.length);
+        when(request.getInputStream()).thenReturn(new BodyStream(BODY));
+
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        when(response.getWriter()).thenReturn(new PrintWriter(new StringWriter()));
+        listener.doPost(request, response);
+        return response;
+    }
+
+    private static String sign(byte[] body) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        StringBuilder hex = new StringBuilder("sha256=");
+        for (byte b : mac.doFinal(body)) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Accepts, rejects or fails submissions without journaling or processing them
+     */
+    private static final class StubQueue extends WebhookEventQueue {
+        private boolean accept = true;
+        private RuntimeException failure;
+        private int submitted;
+
+        StubQueue() {
+            super(null, null, 1, 1);
+        }
+
+        @Override
+        public boolean submit(WebhookEvent event) {
+            if (failure != null) {
+                throw failure;
+            }
+            if (accept) {
+                submitted++;
+            }
+            return accept;
+        }
+    }
+
+    private static final class BodyStream extends ServletInputStream {
+        private final ByteArrayInputStream body;
+
+        BodyStream(byte[] body) {
+            this.body = new ByteArrayInputStream(body);
+        }
+
+        @Override
+        public int read() {
+            return body.read();
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            return body.read(buffer, offset, length);
+        }
+
+        @Override
+        public boolean isFinished() {
+            return body.available() == 0;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.healthcanada.jira.github.webhook;
+
+import com.healthcanada.jira.github.model.WebhookPayload;
+import com.healthcanada.jira.github.service.BranchShaCache;
+import com.healthcanada.jira.github.service.SyncService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class WebhookEventProcessorTest {
+
+    private RecordingSyncService syncService;
+    private WebhookEventProcessor processor;
+
+    @Before
+    public void setUp() {
+        syncService = new RecordingSyncService();
+        processor = new WebhookEventProcessor(syncService, new BranchShaCache());
+    }
+
+    @After
+    public void tearDown() {
+        processor.destroy();
+    }
+
+    @Test
+    public void appliesUpdatesInAcceptanceOrderWhenParsedOutOfOrder() throws Exception {
+        long openedSequence = processor.reserve();
+        long closedSequence = processor.reserve();
+        CountDownLatch completed = new CountDownLatch(2);
+
+        // The later delivery finishes parsing first
+        processor.process(pullRequestEvent("closed", "ABC-1"), closedSequence, completed::countDown);
+        Thread.sleep(50);
+        assertTrue("nothing runs before the earlier event is parsed", syncService.calls.isEmpty());
+
+        processor.process(pullRequestEvent("opened", "ABC-1"), openedSequence, completed::countDown);
+
+        assertTrue(completed.await(5, TimeUnit.SECONDS));
+        assertEquals(listOf("opened ABC-1", "closed ABC-1"), syncService.calls);
+    }
+
+    @Test
+    public void skippedSequenceDoesNotHoldBackLaterEvents() throws Exception {
+        long skipped = processor.reserve();
+        long sequence = processor.reserve();
+        CountDownLatch completed = new CountDownLatch(1);
+
+        processor.process(pullRequestEvent("opened", "ABC-2"), sequence, completed::countDown);
+        processor.skip(skipped);
+
+        assertTrue(completed.await(5, TimeUnit.SECONDS));
+        assertEquals(listOf("opened ABC-2"), syncService.calls);
+    }
+
+    @Test
+    public void completesEventsWithoutUpdates() throws Exception {
+        AtomicInteger completed = new AtomicInteger();
+
+        processor.process(new WebhookEvent("pull_request", "d-1", bytes("{\"action\":\"opened\"}")),
+                processor.reserve(), completed::incrementAndGet);
+        processor.process(new WebhookEvent("ping", "d-2", bytes("{}")),
+                processor.reserve(), completed::incrementAndGet);
+
+        assertEquals(2, completed.get());
+    }
+
+    @Test
+    public void handlesPullRequestWithoutRepository() throws Exception {
+        CountDownLatch completed = new CountDownLatch(1);
+        String json = "{\"action\":\"opened\",\"pull_request\":{\"number\":2,\"title\":\"ABC-3 change\","
+                + "\"merged\":false,\"head\":{\"ref\":\"feature/ABC-3\"}}}";
+
+        processor.process(new WebhookEvent("pull_request", "d-3", bytes(json)), processor.reserve(),
+                completed::countDown);
+
+        assertTrue(completed.await(5, TimeUnit.SECONDS));
+        assertEquals(listOf("opened ABC-3"), syncService.calls);
+    }
+
+    @Test
+    public void keepsPerIssueOrderUnderConcurrentParsing() throws Exception {
+        int events = 200;
+        long[] sequences = new long[events];
+        for (int i = 0; i < events; i++) {
+            sequences[i] = processor.reserve();
+        }
+        CountDownLatch completed = new CountDownLatch(events);
+
+        List<Thread> workers = new ArrayList<>();
+        for (int worker = 0; worker < 4; worker++) {
+            int first = worker;
+            Thread thread = new Thread(() -> {
+                for (int i = first; i < events; i += 4) {
+                    String action = i % 2 == 0 ? "opened" : "closed";
+                    processor.process(pullRequestEvent(action, "ABC-" + (i % 3)), sequences[i],
+                            completed::countDown);
+                }
+            });
+            workers.add(thread);
+            thread.start();
+        }
+        for (Thread thread : workers) {
+            thread.join();
+        }
+
+        assertTrue(completed.await(10, TimeUnit.SECONDS));
+        for (int issue = 0; issue < 3; issue++) {
+            List<String> expected = new ArrayList<>();
+            for (int i = 0; i < events; i++) {
+                if (i % 3 == issue) {
+                    expected.add((i % 2 == 0 ? "opened" : "closed") + " ABC-" + issue);
+                }
+            }
+            assertEquals(expected, syncService.callsFor("ABC-" + issue));
+        }
+    }
+
+    @Test
+    public void saturatedIssueDoesNotDelayOtherIssues() throws Exception {
+        // Two lanes of capacity 1; ABC-1 and ABC-2 hash to different lanes
+        WebhookEventProcessor lanes = new WebhookEventProcessor(syncService, new BranchShaCache(), 2, 1);
+        syncService.blockedIssue = "ABC-1";
+        List<Thread> workers = new ArrayList<>();
+        try {
+            for (int i = 0; i < 3; i++) {
+                long sequence = lanes.reserve();
+                Thread thread = new Thread(() -> lanes.process(pullRequestEvent("opened", "ABC-1"), sequence, () -> { }));
+                workers.add(thread);
+                thread.start();
+            }
+            long deadline = System.currentTimeMillis() + 2000;
+            while (!Integer.valueOf(2).equals(lanes.getStatistics().get("backlog"))
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+
+            CountDownLatch completed = new CountDownLatch(1);
+            lanes.process(pullRequestEvent("opened", "ABC-2"), lanes.reserve(), completed::countDown);
+
+            assertTrue("ABC-2 is not held up by ABC-1", completed.await(2, TimeUnit.SECONDS));
+            assertEquals(listOf("opened ABC-2"), syncService.callsFor("ABC-2"));
+        } finally {
+            syncService.unblock.countDown();
+            for (Thread thread : workers) {
+                thread.join(5000);
+            }
+            lanes.destroy();
+        }
+        assertEquals(3, syncService.callsFor("ABC-1").size());
+    }
+
+    private static WebhookEvent pullRequestEvent(String action, String issueKey) {
+        String json = "{\"action\":\"" + action + "\",\"pull_request\":{\"number\":1,\"title\":\"" + issueKey
+                + " change\",\"merged\":false,\"head\":{\"ref\":\"feature/" + issueKey + "\"}},"
+                + "\"repository\":{\"full_name\":\"org/repo\"}}";
+        return new WebhookEvent("pull_request", null, bytes(json));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> listOf(String... values) {
+        List<String> list = new ArrayList<>();
+        Collections.addAll(list, values);
+        return list;
+    }
+
+    /**
+     * Records handler calls; issue keys are any uppercase word, a dash and a number
+     */
+    private static final class RecordingSyncService extends SyncService {
+        private static final Pattern ISSUE_KEY = Pattern.compile("[A-Z]+-\\d+");
+
+        private final List<String> calls = Collections.synchronizedList(new ArrayList<>());
+        private final CountDownLatch unblock = new CountDownLatch(1);
+        private volatile String blockedIssue;
+
+        RecordingSyncService() {
+            super(null, null);
+        }
+
+        List<String> callsFor(String issueKey) {
+            List<String> result = new ArrayList<>();
+            synchronized (calls) {
+                for (String call : calls) {
+                    if (call.endsWith(" " + issueKey)) {
+                        result.add(call);
+                    }
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public String extractIssueKey(String text, String repositoryFullName) {
+            Matcher matcher = ISSUE_KEY.matcher(text);
+            return matcher.find() ? matcher.group() : null;
+        }
+
+        @Override
+        public void handlePROpened(String issueKey, WebhookPayload.PullRequest pr) {
+            if (issueKey.equals(blockedIssue)) {
+                try {
+                    unblock.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            calls.add("opened " + issueKey);
+        }
+
+        @Override
+        public void handlePRClosed(String issueKey, WebhookPayload.PullRequest pr) {
+            calls.add("closed " + issueKey);
+        }
+    }
+}
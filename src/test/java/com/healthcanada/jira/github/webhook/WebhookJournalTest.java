@@ -0,0 +1,259 @@
+package com.healthcanada.jira.github.webhook;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class WebhookJournalTest {
+
+    private static final int SEGMENT_SIZE = 4096;
+    private static final long FLUSH_MS = 60000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final List<WebhookJournal> journals = new ArrayList<>();
+
+    @After
+    public void tearDown() {
+        for (WebhookJournal journal : journals) {
+            journal.destroy();
+        }
+    }
+
+    @Test
+    public void replaysOnlyUncommittedEvents() {
+        WebhookJournal journal = open();
+        assertTrue(journal.recover().isEmpty());
+
+        WebhookEvent first = event("d-1");
+        WebhookEvent second = event("d-2");
+        WebhookEvent third = event("d-3");
+        assertTrue(journal.append(first));
+        assertTrue(journal.append(second));
+        assertTrue(journal.append(third));
+
+        // Later events complete before the first one
+        journal.commit(third);
+        journal.commit(second);
+        restart(journal);
+
+        List<WebhookEvent> recovered = open().recover();
+        assertEquals(1, recovered.size());
+        assertEquals("d-1", recovered.get(0).getDeliveryId());
+        assertEquals("push", recovered.get(0).getEventType());
+        assertArrayEquals(first.getPayload(), recovered.get(0).getPayload());
+        assertNotNull(recovered.get(0).getJournalPosition());
+    }
+
+    @Test
+    public void replayedEventsCanBeCommitted() {
+        WebhookJournal journal = open();
+        journal.recover();
+        journal.append(event("d-1"));
+        journal.append(event("d-2"));
+        restart(journal);
+
+        WebhookJournal reopened = open();
+        List<WebhookEvent> recovered = reopened.recover();
+        assertEquals(2, recovered.size());
+        reopened.commit(recovered.get(1));
+        restart(reopened);
+
+        List<WebhookEvent> again = open().recover();
+        assertEquals(1, again.size());
+        assertEquals("d-1", again.get(0).getDeliveryId());
+    }
+
+    @Test
+    public void deletesSegmentsOnceEveryRecordIsCommitted() {
+        WebhookJournal journal = open();
+        journal.recover();
+
+        List<WebhookEvent> events = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            WebhookEvent event = event("d-" + i);
+            assertTrue(journal.append(event));
+            events.add(event);
+        }
+        assertTrue("events span several segments", segmentIds(".log").size() > 1);
+
+        for (WebhookEvent event : events) {
+            journal.commit(event);
+        }
+
+        // Only the active segment is left
+        assertEquals(1, segmentIds(".log").size());
+        assertEquals(1, segmentIds(".ckpt").size());
+        assertEquals(0, journal.getStatistics().get("pending"));
+        assertEquals(0, journal.getStatistics().get("undeletedSegments"));
+    }
+
+    @Test
+    public void deletedSegmentsAreUnmapped() throws IOException {
+        File maps = new File("/proc/self/maps");
+        if (!maps.canRead()) {
+            return;
+        }
+        WebhookJournal journal = open();
+        journal.recover();
+        WebhookEvent first = event("d-1");
+        journal.append(first);
+        String firstLog = new File(folder.getRoot(), String.format("segment-%020d.log",
+                first.getJournalPosition().getSegmentId())).getCanonicalPath();
+
+        // Roll past the first segment, then commit everything in it
+        List<WebhookEvent> events = new ArrayList<>();
+        events.add(first);
+        while (events.get(events.size() - 1).getJournalPosition().getSegmentId()
+                == first.getJournalPosition().getSegmentId()) {
+            WebhookEvent event = event("d-" + events.size());
+            journal.append(event);
+            events.add(event);
+        }
+        assertTrue(new String(Files.readAllBytes(maps.toPath()), StandardCharsets.UTF_8).contains(firstLog));
+        for (WebhookEvent event : events) {
+            journal.commit(event);
+        }
+
+        assertFalse(new File(firstLog).exists());
+        assertFalse("no mapping left for " + firstLog,
+                new String(Files.readAllBytes(maps.toPath()), StandardCharsets.UTF_8).contains(firstLog));
+
+        // The journal keeps working on the new segment
+        WebhookEvent later = event("d-later");
+        assertTrue(journal.append(later));
+        journal.commit(later);
+    }
+
+    @Test
+    public void failedDeletesAreRetriedOnTheNextRoll() {
+        AtomicBoolean deletable = new AtomicBoolean(false);
+        WebhookJournal journal = new WebhookJournal(folder.getRoot(), SEGMENT_SIZE, FLUSH_MS) {
+            @Override
+            boolean deleteFile(File file) {
+                return deletable.get() && super.deleteFile(file);
+            }
+        };
+        journals.add(journal);
+        journal.recover();
+
+        List<WebhookEvent> events = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            WebhookEvent event = event("d-" + i);
+            journal.append(event);
+            events.add(event);
+        }
+        for (WebhookEvent event : events) {
+            journal.commit(event);
+        }
+        int undeleted = (Integer) journal.getStatistics().get("undeletedSegments");
+        assertTrue(undeleted > 0);
+        assertEquals(undeleted + 1, segmentIds(".log").size());
+
+        // Filling the active segment rolls the journal, which retries the deletes
+        deletable.set(true);
+        for (int i = 0; i < 20; i++) {
+            journal.append(event("e-" + i));
+        }
+
+        assertEquals(0, journal.getStatistics().get("undeletedSegments"));
+        assertEquals((long) segmentIds(".log").size(), (long) (Integer) journal.getStatistics().get("segments"));
+    }
+
+    @Test
+    public void neverReusesTheIdOfALeftoverCheckpoint() throws IOException {
+        assertTrue(new File(folder.getRoot(), "segment-00000000000000000007.ckpt").createNewFile());
+
+        WebhookJournal journal = open();
+        journal.recover();
+        WebhookEvent event = event("d-1");
+        journal.append(event);
+
+        assertEquals(8, event.getJournalPosition().getSegmentId());
+    }
+
+    @Test
+    public void stopsReplayAtACorruptRecord() throws IOException {
+        WebhookJournal journal = open();
+        journal.recover();
+        journal.append(event("d-1"));
+        WebhookEvent second = event("d-2");
+        journal.append(second);
+        journal.append(event("d-3"));
+        restart(journal);
+
+        File log = new File(folder.getRoot(), String.format("segment-%020d.log",
+                second.getJournalPosition().getSegmentId()));
+        try (RandomAccessFile file = new RandomAccessFile(log, "rw")) {
+            // Flip a payload byte of the second record
+            file.seek(second.getJournalPosition().getOffset() + 20);
+            int value = file.read();
+            file.seek(second.getJournalPosition().getOffset() + 20);
+            file.write(value ^ 0xff);
+        }
+
+        List<WebhookEvent> recovered = open().recover();
+        assertEquals(1, recovered.size());
+        assertEquals("d-1", recovered.get(0).getDeliveryId());
+    }
+
+    @Test
+    public void rejectsEventsLargerThanASegment() {
+        WebhookJournal journal = open();
+        journal.recover();
+
+        WebhookEvent event = new WebhookEvent("push", "d-big", new byte[SEGMENT_SIZE]);
+        assertFalse(journal.append(event));
+        assertEquals(null, event.getJournalPosition());
+    }
+
+    private WebhookJournal open() {
+        WebhookJournal journal = new WebhookJournal(folder.getRoot(), SEGMENT_SIZE, FLUSH_MS);
+        journals.add(journal);
+        return journal;
+    }
+
+    private void restart(WebhookJournal journal) {
+        journal.destroy();
+        journals.remove(journal);
+    }
+
+    private List<String> segmentIds(String suffix) {
+        List<String> ids = new ArrayList<>();
+        String[] names = folder.getRoot().list();
+        if (names != null) {
+            for (String name : names) {
+                if (name.endsWith(suffix)) {
+                    ids.add(name);
+                }
+            }
+        }
+        return ids;
+    }
+
+    private static WebhookEvent event(String deliveryId) {
+        StringBuilder json = new StringBuilder("{\"ref\":\"refs/heads/main\",\"padding\":\"");
+        for (int i = 0; i < 300; i++) {
+            json.append('x');
+        }
+        json.append("\"}");
+        return new WebhookEvent("push", deliveryId, json.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
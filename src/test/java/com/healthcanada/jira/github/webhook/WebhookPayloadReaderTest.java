@@ -0,0 +1,213 @@
+package com.healthcanada.jira.github.webhook;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.healthcanada.jira.github.model.PushPayload;
+import com.healthcanada.jira.github.model.WebhookPayload;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class WebhookPayloadReaderTest {
+
+    private static final ObjectMapper TREE_MAPPER = new ObjectMapper();
+    private static final int ROUNDS = 2000;
+
+    private static final String REPOSITORY = "{\"id\":42,\"name\":\"repo\",\"full_name\":\"org/repo\","
+            + "\"html_url\":\"https://github.example.com/org/repo\",\"owner\":{\"login\":\"org\",\"id\":7},"
+            + "\"topics\":[\"a\",\"b\"],\"license\":null}";
+
+    @Test
+    public void pullRequestFieldsMatchFullBinding() throws Exception {
+        byte[] payload = bytes(pullRequestJson());
+
+        WebhookPayload streamed = WebhookPayloadReader.readPullRequestEvent(payload);
+        WebhookPayload bound = WebhookPayloadReader.bind(payload);
+
+        assertEquals(bound.getAction(), streamed.getAction());
+        WebhookPayload.PullRequest pr = streamed.getPullRequest();
+        WebhookPayload.PullRequest expected = bound.getPullRequest();
+        assertEquals(expected.getNumber(), pr.getNumber());
+        assertEquals(expected.getTitle(), pr.getTitle());
+        assertEquals(expected.getHtmlUrl(), pr.getHtmlUrl());
+        assertEquals(expected.getState(), pr.getState());
+        assertEquals(expected.isMerged(), pr.isMerged());
+        assertEquals(expected.getMergedAt(), pr.getMergedAt());
+        assertEquals(expected.getHead().getRef(), pr.getHead().getRef());
+        assertEquals(expected.getHead().getSha(), pr.getHead().getSha());
+        assertEquals(expected.getBase().getRef(), pr.getBase().getRef());
+        assertEquals(expected.getUser().getLogin(), pr.getUser().getLogin());
+        assertEquals(expected.getMergedBy().getLogin(), pr.getMergedBy().getLogin());
+        assertEquals(bound.getRepository().getFullName(), streamed.getRepository().getFullName());
+        assertEquals("org", streamed.getRepository().getOwner().getLogin());
+        assertEquals(bound.getSender().getLogin(), streamed.getSender().getLogin());
+    }
+
+    @Test
+    public void pushCommitsAreReadAndFileListsSkipped() throws Exception {
+        String json = "{\"ref\":\"refs/heads/feature/ABC-1\",\"before\":\"aaa\",\"after\":\"bbb\","
+                + "\"created\":false,\"deleted\":false,\"compare\":\"https://github.example.com/compare\","
+                + "\"commits\":[" + commit("c1", "ABC-1 first") + "," + commit("c2", "ABC-1 second") + "],"
+                + "\"head_commit\":" + commit("c2", "ABC-1 second") + ","
+                + "\"repository\":" + REPOSITORY + ",\"sender\":{\"login\":\"alice\"}}";
+
+        PushPayload push = WebhookPayloadReader.readPushEvent(bytes(json));
+
+        assertEquals("feature/ABC-1", push.getBranchName());
+        assertEquals("aaa", push.getBefore());
+        assertEquals("bbb", push.getAfter());
+        assertFalse(push.isDeleted());
+        assertEquals(2, push.getCommits().size());
+        assertEquals("c1", push.getCommits().get(0).getId());
+        assertEquals("ABC-1 second", push.getCommits().get(1).getMessage());
+        assertEquals("alice", push.getCommits().get(1).getAuthor().getUsername());
+        assertEquals("org/repo", push.getRepository().getFullName());
+    }
+
+    @Test
+    public void nullSubObjectsAreAccepted() throws Exception {
+        String json = "{\"action\":\"closed\",\"pull_request\":{\"number\":3,\"merged_by\":null,\"head\":null},"
+                + "\"repository\":null}";
+
+        WebhookPayload payload = WebhookPayloadReader.readPullRequestEvent(bytes(json));
+
+        assertEquals(3, payload.getPullRequest().getNumber());
+        assertNull(payload.getPullRequest().getMergedBy());
+        assertNull(payload.getRepository());
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsNonObjectPayload() throws Exception {
+        WebhookPayloadReader.readPullRequestEvent(bytes("[1,2,3]"));
+    }
+
+    @Test
+    public void streamingAllocatesLessThanFullBinding() throws Exception {
+        com.sun.management.ThreadMXBean allocations = allocationCounter();
+        if (allocations == null) {
+            return;
+        }
+        byte[] payload = bytes(pullRequestJson());
+
+        long streaming = allocatedPerEvent(allocations, () -> WebhookPayloadReader.readPullRequestEvent(payload));
+        long binding = allocatedPerEvent(allocations, () -> WebhookPayloadReader.bind(payload));
+
+        System.out.printf("pull_request payload of %d bytes: streaming %d B, full binding %d B allocated per event%n",
+                payload.length, streaming, binding);
+        assertTrue(streaming <= binding);
+    }
+
+    @Test
+    public void streamingBeatsTreeParse() throws Exception {
+        byte[] payload = bytes(pullRequestJson());
+        assertEquals(readFromTree(payload), WebhookPayloadReader.readPullRequestEvent(payload).getPullRequest()
+                .getHead().getRef());
+
+        long streamingNanos = nanosPerEvent(() -> WebhookPayloadReader.readPullRequestEvent(payload));
+        long treeNanos = nanosPerEvent(() -> readFromTree(payload));
+        System.out.printf("pull_request payload of %d bytes: streaming %d ns, readTree %d ns per event%n",
+                payload.length, streamingNanos, treeNanos);
+
+        com.sun.management.ThreadMXBean allocations = allocationCounter();
+        if (allocations != null) {
+            long streaming = allocatedPerEvent(allocations, () -> WebhookPayloadReader.readPullRequestEvent(payload));
+            long tree = allocatedPerEvent(allocations, () -> readFromTree(payload));
+            System.out.printf("pull_request payload of %d bytes: streaming %d B, readTree %d B allocated per event%n",
+                    payload.length, streaming, tree);
+            assertTrue(streaming < tree);
+        }
+    }
+
+    private static String readFromTree(byte[] payload) throws IOException {
+        // Reading the handler's fields through a JsonNode tree instead of the streaming reader
+        JsonNode pr = TREE_MAPPER.readTree(payload).path("pull_request");
+        pr.path("number").asInt();
+        pr.path("title").asText();
+        pr.path("merged").asBoolean();
+        pr.path("merged_by").path("login").asText();
+        return pr.path("head").path("ref").asText();
+    }
+
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)
+                || !((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()) {
+            return null;
+        }
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        allocations.setThreadAllocatedMemoryEnabled(true);
+        return allocations;
+    }
+
+    private static long allocatedPerEvent(com.sun.management.ThreadMXBean allocations, Parse parse)
+            throws IOException {
+        for (int i = 0; i < ROUNDS; i++) {
+            parse.run();
+        }
+        long threadId = Thread.currentThread().getId();
+        long before = allocations.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ROUNDS; i++) {
+            parse.run();
+        }
+        return (allocations.getThreadAllocatedBytes(threadId) - before) / ROUNDS;
+    }
+
+    private static long nanosPerEvent(Parse parse) throws IOException {
+        // Warm up, then keep the best of several runs to ride out GC and JIT noise
+        long best = Long.MAX_VALUE;
+        for (int run = 0; run < 5; run++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < ROUNDS; i++) {
+                parse.run();
+            }
+            best = Math.min(best, (System.nanoTime() - start) / ROUNDS);
+        }
+        return best;
+    }
+
+    @FunctionalInterface
+    private interface Parse {
+        Object run() throws IOException;
+    }
+
+    private static String pullRequestJson() {
+        StringBuilder labels = new StringBuilder("[");
+        for (int i = 0; i < 20; i++) {
+            labels.append(i > 0 ? "," : "").append("{\"id\":").append(i).append(",\"name\":\"label-").append(i)
+                    .append("\",\"color\":\"ffffff\",\"description\":\"A label used for sorting\"}");
+        }
+        labels.append(']');
+
+        return "{\"action\":\"closed\",\"number\":12,\"pull_request\":{"
+                + "\"url\":\"https://github.example.com/api/v3/repos/org/repo/pulls/12\",\"id\":1200,"
+                + "\"number\":12,\"state\":\"closed\",\"title\":\"ABC-1 Fix login\","
+                + "\"html_url\":\"https://github.example.com/org/repo/pull/12\","
+                + "\"user\":{\"login\":\"alice\",\"id\":1,\"site_admin\":false},"
+                + "\"body\":\"Long description of the change that nobody reads in the handler\","
+                + "\"labels\":" + labels + ",\"merged\":true,\"merged_at\":\"2024-01-02T03:04:05Z\","
+                + "\"closed_at\":\"2024-01-02T03:04:05Z\",\"merged_by\":{\"login\":\"bob\",\"id\":2},"
+                + "\"head\":{\"label\":\"org:feature/ABC-1\",\"ref\":\"feature/ABC-1\",\"sha\":\"abc123\","
+                + "\"repo\":" + REPOSITORY + "},"
+                + "\"base\":{\"label\":\"org:main\",\"ref\":\"main\",\"sha\":\"def456\",\"repo\":" + REPOSITORY + "},"
+                + "\"_links\":{\"self\":{\"href\":\"x\"},\"html\":{\"href\":\"y\"}},\"additions\":10,\"deletions\":2},"
+                + "\"repository\":" + REPOSITORY + ",\"sender\":{\"login\":\"bob\",\"id\":2}}";
+    }
+
+    private static String commit(String id, String message) {
+        return "{\"id\":\"" + id + "\",\"message\":\"" + message + "\",\"timestamp\":\"2024-01-02T03:04:05Z\","
+                + "\"url\":\"https://github.example.com/org/repo/commit/" + id + "\","
+                + "\"author\":{\"name\":\"Alice\",\"email\":\"alice@example.com\",\"username\":\"alice\"},"
+                + "\"added\":[\"a.txt\",\"b.txt\"],\"removed\":[],\"modified\":[\"c.txt\"]}";
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}